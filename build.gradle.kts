@@ -11,6 +11,9 @@ tasks.register("test") {
     dependsOn(gradle.includedBuild("e2immu-modification-prepwork").task(":test"))
     dependsOn(gradle.includedBuild("e2immu-modification-linkedvariables").task(":test"))
 }
+tasks.register("jmh") {
+    dependsOn(gradle.includedBuild("e2immu-modification-bench").task(":jmh"))
+}
 tasks.register("clean") {
     dependsOn(gradle.includedBuilds.map { it.task(":clean") })
 }
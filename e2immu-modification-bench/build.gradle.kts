@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022-2023, CodeLaser BV, Belgium.
+ * Unauthorized copying of this file, via any medium, is strictly prohibited.
+ * Proprietary and confidential.
+ */
+
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+group = "org.e2immu"
+
+
+repositories {
+    maven {
+        url = uri(project.findProperty("codeartifactPublicUri") as String)
+        credentials {
+            username = "aws"
+            password = project.findProperty("codeartifactToken") as String
+        }
+    }
+    mavenCentral()
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_24
+    targetCompatibility = JavaVersion.VERSION_24
+}
+
+val slf4jVersion = project.findProperty("slf4jVersion") as String
+val logbackClassicVersion = project.findProperty("logbackClassicVersion") as String
+
+dependencies {
+    jmh("org.e2immu:e2immu-external-support:$version")
+    jmh("org.e2immu:e2immu-cst-api:$version")
+    jmh("org.e2immu:e2immu-cst-impl:$version")
+    jmh("org.e2immu:e2immu-modification-prepwork:$version")
+    jmh("org.e2immu:e2immu-modification-linkedvariables:$version")
+    jmh("org.slf4j:slf4j-api:$slf4jVersion")
+    jmh("ch.qos.logback:logback-classic:$logbackClassicVersion")
+}
+
+/*
+ ./gradlew jmh                                          all benchmarks
+ ./gradlew jmh -Pbench.includes=WeightedGraph           benchmarks whose name matches the regex
+ ./gradlew jmh -Pbench.graphs=/path/to/captured         captured graphs: a file, or a directory of *.graphs files
+ */
+jmh {
+    jmhVersion = project.findProperty("jmhVersion") as String
+    (project.findProperty("bench.includes") as String?)?.let { includes.add(it) }
+    (project.findProperty("bench.graphs") as String?)?.let { jvmArgsAppend.add("-De2immu.bench.graphs=$it") }
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+}
+
+tasks.register<JavaExec>("replay") {
+    description = "Replays captured link graphs, see ReplayGraphs"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "org.e2immu.analyzer.modification.bench.ReplayGraphs"
+    listOf("graphs", "repeat", "filter").forEach { key ->
+        (project.findProperty("bench.$key") as String?)?.let { systemProperty("e2immu.bench.$key", it) }
+    }
+}
@@ -0,0 +1,63 @@
+package org.e2immu.analyzer.modification.bench;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.GraphCacheImpl;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphCodec;
+import org.e2immu.language.cst.api.runtime.Runtime;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.e2immu.language.cst.impl.runtime.RuntimeImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+WeightedGraphImpl.shortestPath and ShortestPathImpl.links on graphs captured from real analysis runs,
+see CapturedGraphs. One invocation processes all captured graphs; they are parsed again before every invocation,
+so that no result is remembered between invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CapturedGraphBenchmark {
+
+    @State(Scope.Thread)
+    public static class Graphs {
+        @Param({"true"})
+        public boolean canonicalOrder;
+
+        private final Runtime runtime = new RuntimeImpl();
+        private String content;
+        List<WeightedGraphCodec.NamedGraph> graphs;
+
+        @Setup(Level.Trial)
+        public void read() throws IOException {
+            content = CapturedGraphs.read();
+        }
+
+        @Setup(Level.Invocation)
+        public void parse() {
+            Cache cache = new GraphCacheImpl(1000);
+            graphs = CapturedGraphs.parse(runtime, content, cache, canonicalOrder);
+        }
+    }
+
+    @Benchmark
+    public void shortestPath(Graphs graphs, Blackhole blackhole) {
+        for (WeightedGraphCodec.NamedGraph ng : graphs.graphs) {
+            blackhole.consume(ng.graph().shortestPath());
+        }
+    }
+
+    @Benchmark
+    public void links(Graphs graphs, Blackhole blackhole) {
+        for (WeightedGraphCodec.NamedGraph ng : graphs.graphs) {
+            ShortestPath shortestPath = ng.graph().shortestPath();
+            for (Variable v : shortestPath.variables()) {
+                blackhole.consume(shortestPath.links(v, null));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.e2immu.analyzer.modification.bench;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphCodec;
+import org.e2immu.language.cst.api.runtime.Runtime;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/*
+Loads link graphs captured from real analysis runs (Configuration.graphCaptureThresholdMillis()), written by
+WeightedGraphCodec.write().
+
+The location is given by the system property e2immu.bench.graphs (gradle: -Pbench.graphs=...): a file, or a directory
+of which all *.graphs and *.graphs.gz files are read. Without it, the small sample on the class path is used.
+ */
+public class CapturedGraphs {
+    public static final String PROPERTY = "e2immu.bench.graphs";
+    private static final String SAMPLE = "/graphs/sample.graphs";
+
+    private CapturedGraphs() {
+    }
+
+    public static List<WeightedGraphCodec.NamedGraph> load(Runtime runtime, Cache cache, boolean canonicalOrder)
+            throws IOException {
+        return parse(runtime, read(), cache, canonicalOrder);
+    }
+
+    public static List<WeightedGraphCodec.NamedGraph> parse(Runtime runtime, String content, Cache cache,
+                                                            boolean canonicalOrder) {
+        WeightedGraphCodec codec = new WeightedGraphCodec(runtime);
+        return codec.read(new BufferedReader(new StringReader(content)), cache, canonicalOrder);
+    }
+
+    // the content of all files, concatenated
+    public static String read() throws IOException {
+        String location = System.getProperty(PROPERTY);
+        if (location == null || location.isBlank()) {
+            try (InputStream inputStream = CapturedGraphs.class.getResourceAsStream(SAMPLE)) {
+                if (inputStream == null) throw new FileNotFoundException(SAMPLE);
+                return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        Path path = Path.of(location);
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> stream = Files.walk(path)) {
+                files = stream.filter(p -> p.toString().endsWith(".graphs") || p.toString().endsWith(".graphs.gz"))
+                        .sorted().toList();
+            }
+        } else {
+            files = List.of(path);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Path file : files) {
+            try (InputStream inputStream = file.toString().endsWith(".gz")
+                    ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file)) {
+                sb.append(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).append('\n');
+            }
+        }
+        if (sb.isEmpty()) throw new IOException("No captured graphs in " + location);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package org.e2immu.analyzer.modification.bench;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.ConcurrentGraphCacheImpl;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.GraphCacheImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+Cache.computeIfAbsent of GraphCacheImpl (LRU, synchronized) and ConcurrentGraphCacheImpl, with room for 1000 elements.
+The keys are drawn uniformly from 'keySpace' distinct hashes: with 100 keys, almost every call is a hit, with
+10000 keys, most calls are a miss followed by an eviction. The contended variant runs with 4 threads on one cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GraphCacheBenchmark {
+    private static final int CAPACITY = 1000;
+    private static final Function<Cache.Hash, Cache.CacheElement> SUPPLIER = h -> () -> 1;
+
+    @State(Scope.Benchmark)
+    public static class SharedCache {
+        @Param({"lru", "concurrent"})
+        public String impl;
+
+        @Param({"100", "1000", "10000"})
+        public int keySpace;
+
+        Cache cache;
+        Cache.Hash[] hashes;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            cache = "lru".equals(impl) ? new GraphCacheImpl(CAPACITY) : new ConcurrentGraphCacheImpl(CAPACITY);
+            hashes = new Cache.Hash[keySpace];
+            for (int i = 0; i < keySpace; i++) {
+                hashes[i] = cache.createHash("key" + i);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Keys {
+        private final Random random = new Random(42L);
+
+        int next(int keySpace) {
+            return random.nextInt(keySpace);
+        }
+    }
+
+    @Benchmark
+    public Cache.CacheElement computeIfAbsent(SharedCache shared, Keys keys) {
+        return shared.cache.computeIfAbsent(shared.hashes[keys.next(shared.keySpace)], SUPPLIER);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Cache.CacheElement computeIfAbsentContended(SharedCache shared, Keys keys) {
+        return shared.cache.computeIfAbsent(shared.hashes[keys.next(shared.keySpace)], SUPPLIER);
+    }
+}
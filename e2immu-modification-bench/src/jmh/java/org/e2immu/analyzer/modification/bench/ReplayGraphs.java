@@ -0,0 +1,59 @@
+package org.e2immu.analyzer.modification.bench;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.GraphCacheImpl;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphCodec;
+import org.e2immu.language.cst.api.runtime.Runtime;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.e2immu.language.cst.impl.runtime.RuntimeImpl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+Replays captured link graphs (Configuration.graphCaptureThresholdMillis()), without sources or a JavaInspector,
+so that a slow statement can be studied under a profiler:
+
+  ./gradlew replay -Pbench.graphs=build/graphs [-Pbench.repeat=100] [-Pbench.filter=regex]
+
+Every repetition parses the graphs again, with an empty cache, and computes shortestPath(), allLinks() and links()
+of every variable, as ComputeLinkCompletion does. The time of each graph is printed for the first and the last
+repetition; the filter selects graphs by name (method, statement index, stage, capture time).
+ */
+public class ReplayGraphs {
+
+    public static void main(String[] args) throws IOException {
+        int repeat = Integer.parseInt(System.getProperty("e2immu.bench.repeat", "1"));
+        String filter = System.getProperty("e2immu.bench.filter");
+        Pattern pattern = filter == null || filter.isBlank() ? null : Pattern.compile(filter);
+        Runtime runtime = new RuntimeImpl();
+        String content = CapturedGraphs.read();
+
+        for (int r = 0; r < repeat; r++) {
+            boolean print = r == 0 || r == repeat - 1;
+            List<WeightedGraphCodec.NamedGraph> graphs = CapturedGraphs.parse(runtime, content,
+                    new GraphCacheImpl(1000), true);
+            long total = 0;
+            int count = 0;
+            for (WeightedGraphCodec.NamedGraph ng : graphs) {
+                if (pattern != null && !pattern.matcher(ng.name()).find()) continue;
+                long start = System.nanoTime();
+                ShortestPath shortestPath = ng.graph().shortestPath();
+                shortestPath.allLinks();
+                for (Variable v : shortestPath.variables()) {
+                    shortestPath.links(v, null);
+                }
+                long nanos = System.nanoTime() - start;
+                total += nanos;
+                ++count;
+                if (print) {
+                    System.out.printf("%10.3f ms  %5d vertices  %s%n", nanos / 1e6, ng.graph().size(), ng.name());
+                }
+            }
+            if (print) {
+                System.out.printf("Repetition %d: %d graphs in %.3f ms%n", r + 1, count, total / 1e6);
+            }
+        }
+    }
+}
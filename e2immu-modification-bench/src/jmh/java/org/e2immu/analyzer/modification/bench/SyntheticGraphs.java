@@ -0,0 +1,98 @@
+package org.e2immu.analyzer.modification.bench;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinkImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl;
+import org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.language.cst.api.element.CompilationUnit;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.cst.api.runtime.Runtime;
+import org.e2immu.language.cst.api.type.ParameterizedType;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.e2immu.language.cst.impl.runtime.RuntimeImpl;
+
+import java.util.*;
+
+import static org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl.ALL_INDICES;
+
+/*
+Random link graphs with the shape of those of ComputeLinkCompletion: every vertex has on average 'density'
+outgoing edges, mostly to vertices with a nearby index (statements link variables that are close to each other),
+with -0-, -1-, -2- and -4- in roughly the proportions seen in real runs. A fraction 'linksFraction' of the -2-
+edges carries a Links payload; -4- edges always do.
+
+The same seed produces the same graph, so that runs can be compared.
+ */
+public class SyntheticGraphs {
+    private final Runtime runtime = new RuntimeImpl();
+    private final ParameterizedType type;
+
+    public SyntheticGraphs() {
+        CompilationUnit compilationUnit = runtime.newCompilationUnitBuilder().setPackageName("bench").build();
+        TypeInfo typeInfo = runtime.newTypeInfo(compilationUnit, "T");
+        type = runtime.newParameterizedType(typeInfo, 0);
+    }
+
+    public Runtime runtime() {
+        return runtime;
+    }
+
+    /*
+    The input of addNode: vertex i, and its outgoing edges.
+     */
+    public record Adjacency(List<Variable> variables, List<Map<Variable, LV>> dependsOn) {
+        public WeightedGraph build(Cache cache, boolean canonicalOrder) {
+            WeightedGraph wg = new WeightedGraphImpl(cache, canonicalOrder);
+            addTo(wg);
+            return wg;
+        }
+
+        public void addTo(WeightedGraph wg) {
+            for (int i = 0; i < variables.size(); i++) {
+                wg.addNode(variables.get(i), dependsOn.get(i));
+            }
+        }
+    }
+
+    public Adjacency generate(int nodes, double density, double linksFraction, long seed) {
+        Random random = new Random(seed);
+        List<Variable> variables = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            variables.add(runtime.newLocalVariable("v" + i, type));
+        }
+        List<Map<Variable, LV>> dependsOn = new ArrayList<>(nodes);
+        long edges = Math.round(nodes * density);
+        for (int i = 0; i < nodes; i++) dependsOn.add(new LinkedHashMap<>());
+        for (long e = 0; e < edges && nodes > 1; e++) {
+            int from = random.nextInt(nodes);
+            int to = neighbor(random, from, nodes);
+            if (to != from) {
+                dependsOn.get(from).put(variables.get(to), randomLv(random, linksFraction));
+            }
+        }
+        return new Adjacency(variables, dependsOn);
+    }
+
+    private static int neighbor(Random random, int from, int nodes) {
+        if (random.nextInt(4) == 0) return random.nextInt(nodes);
+        int distance = 1 + (int) Math.abs(random.nextGaussian() * 4);
+        int to = random.nextBoolean() ? from + distance : from - distance;
+        return Math.floorMod(to, nodes);
+    }
+
+    private static LV randomLv(Random random, double linksFraction) {
+        int r = random.nextInt(100);
+        if (r < 10) return LVImpl.LINK_STATICALLY_ASSIGNED;
+        if (r < 30) return LVImpl.LINK_ASSIGNED;
+        if (r < 70) {
+            if (random.nextDouble() >= linksFraction) return LVImpl.LINK_DEPENDENT;
+            return LVImpl.createDependent(new LinksImpl(Map.of(ALL_INDICES,
+                    new LinkImpl(new IndicesImpl(random.nextInt(2)), random.nextBoolean()))));
+        }
+        return LVImpl.createHC(new LinksImpl(random.nextInt(2), random.nextInt(2), true));
+    }
+}
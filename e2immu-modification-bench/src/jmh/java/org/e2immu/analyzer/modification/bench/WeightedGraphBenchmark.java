@@ -0,0 +1,96 @@
+package org.e2immu.analyzer.modification.bench;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.GraphCacheImpl;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphImpl;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+WeightedGraphImpl.addNode, WeightedGraphImpl.shortestPath and ShortestPathImpl.links on synthetic graphs.
+
+shortestPath() and links() remember their results, in the graph and in the cache, respectively. Every invocation
+therefore works on a graph built in the (unmeasured) setup. With cache=cold, that graph comes with an empty cache;
+with cache=warm, all invocations share one cache, as the statements of a method do in ComputeLinkCompletion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeightedGraphBenchmark {
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"10", "50", "200"})
+        public int nodes;
+
+        @Param({"1.5", "4"})
+        public double density;
+
+        @Param({"0.2"})
+        public double linksFraction;
+
+        @Param({"true", "false"})
+        public boolean canonicalOrder;
+
+        @Param({"cold", "warm"})
+        public String cache;
+
+        SyntheticGraphs.Adjacency adjacency;
+        Cache sharedCache;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            adjacency = new SyntheticGraphs().generate(nodes, density, linksFraction, 42L);
+            sharedCache = new GraphCacheImpl(1000);
+        }
+
+        Cache cache() {
+            return "warm".equals(cache) ? sharedCache : new GraphCacheImpl(1000);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FreshGraph {
+        WeightedGraph graph;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input) {
+            graph = input.adjacency.build(input.cache(), input.canonicalOrder);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FreshShortestPath {
+        ShortestPath shortestPath;
+        Variable[] variables;
+
+        @Setup(Level.Invocation)
+        public void setup(Input input) {
+            shortestPath = input.adjacency.build(input.cache(), input.canonicalOrder).shortestPath();
+            variables = input.adjacency.variables().toArray(new Variable[0]);
+        }
+    }
+
+    @Benchmark
+    public WeightedGraph addNode(Input input) {
+        WeightedGraph graph = new WeightedGraphImpl(input.sharedCache, input.canonicalOrder);
+        input.adjacency.addTo(graph);
+        return graph;
+    }
+
+    @Benchmark
+    public ShortestPath shortestPath(FreshGraph freshGraph) {
+        return freshGraph.graph.shortestPath();
+    }
+
+    @Benchmark
+    public void links(FreshShortestPath fresh, Blackhole blackhole) {
+        for (Variable v : fresh.variables) {
+            blackhole.consume(fresh.shortestPath.links(v, null));
+        }
+    }
+}
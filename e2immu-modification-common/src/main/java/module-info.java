@@ -6,8 +6,10 @@ module org.e2immu.analyzer.modification.common {
     requires org.e2immu.util.internal.graph;
     requires org.e2immu.util.internal.util;
     requires org.slf4j;
+    requires transitive jdk.jfr;
 
     exports org.e2immu.analyzer.modification.common;
     exports org.e2immu.analyzer.modification.common.defaults;
     exports org.e2immu.analyzer.modification.common.getset;
+    exports org.e2immu.analyzer.modification.common.jfr;
 }
\ No newline at end of file
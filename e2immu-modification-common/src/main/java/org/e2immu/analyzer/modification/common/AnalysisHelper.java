@@ -50,6 +50,7 @@ public class AnalysisHelper {
             return ValueImpl.ImmutableImpl.IMMUTABLE;
         }
 
+        LazyAnalysis.ensureLoaded(bestType);
         Value.Immutable dynamicBaseValue;
         Value.Immutable immutableOfCurrent = dynamicValues.get(parameterizedType);
         if (immutableOfCurrent != null) {
@@ -108,6 +109,7 @@ public class AnalysisHelper {
         if (bestType.isPrimitiveExcludingVoid()) {
             return ValueImpl.IndependentImpl.INDEPENDENT;
         }
+        LazyAnalysis.ensureLoaded(bestType);
         Value.Immutable immutable = bestType.analysis().getOrDefault(PropertyImpl.IMMUTABLE_TYPE,
                 ValueImpl.ImmutableImpl.MUTABLE);
         if (immutable.isImmutableHC() && !parameterizedType.parameters().isEmpty()) {
@@ -146,6 +148,7 @@ public class AnalysisHelper {
         if (bestType == null) {
             return TRUE;
         }
+        LazyAnalysis.ensureLoaded(bestType);
         return bestType.analysis().getOrDefault(PropertyImpl.CONTAINER_TYPE, FALSE);
     }
 
@@ -0,0 +1,45 @@
+package org.e2immu.analyzer.modification.common;
+
+import org.e2immu.language.cst.api.info.TypeInfo;
+
+/*
+Hook for loading the analysis of the annotated API lazily, per primary type; see LoadAnalyzedPackageFiles.goLazy().
+
+When a loader is registered, ensureLoaded(typeInfo) decodes the analysis of the primary type of typeInfo, the first
+time it is called for that primary type. The analyzers call it before they read the analysis of a type that may
+come from the annotated API: PrepAnalyzer.initialize() for all types loaded, AnalysisHelper and ShallowAnalyzer for
+the types they encounter, and the prep analyzer for the supertypes and overridden methods of the source types, and
+for the methods and fields used in their code.
+Without a loader, the analysis has been loaded eagerly, and ensureLoaded() does nothing.
+ */
+public final class LazyAnalysis {
+
+    public interface Loader {
+        void ensureLoaded(TypeInfo primaryType);
+    }
+
+    // closing the registration removes the loader again
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static volatile Loader loader;
+
+    private LazyAnalysis() {
+    }
+
+    public static Registration register(Loader newLoader) {
+        loader = newLoader;
+        return () -> {
+            if (loader == newLoader) loader = null;
+        };
+    }
+
+    public static void ensureLoaded(TypeInfo typeInfo) {
+        Loader current = loader;
+        if (current != null) {
+            current.ensureLoaded(typeInfo.primaryType());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.e2immu.analyzer.modification.common.defaults;
 
+import org.e2immu.analyzer.modification.common.LazyAnalysis;
 import org.e2immu.language.cst.api.analysis.Message;
 import org.e2immu.language.cst.api.analysis.Property;
 import org.e2immu.language.cst.api.element.Element;
@@ -72,6 +73,7 @@ public class ShallowAnalyzer {
                 .distinct()
                 .toList();
         if (debugVisitor != null) debugVisitor.allTypes(allTypes);
+        allTypes.forEach(LazyAnalysis::ensureLoaded);
 
         G.Builder<TypeInfo> graphBuilder = new G.Builder<>(Long::sum);
         for (TypeInfo typeInfo : allTypes) {
@@ -0,0 +1,16 @@
+package org.e2immu.analyzer.modification.common.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.e2immu.analyzer.AnalysisOrder")
+@Label("Compute analysis order")
+@Category({"e2immu", "Prep analyzer"})
+@Description("Computation of the analysis order from the call graph")
+@StackTrace(false)
+public class AnalysisOrderEvent extends Event {
+    @Label("Vertices")
+    public int vertices;
+
+    @Label("Infos")
+    public int infos;
+}
@@ -0,0 +1,24 @@
+package org.e2immu.analyzer.modification.common.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.e2immu.analyzer.Iteration")
+@Label("Analyzer iteration")
+@Category({"e2immu", "Modification analyzer"})
+@Description("One iteration of the iterating analyzer over the analysis order")
+@StackTrace(false)
+public class IterationEvent extends Event {
+    @Label("Iteration")
+    public int iteration;
+
+    @Label("Infos")
+    @Description("Number of infos analyzed in this iteration")
+    public int infos;
+
+    @Label("Wait for")
+    @Description("Number of infos with delays at the end of this iteration")
+    public int waitFor;
+
+    @Label("Cycle breaking")
+    public boolean cycleBreaking;
+}
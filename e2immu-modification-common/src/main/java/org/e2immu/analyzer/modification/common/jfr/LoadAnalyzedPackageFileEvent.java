@@ -0,0 +1,16 @@
+package org.e2immu.analyzer.modification.common.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.e2immu.analyzer.LoadAnalyzedPackageFile")
+@Label("Load analyzed package file")
+@Category({"e2immu", "IO"})
+@Description("Loading of one file of analyzed annotated API")
+@StackTrace(false)
+public class LoadAnalyzedPackageFileEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Primary types")
+    public int primaryTypes;
+}
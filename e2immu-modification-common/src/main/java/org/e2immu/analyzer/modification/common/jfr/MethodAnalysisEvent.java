@@ -0,0 +1,13 @@
+package org.e2immu.analyzer.modification.common.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.e2immu.analyzer.MethodAnalysis")
+@Label("Method analysis")
+@Category({"e2immu", "Modification analyzer"})
+@Description("Analysis of a single method by the modification analyzer")
+@StackTrace(false)
+public class MethodAnalysisEvent extends Event {
+    @Label("Method")
+    public String method;
+}
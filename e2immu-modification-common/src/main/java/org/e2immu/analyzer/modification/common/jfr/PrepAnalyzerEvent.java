@@ -0,0 +1,23 @@
+package org.e2immu.analyzer.modification.common.jfr;
+
+import jdk.jfr.*;
+
+/*
+One of the three steps of PrepAnalyzer.doPrimaryTypesReturnComputeCallGraph.
+ */
+@Name("org.e2immu.analyzer.PrepAnalyzer")
+@Label("Prep analyzer step")
+@Category({"e2immu", "Prep analyzer"})
+@Description("Types, call graph, or part-of-construction step of the prep analyzer")
+@StackTrace(false)
+public class PrepAnalyzerEvent extends Event {
+    public static final String TYPES = "types";
+    public static final String CALL_GRAPH = "call graph";
+    public static final String PART_OF_CONSTRUCTION = "part of construction";
+
+    @Label("Step")
+    public String step;
+
+    @Label("Primary types")
+    public int primaryTypes;
+}
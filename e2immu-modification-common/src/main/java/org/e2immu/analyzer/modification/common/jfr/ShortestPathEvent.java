@@ -0,0 +1,20 @@
+package org.e2immu.analyzer.modification.common.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.e2immu.analyzer.ShortestPath")
+@Label("Shortest path")
+@Category({"e2immu", "Modification analyzer", "Link graph"})
+@Description("Construction of the shortest path object of a link graph")
+@StackTrace(false)
+public class ShortestPathEvent extends Event {
+    @Label("Nodes")
+    public int nodes;
+
+    @Label("Edges")
+    public int edges;
+
+    @Label("Cache hit")
+    @Description("True when the link map was already present in the cache")
+    public boolean cacheHit;
+}
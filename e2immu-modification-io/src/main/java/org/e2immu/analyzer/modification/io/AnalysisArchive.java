@@ -0,0 +1,378 @@
+package org.e2immu.analyzer.modification.io;
+
+import org.e2immu.language.cst.io.CodecImpl;
+import org.parsers.json.JSONParser;
+import org.parsers.json.Node;
+import org.parsers.json.ast.Array;
+import org.parsers.json.ast.JSONObject;
+import org.parsers.json.ast.KeyValuePair;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+Binary form of the analyzed package files of one source set, in a single file.
+
+    magic "E2AA", version byte
+    string table: count, then per string its UTF-8 length and bytes
+    directory: count, then per primary type the string index of its name, and the length of its record
+    records, one per primary type, in the order of the directory
+
+A record is an info: the string index of its name ("T", "M", "F", "C", "P" followed by the name, as in the JSON
+files), its properties, and the records of its sub-infos. A property is the string index of its key, a tag, and:
+  - TAG_INT: the value as a zig-zag varint; this is how Immutable, Independent, Bool and NotNull values are stored;
+  - TAG_STRING: the string index of the JSON string literal;
+  - TAG_JSON: the length and UTF-8 bytes of the JSON text of any other value, such as hidden content types and
+    selectors.
+All counts, lengths and indices are unsigned varints.
+
+The values are those of the codec's JSON encoding, so that the JSON files and the archive can be converted into
+each other without a runtime. The archive is read through a memory-mapped file; record(i) is a slice of the
+mapping, no bytes are copied until a property is decoded.
+ */
+public class AnalysisArchive {
+    public static final String EXTENSION = ".e2aa";
+    public static final String FILE_NAME = "analyzedPackages" + EXTENSION;
+
+    static final int TAG_INT = 0;
+    static final int TAG_STRING = 1;
+    static final int TAG_JSON = 2;
+
+    private static final byte[] MAGIC = {'E', '2', 'A', 'A'};
+    private static final int VERSION = 1;
+    private static final Pattern INTEGER = Pattern.compile("-?\\d{1,9}");
+
+    private final String[] strings;
+    private final int[] names;
+    private final ByteBuffer[] records;
+
+    private AnalysisArchive(String[] strings, int[] names, ByteBuffer[] records) {
+        this.strings = strings;
+        this.names = names;
+        this.records = records;
+    }
+
+    public static AnalysisArchive open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return read(mapped, file.toString());
+    }
+
+    static AnalysisArchive read(ByteBuffer buffer, String source) throws IOException {
+        for (byte b : MAGIC) {
+            if (!buffer.hasRemaining() || buffer.get() != b) throw new IOException(source + " is not an analysis archive");
+        }
+        int version = buffer.get();
+        if (version != VERSION) throw new IOException("Unsupported version " + version + " of " + source);
+        String[] strings = new String[readVarint(buffer)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readUtf8(buffer);
+        }
+        int count = readVarint(buffer);
+        int[] names = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = readVarint(buffer);
+            lengths[i] = readVarint(buffer);
+        }
+        ByteBuffer[] records = new ByteBuffer[count];
+        int position = buffer.position();
+        for (int i = 0; i < count; i++) {
+            records[i] = buffer.slice(position, lengths[i]);
+            position += lengths[i];
+        }
+        if (position != buffer.limit()) throw new IOException("Corrupt analysis archive " + source);
+        return new AnalysisArchive(strings, names, records);
+    }
+
+    public int size() {
+        return records.length;
+    }
+
+    // the name of the i-th primary type, with its type character, e.g. "Tjava.util.List"
+    public String name(int i) {
+        return strings[names[i]];
+    }
+
+    String string(int index) {
+        return strings[index];
+    }
+
+    // a read-only view on the record of the i-th primary type, positioned at its start
+    ByteBuffer record(int i) {
+        return records[i].duplicate();
+    }
+
+    public long bytes() {
+        long sum = 0;
+        for (ByteBuffer record : records) sum += record.limit();
+        return sum;
+    }
+
+    // ------------------------------------------------------------------------------------------------------------
+    // conversion to and from the JSON files
+
+    /*
+    Converts the JSON files, as written by WriteAnalysis, into a single archive.
+     */
+    public static int jsonToArchive(List<Path> jsonFiles, Path archive) throws IOException {
+        ArchiveWriter writer = new ArchiveWriter();
+        for (Path jsonFile : jsonFiles) {
+            try (Reader reader = new InputStreamReader(Files.newInputStream(jsonFile), StandardCharsets.UTF_8)) {
+                writer.addJson(reader);
+            }
+        }
+        writer.write(archive);
+        return writer.size();
+    }
+
+    /*
+    Converter between the two formats:
+        toArchive <directory with .json files> <archive>
+        toJson <archive> <.json file>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "toArchive".equals(args[0])) {
+            List<Path> jsonFiles;
+            try (Stream<Path> stream = Files.walk(Path.of(args[1]), 3)) {
+                jsonFiles = stream.filter(p -> p.toString().endsWith(".json")).sorted().toList();
+            }
+            int n = jsonToArchive(jsonFiles, Path.of(args[2]));
+            System.out.println("Wrote " + n + " primary types from " + jsonFiles.size() + " files to " + args[2]);
+        } else if (args.length == 3 && "toJson".equals(args[0])) {
+            AnalysisArchive archive = open(Path.of(args[1]));
+            try (Writer writer = Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)) {
+                archive.toJson(writer);
+            }
+            System.out.println("Wrote " + archive.size() + " primary types to " + args[2]);
+        } else {
+            System.err.println("Usage: toArchive <json directory> <archive> | toJson <archive> <json file>");
+            System.exit(1);
+        }
+    }
+
+    /*
+    Writes the content of the archive as a single JSON file, readable by LoadAnalyzedPackageFiles.
+     */
+    public void toJson(Writer writer) throws IOException {
+        writer.write("[");
+        for (int i = 0; i < records.length; i++) {
+            writer.write(i == 0 ? "\n" : ",\n");
+            ByteBuffer record = record(i);
+            writeJson(writer, record);
+        }
+        writer.write("\n]\n");
+    }
+
+    private void writeJson(Writer writer, ByteBuffer buffer) throws IOException {
+        writer.write("{\"name\": ");
+        writer.write(quote(strings[readVarint(buffer)]));
+        writer.write(", \"data\":{");
+        int properties = readVarint(buffer);
+        for (int p = 0; p < properties; p++) {
+            if (p > 0) writer.write(',');
+            writer.write(quote(strings[readVarint(buffer)]));
+            writer.write(':');
+            int tag = buffer.get();
+            switch (tag) {
+                case TAG_INT -> writer.write(Integer.toString(readZigZag(buffer)));
+                case TAG_STRING -> writer.write(strings[readVarint(buffer)]);
+                case TAG_JSON -> writer.write(readUtf8(buffer));
+                default -> throw new IOException("Unknown tag " + tag);
+            }
+        }
+        writer.write('}');
+        int subs = readVarint(buffer);
+        if (subs == 1) {
+            writer.write(", \"sub\":\n");
+            writeJson(writer, buffer);
+        } else if (subs > 1) {
+            writer.write(", \"subs\":[\n");
+            for (int s = 0; s < subs; s++) {
+                if (s > 0) writer.write(",\n");
+                writeJson(writer, buffer);
+            }
+            writer.write(']');
+        }
+        writer.write('}');
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /*
+    Collects primary types, from their JSON form, and writes them as an archive.
+    Strings are numbered in order of appearance.
+     */
+    static class ArchiveWriter {
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<Integer> names = new ArrayList<>();
+        private final List<byte[]> records = new ArrayList<>();
+
+        int size() {
+            return records.size();
+        }
+
+        void addJson(Reader reader) throws IOException {
+            JsonObjectScanner scanner = new JsonObjectScanner(reader);
+            String object;
+            while ((object = scanner.next()) != null) {
+                JSONParser parser = new JSONParser(object);
+                parser.Root();
+                for (JSONObject jo : parser.rootNode().childrenOfType(JSONObject.class)) {
+                    addPrimaryType(jo);
+                }
+            }
+        }
+
+        private void addPrimaryType(JSONObject jo) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            int name = writeInfo(out, jo);
+            names.add(name);
+            records.add(out.toByteArray());
+        }
+
+        // same structure as LoadAnalyzedPackageFiles.processSub
+        private int writeInfo(ByteArrayOutputStream out, JSONObject jo) {
+            KeyValuePair nameKv = (KeyValuePair) jo.get(1);
+            int name = index(CodecImpl.unquote(nameKv.get(2).getSource()));
+            writeVarint(out, name);
+
+            JSONObject dataJo = (JSONObject) ((KeyValuePair) jo.get(3)).get(2);
+            List<KeyValuePair> properties = new ArrayList<>();
+            for (int i = 1; i < dataJo.size(); i += 2) {
+                if (dataJo.get(i) instanceof KeyValuePair kvp) properties.add(kvp);
+            }
+            writeVarint(out, properties.size());
+            for (KeyValuePair kvp : properties) {
+                writeVarint(out, index(CodecImpl.unquote(kvp.get(0).getSource())));
+                writeValue(out, kvp.get(2));
+            }
+
+            List<JSONObject> subs = new ArrayList<>();
+            if (jo.size() > 5) {
+                KeyValuePair subsKv = (KeyValuePair) jo.get(5);
+                if ("\"sub\"".equals(subsKv.get(0).getSource())) {
+                    subs.add((JSONObject) subsKv.get(2));
+                } else {
+                    Array array = (Array) subsKv.get(2);
+                    for (int i = 1; i < array.size(); i += 2) {
+                        subs.add((JSONObject) array.get(i));
+                    }
+                }
+            }
+            writeVarint(out, subs.size());
+            for (JSONObject sub : subs) {
+                writeInfo(out, sub);
+            }
+            return name;
+        }
+
+        private void writeValue(ByteArrayOutputStream out, Node value) {
+            String source = value.getSource().trim();
+            if (INTEGER.matcher(source).matches()) {
+                out.write(TAG_INT);
+                writeZigZag(out, Integer.parseInt(source));
+            } else if (source.startsWith("\"")) {
+                out.write(TAG_STRING);
+                writeVarint(out, index(source));
+            } else {
+                out.write(TAG_JSON);
+                writeUtf8(out, source);
+            }
+        }
+
+        private int index(String s) {
+            return stringIndex.computeIfAbsent(s, k -> {
+                strings.add(k);
+                return strings.size() - 1;
+            });
+        }
+
+        void write(Path archive) throws IOException {
+            Files.write(archive, toByteArray());
+        }
+
+        byte[] toByteArray() {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            header.writeBytes(MAGIC);
+            header.write(VERSION);
+            writeVarint(header, strings.size());
+            for (String s : strings) writeUtf8(header, s);
+            writeVarint(header, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                writeVarint(header, names.get(i));
+                writeVarint(header, records.get(i).length);
+            }
+            for (byte[] record : records) header.writeBytes(record);
+            return header.toByteArray();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------------------
+    // varints
+
+    static void writeVarint(ByteArrayOutputStream out, int value) {
+        assert value >= 0;
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    static void writeZigZag(ByteArrayOutputStream out, int value) {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    static void writeUtf8(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static int readZigZag(ByteBuffer buffer) {
+        int v = readVarint(buffer);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static String readUtf8(ByteBuffer buffer) {
+        int length = readVarint(buffer);
+        String s;
+        if (buffer.hasArray()) {
+            s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+}
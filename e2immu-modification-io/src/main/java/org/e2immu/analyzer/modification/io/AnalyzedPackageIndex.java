@@ -0,0 +1,74 @@
+package org.e2immu.analyzer.modification.io;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+Index of the analyzed package files in a directory, written by WriteAnalysis next to the JSON files: for each
+primary type, the file (relative to the directory), and the UTF-8 byte offset and length of its object in that
+file. One tab-separated line per primary type. Used by LoadAnalyzedPackageFiles.goLazy().
+ */
+public class AnalyzedPackageIndex {
+    public static final String FILE_NAME = "analyzedPackages.index";
+    private static final Pattern NAME = Pattern.compile("^\\s*\\{\\s*\"name\"\\s*:\\s*\"T([^\"]+)\"");
+
+    public record Entry(String primaryType, String file, long offset, int length) {
+        String line() {
+            return primaryType + "\t" + file + "\t" + offset + "\t" + length;
+        }
+
+        static Entry parse(String line) {
+            String[] s = line.split("\t");
+            if (s.length != 4) throw new IllegalArgumentException("Cannot parse index line: " + line);
+            return new Entry(s[0], s[1], Long.parseLong(s[2]), Integer.parseInt(s[3]));
+        }
+    }
+
+    private AnalyzedPackageIndex() {
+    }
+
+    public static void write(Path indexFile, List<Entry> entries) throws IOException {
+        Files.write(indexFile, toByteArray(entries));
+    }
+
+    static byte[] toByteArray(List<Entry> entries) {
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : entries) {
+            sb.append(entry.line()).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static List<Entry> read(Path indexFile) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) entries.add(Entry.parse(line));
+        }
+        return entries;
+    }
+
+    /*
+    For directories and jars without an index: scans a file, without decoding it.
+     */
+    public static List<Entry> scan(String file, Reader reader) throws IOException {
+        JsonObjectScanner scanner = new JsonObjectScanner(reader);
+        List<Entry> entries = new ArrayList<>();
+        String object;
+        while ((object = scanner.next()) != null) {
+            entries.add(new Entry(primaryTypeName(object), file, scanner.objectOffset(), scanner.objectLength()));
+        }
+        return entries;
+    }
+
+    static String primaryTypeName(String object) throws IOException {
+        Matcher m = NAME.matcher(object);
+        if (!m.find()) throw new IOException("Cannot find the name of the primary type in " + object);
+        return m.group(1);
+    }
+}
@@ -0,0 +1,103 @@
+package org.e2immu.analyzer.modification.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/*
+Splits an analyzed package file, a JSON array of primary type objects, into the source text of those objects,
+one at a time, without building a tree of the whole document. Only strings, their escapes, and the nesting of
+braces and brackets are tracked; each object is validated when it is parsed by the JSONParser.
+
+The byte offset and length of the last object, in UTF-8, are available for building an index of the file.
+ */
+class JsonObjectScanner {
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean inArray;
+    private long bytesRead;
+    private long objectOffset;
+    private int objectLength;
+
+    JsonObjectScanner(Reader reader) {
+        this.reader = reader;
+    }
+
+    // the next primary type object, or null at the end of the array
+    String next() throws IOException {
+        if (!inArray) {
+            int c = skipWhitespace();
+            if (c < 0) return null; // empty file
+            if (c != '[') throw new IOException("Expected '[', got '" + (char) c + "'");
+            inArray = true;
+        }
+        int c = skipWhitespace();
+        if (c == ',') c = skipWhitespace();
+        if (c == ']') return null;
+        if (c != '{') throw new IOException(c < 0 ? "Unexpected end of input" : "Expected '{', got '" + (char) c + "'");
+        objectOffset = bytesRead - 1;
+        String object = readObject();
+        objectLength = (int) (bytesRead - objectOffset);
+        return object;
+    }
+
+    // the UTF-8 byte offset of the object last returned by next()
+    long objectOffset() {
+        return objectOffset;
+    }
+
+    int objectLength() {
+        return objectLength;
+    }
+
+    private String readObject() throws IOException {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append('{');
+        int depth = 1;
+        boolean inString = false;
+        while (depth > 0) {
+            int c = read();
+            if (c < 0) throw new IOException("Unexpected end of input in object");
+            sb.append((char) c);
+            if (inString) {
+                if (c == '\\') {
+                    int escaped = read();
+                    if (escaped < 0) throw new IOException("Unexpected end of input in string");
+                    sb.append((char) escaped);
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                ++depth;
+            } else if (c == '}' || c == ']') {
+                --depth;
+            }
+        }
+        return sb.toString();
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        bytesRead += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        return c;
+    }
+}
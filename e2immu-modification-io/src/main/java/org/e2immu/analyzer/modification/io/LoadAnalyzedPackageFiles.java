@@ -1,7 +1,12 @@
 package org.e2immu.analyzer.modification.io;
 
+import org.e2immu.analyzer.modification.common.LazyAnalysis;
+import org.e2immu.analyzer.modification.common.jfr.LoadAnalyzedPackageFileEvent;
 import org.e2immu.language.cst.api.analysis.Codec;
+import org.e2immu.language.cst.api.analysis.Property;
+import org.e2immu.language.cst.api.analysis.Value;
 import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.TypeInfo;
 import org.e2immu.language.cst.io.CodecImpl;
 import org.e2immu.language.inspection.api.integration.JavaInspector;
 import org.e2immu.language.inspection.integration.ToolChain;
@@ -14,19 +19,93 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.stream.Stream;
 
+/*
+Loads analyzed package files into info.analysis().
+
+Files are read as a stream: JsonObjectScanner cuts out one primary type object at a time, which is parsed and
+decoded before the next one is read, so that the tree of a whole package is never built.
+With more than one thread, the files of a directory are loaded in parallel, largest first. Decoding writes only
+into the analysis of the primary type being decoded, and its members; the types the decoder refers to must be
+available to the runtime from different threads.
+
+Directories can also contain AnalysisArchive files. Their records are decoded straight from the memory-mapped
+file. The values of properties that are stored as integers, Immutable, Independent, Bool and NotNull, are decoded
+by the codec once per key and value, and then reused. All other values of an info, such as hidden content types and
+selectors, are put together in one JSON object, which is parsed once and decoded as in the JSON files.
+
+In lazy mode, goLazy(), only the location of each primary type is collected: an AnalyzedPackageIndex when
+WriteAnalysis wrote one, otherwise a scan of the files. A LazyAnalysis.Loader is registered, which decodes a primary
+type when the analyzers first need it. Each type is decoded once; a thread that asks for a type being decoded by
+another thread waits for it.
+ */
 public class LoadAnalyzedPackageFiles {
     private static final Logger LOGGER = LoggerFactory.getLogger(LoadAnalyzedPackageFiles.class);
+    // in lazy mode, the number of decompressed JSON entries of jars that are kept; there is one per package
+    private static final int MAX_CACHED_ENTRIES = 8;
+
+    private final int threads;
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicInteger primaryTypes = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+    private final Map<String, Decoded> decodedIntegers = new ConcurrentHashMap<>();
+
+    private record Decoded(Property property, Value value) {
+    }
+
+    public LoadAnalyzedPackageFiles() {
+        this(1);
+    }
+
+    public LoadAnalyzedPackageFiles(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread");
+        this.threads = threads;
+    }
+
+    /*
+    Everything loaded by this object so far. The time is wall-clock time, so that bytesPerSecond() measures
+    the throughput, whatever the number of threads.
+     */
+    public record Summary(int files, int primaryTypes, long bytes, long nanos) {
+        public double bytesPerSecond() {
+            return nanos == 0 ? 0.0 : bytes * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d primary types from %d files, %d KB in %d ms, %.1f MB/s", primaryTypes, files,
+                    bytes / 1024, nanos / 1_000_000, bytesPerSecond() / (1024 * 1024));
+        }
+    }
+
+    public Summary summary() {
+        return new Summary(files.get(), primaryTypes.get(), bytes.get(), nanos.get());
+    }
 
-    public int go(JavaInspector javaInspector,  List<String> directories) throws IOException {
+    public int go(JavaInspector javaInspector, List<String> directories) throws IOException {
         Codec codec = new PrepWorkCodec(javaInspector.runtime()).codec();
         return go(codec, directories);
     }
@@ -61,34 +140,347 @@ public class LoadAnalyzedPackageFiles {
         return countPrimaryTypes;
     }
 
-    private int processJsonJar(Codec codec, URL jarUrl) {
-        int countPrimaryTypes = 0;
+    public LazyAnalysis.Registration goLazy(JavaInspector javaInspector, List<String> directories) throws IOException {
+        Codec codec = new PrepWorkCodec(javaInspector.runtime()).codec();
+        return goLazy(codec, directories);
+    }
+
+    /*
+    Close the registration when done, so that the loader does not outlive the runtime it decodes into. Closing it
+    also closes the jars the loader keeps open.
+     */
+    public LazyAnalysis.Registration goLazy(Codec codec, List<String> directories) throws IOException {
+        LazyLoader lazyLoader = new LazyLoader(codec);
+        try {
+            index(lazyLoader, directories);
+        } catch (IOException | RuntimeException e) {
+            lazyLoader.close();
+            throw e;
+        }
+        LOGGER.info("Indexed {} primary types for lazy loading", lazyLoader.locations.size());
+        LazyAnalysis.Registration registration = LazyAnalysis.register(lazyLoader);
+        return () -> {
+            registration.close();
+            lazyLoader.close();
+        };
+    }
+
+    private void index(LazyLoader lazyLoader, List<String> directories) throws IOException {
+        for (String dir : directories) {
+            if (dir.startsWith(ToolChain.RESOURCE_PROTOCOL)) {
+                String path = dir.substring(9);
+                URL jarUrl = getClass().getResource(path);
+                if (jarUrl == null) {
+                    LOGGER.warn("Cannot find resource {}", dir);
+                } else {
+                    indexJsonJar(lazyLoader, jarUrl);
+                }
+            } else {
+                File directory = new File(dir);
+                if (directory.isDirectory()) {
+                    indexDir(lazyLoader, directory.toPath());
+                } else {
+                    LOGGER.warn("Path '{}' is not a directory containing analyzed annotated API files", directory);
+                }
+            }
+        }
+    }
+
+    /*
+    A jar on the file system is opened as a zip file system, as in processJsonJar, and kept open by the loader. Its
+    index is read when it has one, otherwise its JSON files are scanned; only the entry, offset and length of each
+    primary type are kept. When a type is loaded, its entry is decompressed, and kept in the loader's cache of entries,
+    so that the other types of the package do not decompress it again. A jar that is not a file, e.g. nested in another
+    jar, can only be read as a stream: its JSON content is kept in memory.
+     */
+    private void indexJsonJar(LazyLoader lazyLoader, URL jarUrl) throws IOException {
+        Path jarFile = jarFile(jarUrl);
+        if (jarFile == null) {
+            indexJsonJarStream(lazyLoader, jarUrl);
+            return;
+        }
+        FileSystem fileSystem = lazyLoader.open(jarFile);
+        List<Path> all = new ArrayList<>();
+        for (Path root : fileSystem.getRootDirectories()) {
+            try (Stream<Path> stream = Files.walk(root)) {
+                stream.forEach(all::add);
+            }
+        }
+        Set<Path> indexed = new HashSet<>();
+        for (Path indexFile : all) {
+            if (indexFile.endsWith(AnalyzedPackageIndex.FILE_NAME)) {
+                Path dir = indexFile.getParent();
+                for (AnalyzedPackageIndex.Entry entry : AnalyzedPackageIndex.read(indexFile)) {
+                    Path jsonEntry = dir.resolve(entry.file());
+                    indexed.add(jsonEntry);
+                    lazyLoader.add(entry.primaryType(), () -> read(lazyLoader, jarFile, jsonEntry, entry),
+                            entry.length());
+                }
+            }
+        }
+        for (Path jsonEntry : all) {
+            if (jsonEntry.toString().endsWith(".json") && !indexed.contains(jsonEntry)) {
+                try (Reader reader = new InputStreamReader(Files.newInputStream(jsonEntry), StandardCharsets.UTF_8)) {
+                    for (AnalyzedPackageIndex.Entry entry : AnalyzedPackageIndex.scan(jsonEntry.toString(), reader)) {
+                        lazyLoader.add(entry.primaryType(), () -> read(lazyLoader, jarFile, jsonEntry, entry),
+                                entry.length());
+                    }
+                }
+            }
+        }
+    }
+
+    private static String read(LazyLoader lazyLoader, Path jarFile, Path jsonEntry, AnalyzedPackageIndex.Entry entry)
+            throws IOException {
+        byte[] content = lazyLoader.entry(jsonEntry);
+        if (entry.offset() + entry.length() > content.length) {
+            throw new EOFException("Index out of date: " + jarFile + "!" + jsonEntry + ", " + entry.primaryType());
+        }
+        return new String(content, (int) entry.offset(), entry.length(), StandardCharsets.UTF_8);
+    }
+
+    private void indexJsonJarStream(LazyLoader lazyLoader, URL jarUrl) throws IOException {
         try (InputStream inputStream = jarUrl.openStream();
              JarInputStream jis = new JarInputStream(inputStream)) {
             JarEntry jarEntry;
             while ((jarEntry = jis.getNextJarEntry()) != null) {
                 String realName = jarEntry.getRealName();
                 if (realName.endsWith(".json")) {
-                    LOGGER.debug("Adding {}", realName);
-                    try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-                        byte[] bytes = new byte[1024];
-                        int read;
-                        while ((read = jis.read(bytes, 0, bytes.length)) > 0) {
-                            os.write(bytes, 0, read);
-                        }
-                        String content = os.toString();
-                        countPrimaryTypes += go(codec, content);
+                    byte[] content = jis.readAllBytes();
+                    Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+                    for (AnalyzedPackageIndex.Entry entry : AnalyzedPackageIndex.scan(realName, reader)) {
+                        lazyLoader.add(entry.primaryType(), () -> new String(content, (int) entry.offset(),
+                                entry.length(), StandardCharsets.UTF_8), entry.length());
                     }
                 }
             }
-        } catch (IOException e) {
-            LOGGER.error("Caught exception", e);
-            throw new RuntimeException(e);
         }
-        LOGGER.info("Loaded {} primary types from {}", countPrimaryTypes, jarUrl);
+    }
+
+    private void indexDir(LazyLoader lazyLoader, Path directory) throws IOException {
+        List<Path> all;
+        try (Stream<Path> stream = Files.walk(directory, 3)) {
+            all = stream.toList();
+        }
+        Set<Path> withArchive = directoriesWithArchive(all);
+        Set<Path> indexed = new HashSet<>();
+        for (Path indexFile : all) {
+            if (indexFile.getFileName().toString().equals(AnalyzedPackageIndex.FILE_NAME)
+                && !withArchive.contains(indexFile.getParent())) {
+                Path dir = indexFile.getParent();
+                for (AnalyzedPackageIndex.Entry entry : AnalyzedPackageIndex.read(indexFile)) {
+                    Path jsonFile = dir.resolve(entry.file());
+                    indexed.add(jsonFile);
+                    lazyLoader.add(entry.primaryType(), () -> read(jsonFile, entry), entry.length());
+                }
+            }
+        }
+        for (Path path : all) {
+            String fileName = path.toString();
+            if (fileName.endsWith(".json") && !indexed.contains(path) && !withArchive.contains(path.getParent())) {
+                try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+                    for (AnalyzedPackageIndex.Entry entry : AnalyzedPackageIndex.scan(fileName, reader)) {
+                        lazyLoader.add(entry.primaryType(), () -> read(path, entry), entry.length());
+                    }
+                }
+            } else if (fileName.endsWith(AnalysisArchive.EXTENSION)) {
+                AnalysisArchive archive = AnalysisArchive.open(path);
+                for (int i = 0; i < archive.size(); i++) {
+                    // the names in the archive start with the type character 'T'
+                    lazyLoader.add(archive.name(i).substring(1), archive, i);
+                }
+            }
+        }
+    }
+
+    private static String read(Path jsonFile, AnalyzedPackageIndex.Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        try (FileChannel channel = FileChannel.open(jsonFile, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, entry.offset() + buffer.position());
+                if (read < 0) throw new EOFException("Index out of date: " + jsonFile + ", " + entry.primaryType());
+            }
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    private interface Source {
+        String read() throws IOException;
+    }
+
+    private class LazyLoader implements LazyAnalysis.Loader {
+        private final Codec codec;
+        // filled before the loader is registered, read-only afterward
+        private final Map<String, Runnable> locations = new HashMap<>();
+        private final Map<String, CompletableFuture<Void>> loaded = new ConcurrentHashMap<>();
+        // the jars, open until the registration is closed
+        private final List<FileSystem> fileSystems = new ArrayList<>();
+        // the decompressed JSON entries of these jars, least recently used first; guarded by 'this'
+        private final Map<Path, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, byte[]> eldest) {
+                return size() > MAX_CACHED_ENTRIES;
+            }
+        };
+
+        LazyLoader(Codec codec) {
+            this.codec = codec;
+        }
+
+        FileSystem open(Path jarFile) throws IOException {
+            FileSystem fileSystem = FileSystems.newFileSystem(jarFile);
+            fileSystems.add(fileSystem);
+            return fileSystem;
+        }
+
+        synchronized byte[] entry(Path jsonEntry) throws IOException {
+            byte[] content = entries.get(jsonEntry);
+            if (content == null) {
+                content = Files.readAllBytes(jsonEntry);
+                entries.put(jsonEntry, content);
+            }
+            return content;
+        }
+
+        void close() {
+            synchronized (this) {
+                entries.clear();
+            }
+            for (FileSystem fileSystem : fileSystems) {
+                try {
+                    fileSystem.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot close {}", fileSystem, e);
+                }
+            }
+        }
+
+        void add(String primaryType, Source source, int length) {
+            locations.putIfAbsent(primaryType, () -> {
+                String object;
+                try {
+                    object = source.read();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                int count = go(codec, object);
+                if (count != 1) throw new UnsupportedOperationException("Expected one object for " + primaryType);
+                bytes.addAndGet(length);
+            });
+        }
+
+        void add(String primaryType, AnalysisArchive archive, int record) {
+            locations.putIfAbsent(primaryType, () -> {
+                decodeRecord(codec, archive, record);
+                bytes.addAndGet(archive.record(record).remaining());
+            });
+        }
+
+        @Override
+        public void ensureLoaded(TypeInfo primaryType) {
+            String fullyQualifiedName = primaryType.fullyQualifiedName();
+            CompletableFuture<Void> future = loaded.get(fullyQualifiedName);
+            if (future == null) {
+                Runnable location = locations.get(fullyQualifiedName);
+                if (location == null) return; // not in the analyzed package files
+                CompletableFuture<Void> mine = new CompletableFuture<>();
+                future = loaded.putIfAbsent(fullyQualifiedName, mine);
+                if (future == null) {
+                    load(fullyQualifiedName, location, mine);
+                    return;
+                }
+            }
+            future.join();
+        }
+
+        /*
+        A failure is logged, and thrown to the caller that triggered the load; not to the ones waiting for it, nor
+        to later callers: from then on, the type is treated as one without analysis.
+         */
+        private void load(String fullyQualifiedName, Runnable location, CompletableFuture<Void> future) {
+            long start = System.nanoTime();
+            try {
+                location.run();
+                primaryTypes.incrementAndGet();
+            } catch (RuntimeException | Error e) {
+                LOGGER.error("Cannot lazily load {}, continuing without its analysis", fullyQualifiedName, e);
+                throw e;
+            } finally {
+                future.complete(null);
+                nanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /*
+    A jar on the file system is opened as a zip file system, and its entries are loaded like the files of a directory:
+    streamed straight from the inflater, in parallel when there is more than one thread. A jar that is not a file,
+    e.g. nested in another jar, is read as a stream; each entry is read into a buffer of its own, and decoded as UTF-8.
+     */
+    private int processJsonJar(Codec codec, URL jarUrl) throws IOException {
+        long start = System.nanoTime();
+        int countPrimaryTypes;
+        Path jarFile = jarFile(jarUrl);
+        if (jarFile != null) {
+            try (FileSystem fileSystem = FileSystems.newFileSystem(jarFile)) {
+                List<Path> jsonFiles = new ArrayList<>();
+                for (Path root : fileSystem.getRootDirectories()) {
+                    try (Stream<Path> stream = Files.walk(root)) {
+                        stream.filter(p -> p.toString().endsWith(".json")).forEach(jsonFiles::add);
+                    }
+                }
+                countPrimaryTypes = load(codec, jsonFiles);
+            }
+        } else {
+            countPrimaryTypes = processJsonJarStream(codec, jarUrl);
+        }
+        nanos.addAndGet(System.nanoTime() - start);
+        LOGGER.info("Loaded {} primary types from {}; in total: {}", countPrimaryTypes, jarUrl, summary());
         return countPrimaryTypes;
     }
 
+    private static Path jarFile(URL jarUrl) {
+        if (!"file".equals(jarUrl.getProtocol())) return null;
+        try {
+            return Path.of(jarUrl.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private int processJsonJarStream(Codec codec, URL jarUrl) throws IOException {
+        ExecutorService executor = threads == 1 ? null : Executors.newFixedThreadPool(threads);
+        try (InputStream inputStream = jarUrl.openStream();
+             JarInputStream jis = new JarInputStream(inputStream)) {
+            int countPrimaryTypes = 0;
+            List<Future<Integer>> futures = new ArrayList<>();
+            JarEntry jarEntry;
+            while ((jarEntry = jis.getNextJarEntry()) != null) {
+                String realName = jarEntry.getRealName();
+                if (realName.endsWith(".json")) {
+                    LOGGER.debug("Adding {}", realName);
+                    byte[] content = jis.readAllBytes();
+                    if (executor == null) {
+                        countPrimaryTypes += load(codec, realName, content);
+                    } else {
+                        futures.add(executor.submit(() -> load(codec, realName, content)));
+                    }
+                }
+            }
+            for (Future<Integer> future : futures) {
+                countPrimaryTypes += get(future);
+            }
+            return countPrimaryTypes;
+        } finally {
+            if (executor != null) executor.shutdownNow();
+        }
+    }
+
+    private int load(Codec codec, String name, byte[] content) throws IOException {
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+        return go(codec, name, reader, content.length);
+    }
+
     public int goDir(JavaInspector javaInspector, File directory) throws IOException {
         Codec codec = new PrepWorkCodec(javaInspector.runtime()).codec();
         return goDir(codec, directory);
@@ -96,34 +488,266 @@ public class LoadAnalyzedPackageFiles {
 
     public int goDir(Codec codec, File directory) throws IOException {
         if (!directory.isDirectory()) throw new UnsupportedEncodingException(directory + " is not a directory");
-        try (Stream<Path> jsonFiles = Files.walk(directory.toPath(), 3)
-                .filter(p -> p.toString().endsWith(".json"))) {
+        long start = System.nanoTime();
+        List<Path> jsonFiles;
+        List<Path> archives;
+        try (Stream<Path> stream = Files.walk(directory.toPath(), 3)) {
+            List<Path> all = stream.toList();
+            Set<Path> withArchive = directoriesWithArchive(all);
+            jsonFiles = all.stream().filter(p -> p.toString().endsWith(".json")
+                                                 && !withArchive.contains(p.getParent())).toList();
+            archives = all.stream().filter(p -> p.toString().endsWith(AnalysisArchive.EXTENSION)).toList();
+        }
+        int countPrimaryTypes = load(codec, jsonFiles);
+        for (Path archive : archives) {
+            countPrimaryTypes += loadArchive(codec, archive);
+        }
+        nanos.addAndGet(System.nanoTime() - start);
+        LOGGER.info("Loaded {} primary types from {}; in total: {}", countPrimaryTypes, directory, summary());
+        return countPrimaryTypes;
+    }
+
+    /*
+    One format per directory: a directory with an archive usually also contains the JSON files it was made from
+    (AnalysisArchive toArchive, or an ARCHIVE run of WriteAnalysis over an earlier JSON run). Its JSON files are ignored,
+    rather than decoding every type twice.
+     */
+    private static Set<Path> directoriesWithArchive(List<Path> all) {
+        Set<Path> set = new HashSet<>();
+        for (Path path : all) {
+            if (path.getFileName().toString().equals(AnalysisArchive.FILE_NAME)) {
+                LOGGER.info("Ignoring the JSON files in {}, which has an archive", path.getParent());
+                set.add(path.getParent());
+            }
+        }
+        return set;
+    }
+
+    private int load(Codec codec, List<Path> jsonFiles) throws IOException {
+        if (threads > 1 && jsonFiles.size() > 1) {
+            return loadInParallel(codec, jsonFiles);
+        }
+        int countPrimaryTypes = 0;
+        for (Path jsonFile : jsonFiles) {
+            countPrimaryTypes += load(codec, jsonFile);
+        }
+        return countPrimaryTypes;
+    }
+
+    private int loadInParallel(Codec codec, List<Path> jsonFiles) throws IOException {
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path jsonFile : jsonFiles) sizes.put(jsonFile, Files.size(jsonFile));
+        List<Path> largestFirst = jsonFiles.stream()
+                .sorted(Comparator.comparing(sizes::get, Comparator.reverseOrder())).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, jsonFiles.size()));
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(largestFirst.size());
+            for (Path jsonFile : largestFirst) {
+                futures.add(executor.submit(() -> load(codec, jsonFile)));
+            }
             int countPrimaryTypes = 0;
-            for (Path jsonFile : jsonFiles.toList()) {
-                countPrimaryTypes += go(codec, jsonFile);
+            for (Future<Integer> future : futures) {
+                countPrimaryTypes += get(future);
             }
             return countPrimaryTypes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public int goArchive(Codec codec, Path archive) throws IOException {
+        long start = System.nanoTime();
+        int countPrimaryTypes = loadArchive(codec, archive);
+        nanos.addAndGet(System.nanoTime() - start);
+        LOGGER.info("Loaded {} primary types from {}; in total: {}", countPrimaryTypes, archive, summary());
+        return countPrimaryTypes;
+    }
+
+    private int loadArchive(Codec codec, Path file) throws IOException {
+        LOGGER.info("Reading archive {}", file);
+        LoadAnalyzedPackageFileEvent event = new LoadAnalyzedPackageFileEvent();
+        event.begin();
+        AnalysisArchive archive = AnalysisArchive.open(file);
+        int n = archive.size();
+        if (threads == 1 || n <= 1) {
+            for (int i = 0; i < n; i++) {
+                decodeRecord(codec, archive, i);
+            }
+        } else {
+            int chunks = Math.min(threads, n);
+            ExecutorService executor = Executors.newFixedThreadPool(chunks);
+            try {
+                List<Future<Integer>> futures = new ArrayList<>(chunks);
+                for (int c = 0; c < chunks; c++) {
+                    int from = c * n / chunks;
+                    int to = (c + 1) * n / chunks;
+                    futures.add(executor.submit(() -> {
+                        for (int i = from; i < to; i++) {
+                            decodeRecord(codec, archive, i);
+                        }
+                        return to - from;
+                    }));
+                }
+                for (Future<Integer> future : futures) get(future);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        files.incrementAndGet();
+        primaryTypes.addAndGet(n);
+        bytes.addAndGet(Files.size(file));
+        if (event.shouldCommit()) {
+            event.file = file.toString();
+            event.primaryTypes = n;
+            event.commit();
+        }
+        return n;
+    }
+
+    private static int get(Future<Integer> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading analyzed package files");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) throw ioe;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new RuntimeException(e.getCause());
         }
     }
 
     public int go(Codec codec, Path jsonFile) throws IOException {
+        long start = System.nanoTime();
+        int countPrimaryTypes = load(codec, jsonFile);
+        nanos.addAndGet(System.nanoTime() - start);
+        return countPrimaryTypes;
+    }
+
+    private int load(Codec codec, Path jsonFile) throws IOException {
         LOGGER.info("Parsing {}", jsonFile);
-        String s = Files.readString(jsonFile);
-        return go(codec, s);
+        try (Reader reader = new InputStreamReader(Files.newInputStream(jsonFile), StandardCharsets.UTF_8)) {
+            return go(codec, jsonFile.toString(), reader, Files.size(jsonFile));
+        }
+    }
+
+    private int go(Codec codec, String file, Reader reader, long size) throws IOException {
+        LoadAnalyzedPackageFileEvent event = new LoadAnalyzedPackageFileEvent();
+        event.begin();
+        int countPrimaryTypes = go(codec, reader);
+        files.incrementAndGet();
+        primaryTypes.addAndGet(countPrimaryTypes);
+        bytes.addAndGet(size);
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.primaryTypes = countPrimaryTypes;
+            event.commit();
+        }
+        return countPrimaryTypes;
     }
 
     public int go(Codec codec, String content) {
-        JSONParser parser = new JSONParser(content);
-        parser.Root();
-        Node root = parser.rootNode();
+        try {
+            return go(codec, new StringReader(content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int go(Codec codec, Reader reader) throws IOException {
+        JsonObjectScanner scanner = new JsonObjectScanner(reader);
         int countPrimaryTypes = 0;
-        for (JSONObject jo : root.get(0).childrenOfType(JSONObject.class)) {
-            processPrimaryType(codec, jo);
-            ++countPrimaryTypes;
+        String object;
+        while ((object = scanner.next()) != null) {
+            JSONParser parser = new JSONParser(object);
+            parser.Root();
+            Node root = parser.rootNode();
+            for (JSONObject jo : root.childrenOfType(JSONObject.class)) {
+                processPrimaryType(codec, jo);
+                ++countPrimaryTypes;
+            }
         }
         return countPrimaryTypes;
     }
 
+    private void decodeRecord(Codec codec, AnalysisArchive archive, int i) {
+        Codec.Context context = new CodecImpl.ContextImpl();
+        decodeInfo(codec, context, archive, archive.record(i));
+    }
+
+    // same structure as processSub
+    private void decodeInfo(Codec codec, Codec.Context context, AnalysisArchive archive, ByteBuffer buffer) {
+        String fullyQualifiedWithType = archive.string(AnalysisArchive.readVarint(buffer));
+        char type = fullyQualifiedWithType.charAt(0);
+        String name = fullyQualifiedWithType.substring(1);
+        try {
+            Info info = codec.decodeInfoInContext(context, type, name);
+            if (info == null) {
+                throw new UnsupportedOperationException("Cannot find " + name);
+            }
+            context.push(info);
+            decodeProperties(codec, context, info, archive, buffer);
+            int subs = AnalysisArchive.readVarint(buffer);
+            for (int s = 0; s < subs; s++) {
+                decodeInfo(codec, context, archive, buffer);
+            }
+        } catch (RuntimeException re) {
+            LOGGER.error("Caught exception decoding {}", name);
+            throw re;
+        }
+        context.pop();
+    }
+
+    private void decodeProperties(Codec codec, Codec.Context context, Info info, AnalysisArchive archive,
+                                  ByteBuffer buffer) {
+        int count = AnalysisArchive.readVarint(buffer);
+        // all values that are not cached integers are parsed together, as one JSON object, in their original order
+        StringBuilder data = null;
+        Map<String, Integer> newIntegers = null;
+        for (int p = 0; p < count; p++) {
+            String key = archive.string(AnalysisArchive.readVarint(buffer));
+            int tag = buffer.get();
+            String json;
+            switch (tag) {
+                case AnalysisArchive.TAG_INT -> {
+                    int value = AnalysisArchive.readZigZag(buffer);
+                    Decoded decoded = decodedIntegers.get(key + "=" + value);
+                    if (decoded != null) {
+                        info.analysis().set(decoded.property, decoded.value);
+                        json = null;
+                    } else {
+                        json = Integer.toString(value);
+                        if (newIntegers == null) newIntegers = new HashMap<>();
+                        newIntegers.put(key, value);
+                    }
+                }
+                case AnalysisArchive.TAG_STRING -> json = archive.string(AnalysisArchive.readVarint(buffer));
+                case AnalysisArchive.TAG_JSON -> json = AnalysisArchive.readUtf8(buffer);
+                default -> throw new UnsupportedOperationException("Unknown tag " + tag + " for " + key);
+            }
+            if (json != null) {
+                data = data == null ? new StringBuilder("{") : data.append(',');
+                data.append('"').append(key).append("\":").append(json);
+            }
+        }
+        if (data != null) {
+            JSONParser parser = new JSONParser(data.append('}').toString());
+            parser.Root();
+            processData(codec, context, info, parser.rootNode().childrenOfType(JSONObject.class).getFirst());
+        }
+        if (newIntegers != null) {
+            Map<String, Integer> integers = newIntegers;
+            info.analysis().propertyValueStream().forEach(pv -> {
+                Integer value = integers.get(pv.property().key());
+                if (value != null && (pv.value() instanceof Value.Immutable || pv.value() instanceof Value.Independent
+                                      || pv.value() instanceof Value.Bool || pv.value() instanceof Value.NotNull)) {
+                    decodedIntegers.putIfAbsent(pv.property().key() + "=" + value, new Decoded(pv.property(), pv.value()));
+                }
+            });
+        }
+    }
+
     private static void processPrimaryType(Codec codec, JSONObject jo) {
         Codec.Context context = new CodecImpl.ContextImpl();
         processSub(codec, context, jo);
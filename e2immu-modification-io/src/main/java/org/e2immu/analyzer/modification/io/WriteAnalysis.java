@@ -10,16 +10,16 @@ import org.e2immu.util.internal.util.Trie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -28,16 +28,67 @@ import java.util.stream.Stream;
 public class WriteAnalysis {
     private static final Logger LOGGER = LoggerFactory.getLogger(WriteAnalysis.class);
 
+    /*
+    JSON: one .json file per package. ARCHIVE: one AnalysisArchive per source set (sub-directory), containing
+    the same data, and no JSON files; for a readable form, convert it with AnalysisArchive toJson.
+     */
+    public enum Format {JSON, ARCHIVE}
+
     private final Runtime runtime;
     private final Predicate<TypeInfo> typePredicate;
+    private final Format format;
+    private final int threads;
+    private final boolean incremental;
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
 
     public WriteAnalysis(Runtime runtime) {
         this(runtime, ti -> true);
     }
 
     public WriteAnalysis(Runtime runtime, Predicate<TypeInfo> typePredicate) {
+        this(runtime, typePredicate, Format.JSON);
+    }
+
+    public WriteAnalysis(Runtime runtime, Predicate<TypeInfo> typePredicate, Format format) {
+        this(runtime, typePredicate, format, 1, false);
+    }
+
+    /*
+    With more than one thread, packages are encoded, and their files written, in parallel.
+    In incremental mode, a file whose content on disk is identical to the new content is not written, so that its
+    modification time does not change.
+     */
+    public WriteAnalysis(Runtime runtime, Predicate<TypeInfo> typePredicate, Format format, int threads,
+                         boolean incremental) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread");
         this.runtime = runtime;
         this.typePredicate = typePredicate;
+        this.format = format;
+        this.threads = threads;
+        this.incremental = incremental;
+    }
+
+    // all files handled by this object so far: the package files, the indices and the archives
+    public record Summary(int written, int skipped) {
+        @Override
+        public String toString() {
+            return written + " file(s) written, " + skipped + " unchanged";
+        }
+    }
+
+    public Summary summary() {
+        return new Summary(written.get(), skipped.get());
+    }
+
+    private record PackageTypes(String[] parts, List<TypeInfo> types, String subDirectory) {
+    }
+
+    private record Encoded(PackageTypes pkg, byte[] bytes, List<AnalyzedPackageIndex.Entry> index) {
+    }
+
+    private interface Task<T> {
+        T call() throws IOException;
     }
 
     public void write(String destinationDirectory, Trie<TypeInfo> typeTrie) throws IOException {
@@ -59,43 +110,142 @@ public class WriteAnalysis {
 
     // NOTE: if packages are split across different source sets (jars) then all types of one package will end up in one of the source sets
     public void write(File destinationDirectory, Trie<TypeInfo> typeTrie, Codec codec, Function<SourceSet, String> subDirectory) throws IOException {
+        List<PackageTypes> packages = new ArrayList<>();
+        typeTrie.visitThrowing(new String[]{}, (parts, list) -> {
+            if (!list.isEmpty()) {
+                String dir = subDirectory.apply(list.getFirst().compilationUnit().sourceSet());
+                packages.add(new PackageTypes(parts.clone(), List.copyOf(list), dir));
+            }
+        });
+        // JSON: encode and write each package file; ARCHIVE: only encode, the archive is assembled afterward
+        List<Encoded> encoded = run(packages.stream().<Task<Encoded>>map(pkg -> () -> {
+            String fileName = fileName(pkg.parts);
+            List<AnalyzedPackageIndex.Entry> index = new ArrayList<>();
+            byte[] bytes = writePackage(codec, pkg.types, fileName, index);
+            if (format == Format.JSON) {
+                File outputFile = new File(subDir(destinationDirectory, pkg.subDirectory), fileName);
+                LOGGER.info("Writing {} type(s) to {}", pkg.types.size(), outputFile.getAbsolutePath());
+                write(outputFile, bytes);
+            }
+            return new Encoded(pkg, bytes, index);
+        }).toList());
+
+        if (format == Format.ARCHIVE) {
+            Map<String, AnalysisArchive.ArchiveWriter> archives = new TreeMap<>();
+            for (Encoded e : encoded) {
+                archives.computeIfAbsent(e.pkg.subDirectory, d -> new AnalysisArchive.ArchiveWriter())
+                        .addJson(new InputStreamReader(new ByteArrayInputStream(e.bytes), StandardCharsets.UTF_8));
+            }
+            for (Map.Entry<String, AnalysisArchive.ArchiveWriter> entry : archives.entrySet()) {
+                File outputFile = new File(subDir(destinationDirectory, entry.getKey()), AnalysisArchive.FILE_NAME);
+                LOGGER.info("Writing {} primary type(s) to {}", entry.getValue().size(), outputFile.getAbsolutePath());
+                write(outputFile, entry.getValue().toByteArray());
+            }
+        } else {
+            Map<String, List<AnalyzedPackageIndex.Entry>> indices = new TreeMap<>();
+            for (Encoded e : encoded) {
+                indices.computeIfAbsent(e.pkg.subDirectory, d -> new ArrayList<>()).addAll(e.index);
+            }
+            for (Map.Entry<String, List<AnalyzedPackageIndex.Entry>> entry : indices.entrySet()) {
+                File outputFile = new File(subDir(destinationDirectory, entry.getKey()), AnalyzedPackageIndex.FILE_NAME);
+                write(outputFile, AnalyzedPackageIndex.toByteArray(entry.getValue()));
+            }
+        }
+        LOGGER.info("Analysis written to {}: {}", destinationDirectory, summary());
+    }
+
+    private <T> List<T> run(List<Task<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (threads == 1 || tasks.size() <= 1) {
+            for (Task<T> task : tasks) results.add(task.call());
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
         try {
-            typeTrie.visitThrowing(new String[]{}, (parts, list) -> {
-                if (!list.isEmpty()) {
-                    String dir = subDirectory.apply(list.getFirst().compilationUnit().sourceSet());
-                    write(destinationDirectory, codec, parts, list, dir);
-                }
-            });
-        } catch (RuntimeException re) {
-            if (re.getCause() instanceof IOException ioe) {
-                throw ioe;
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Task<T> task : tasks) {
+                futures.add(executor.submit(task::call));
+            }
+            for (Future<T> future : futures) {
+                results.add(get(future));
             }
-            throw re;
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the analysis");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) throw ioe;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new RuntimeException(e.getCause());
         }
     }
 
     /*
-     Write one .json file, containing a single package's worth of types' analyzed data.
+    In incremental mode, the file is compared to the new content first; sizes, then bytes. Reading the old file is
+    much cheaper than writing it: no write to the disk, and the modification time, which build tools look at,
+    stays the same.
      */
-    private void write(File directory, Codec codec, String[] packageParts, List<TypeInfo> list, String subDirectory) throws IOException {
+    private void write(File outputFile, byte[] bytes) throws IOException {
+        Path path = outputFile.toPath();
+        if (incremental && Files.isRegularFile(path) && Files.size(path) == bytes.length
+            && Arrays.equals(Files.readAllBytes(path), bytes)) {
+            LOGGER.debug("Unchanged: {}", path);
+            skipped.incrementAndGet();
+        } else {
+            Files.write(path, bytes);
+            written.incrementAndGet();
+        }
+    }
+
+    private static File subDir(File directory, String subDirectory) {
         File subDir = subDirectory.isBlank() ? directory : new File(directory, subDirectory);
         if (subDir.mkdirs()) {
             LOGGER.info("Created {}", subDir);
         }
-        String compressedPackages = Arrays.stream(packageParts).map(WriteAnalysis::capitalize)
-                .collect(Collectors.joining());
-        File outputFile = new File(subDir, compressedPackages + ".json");
-        LOGGER.info("Writing {} type(s) to {}", list.size(), outputFile.getAbsolutePath());
-        try (OutputStreamWriter osw = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
+        return subDir;
+    }
+
+    private static String fileName(String[] packageParts) {
+        return Arrays.stream(packageParts).map(WriteAnalysis::capitalize).collect(Collectors.joining()) + ".json";
+    }
+
+    /*
+     The content of one package file; for each primary type written, an index entry with the byte offset and length
+     of its object is added.
+     */
+    private byte[] writePackage(Codec codec, List<TypeInfo> list, String fileName,
+                                List<AnalyzedPackageIndex.Entry> index) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (OutputStreamWriter osw = new OutputStreamWriter(baos, StandardCharsets.UTF_8)) {
             osw.write("[");
-            AtomicBoolean first = new AtomicBoolean(true);
+            boolean first = true;
             for (TypeInfo typeInfo : list) {
-                if(typePredicate.test(typeInfo)) {
-                    writePrimary(osw, codec, first, typeInfo);
+                if (typePredicate.test(typeInfo)) {
+                    CodecImpl.E e = writePrimary(codec, typeInfo);
+                    if (e != null) {
+                        if (first) first = false;
+                        else osw.write(",\n");
+                        osw.flush();
+                        int start = baos.size();
+                        e.write(osw, 0, true);
+                        osw.flush();
+                        index.add(new AnalyzedPackageIndex.Entry(typeInfo.fullyQualifiedName(), fileName, start,
+                                baos.size() - start));
+                    } // else: no data, no need to write
                 }
             }
             osw.write("\n]\n");
         }
+        return baos.toByteArray();
     }
 
     private static Codec.EncodedValue write(Codec codec, Codec.Context context, Info fieldInfo, int index) {
@@ -161,20 +311,12 @@ public class WriteAnalysis {
         return codec.encode(context, typeInfo, "" + index, stream, subs);
     }
 
-    private void writePrimary(OutputStreamWriter osw,
-                                     Codec codec,
-                                     AtomicBoolean first,
-                                     TypeInfo primaryType) throws IOException {
+    private CodecImpl.E writePrimary(Codec codec, TypeInfo primaryType) {
         Codec.Context context = new CodecImpl.ContextImpl();
         context.push(primaryType);
         Codec.EncodedValue ev = writeType(codec, context, primaryType, 0);
         context.pop();
-
-        if (ev != null) {
-            if (first.get()) first.set(false);
-            else osw.write(",\n");
-            ((CodecImpl.E) ev).write(osw, 0, true);
-        } // else: no data, no need to write
+        return (CodecImpl.E) ev;
     }
 
     private static String capitalize(String s) {
@@ -0,0 +1,91 @@
+package org.e2immu.analyzer.modification.io;
+
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAnalysisArchive {
+
+    @Language("json")
+    private static final String INPUT = """
+            [
+            {"name": "Torg.e2immu.C", "data":{"commutableMethods":["p1","p2,p3","p4"],"defaultsAnalyzer":1,"immutableType":3}, "subs":[
+             {"name": "Mm1(0)", "data":{"defaultsAnalyzer":1,"note":"a \\"b\\""}},
+             {"name": "Mm2(1)", "data":{"immutableMethod":-1}, "sub":
+              {"name": "P0", "data":{}}}]},
+            {"name": "Torg.e2immu.D", "data":{"immutableType":3}}
+            ]
+            """;
+
+    @Language("json")
+    private static final String OUTPUT = """
+            [
+            {"name": "Torg.e2immu.C", "data":{"commutableMethods":["p1","p2,p3","p4"],"defaultsAnalyzer":1,"immutableType":3}, "subs":[
+            {"name": "Mm1(0)", "data":{"defaultsAnalyzer":1,"note":"a \\"b\\""}},
+            {"name": "Mm2(1)", "data":{"immutableMethod":-1}, "sub":
+            {"name": "P0", "data":{}}}]},
+            {"name": "Torg.e2immu.D", "data":{"immutableType":3}}
+            ]
+            """;
+
+    @Test
+    public void test(@TempDir Path directory) throws IOException {
+        AnalysisArchive.ArchiveWriter writer = new AnalysisArchive.ArchiveWriter();
+        writer.addJson(new StringReader(INPUT));
+        assertEquals(2, writer.size());
+        Path file = directory.resolve(AnalysisArchive.FILE_NAME);
+        writer.write(file);
+        assertTrue(Files.size(file) < INPUT.length());
+
+        AnalysisArchive archive = AnalysisArchive.open(file);
+        assertEquals(2, archive.size());
+        assertEquals("Torg.e2immu.C", archive.name(0));
+        assertEquals("Torg.e2immu.D", archive.name(1));
+
+        StringWriter sw = new StringWriter();
+        archive.toJson(sw);
+        assertEquals(OUTPUT, sw.toString());
+
+        // and back: the same archive
+        Path jsonFile = directory.resolve("Converted.json");
+        Files.writeString(jsonFile, sw.toString());
+        Path file2 = directory.resolve("second" + AnalysisArchive.EXTENSION);
+        assertEquals(2, AnalysisArchive.jsonToArchive(List.of(jsonFile), file2));
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(file2));
+    }
+
+    @Test
+    public void testRecord(@TempDir Path directory) throws IOException {
+        AnalysisArchive.ArchiveWriter writer = new AnalysisArchive.ArchiveWriter();
+        writer.addJson(new StringReader(INPUT));
+        Path file = directory.resolve(AnalysisArchive.FILE_NAME);
+        writer.write(file);
+        AnalysisArchive archive = AnalysisArchive.open(file);
+
+        ByteBuffer record = archive.record(1);
+        assertEquals("Torg.e2immu.D", archive.string(AnalysisArchive.readVarint(record)));
+        assertEquals(1, AnalysisArchive.readVarint(record));
+        assertEquals("immutableType", archive.string(AnalysisArchive.readVarint(record)));
+        assertEquals(AnalysisArchive.TAG_INT, record.get());
+        assertEquals(3, AnalysisArchive.readZigZag(record));
+        assertEquals(0, AnalysisArchive.readVarint(record));
+        assertFalse(record.hasRemaining());
+    }
+
+    @Test
+    public void testNotAnArchive(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("x" + AnalysisArchive.EXTENSION);
+        Files.writeString(file, "[]");
+        assertThrows(IOException.class, () -> AnalysisArchive.open(file));
+    }
+}
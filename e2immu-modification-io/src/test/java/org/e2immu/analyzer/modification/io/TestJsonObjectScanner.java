@@ -0,0 +1,73 @@
+package org.e2immu.analyzer.modification.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestJsonObjectScanner {
+
+    private static List<String> scan(String content) throws IOException {
+        JsonObjectScanner scanner = new JsonObjectScanner(new StringReader(content));
+        List<String> objects = new ArrayList<>();
+        String object;
+        while ((object = scanner.next()) != null) {
+            objects.add(object);
+        }
+        return objects;
+    }
+
+    @Test
+    public void test() throws IOException {
+        String content = """
+                [{"name": "Tjava.lang.Object", "data": {"a": [1, {"b": 2}]}},
+                {"name": "Ta.b.C", "data": {"s": "}{][ \\" \\\\"}}
+                ]
+                """;
+        List<String> objects = scan(content);
+        assertEquals(2, objects.size());
+        assertEquals("{\"name\": \"Tjava.lang.Object\", \"data\": {\"a\": [1, {\"b\": 2}]}}", objects.get(0));
+        assertEquals("{\"name\": \"Ta.b.C\", \"data\": {\"s\": \"}{][ \\\" \\\\\"}}", objects.get(1));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertTrue(scan("").isEmpty());
+        assertTrue(scan("[\n]\n").isEmpty());
+    }
+
+    @Test
+    public void testError() {
+        assertThrows(IOException.class, () -> scan("{}"));
+        assertThrows(IOException.class, () -> scan("[{\"a\": 1"));
+    }
+
+    @Test
+    public void testLargerThanBuffer() throws IOException {
+        String value = "x".repeat(20_000);
+        List<String> objects = scan("[{\"a\": \"" + value + "\"}, {}]");
+        assertEquals(2, objects.size());
+        assertEquals(20_009, objects.getFirst().length());
+        assertEquals("{}", objects.get(1));
+    }
+
+    @Test
+    public void testOffsets() throws IOException {
+        String content = "[\n{\"name\": \"Ta.b.\u00e9\"},\n{\"name\": \"Ta.b.C\"}\n]\n";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        List<AnalyzedPackageIndex.Entry> entries = AnalyzedPackageIndex.scan("f.json", new StringReader(content));
+        assertEquals(2, entries.size());
+        assertEquals("a.b.\u00e9", entries.get(0).primaryType());
+        assertEquals(2, entries.get(0).offset());
+        assertEquals("a.b.C", entries.get(1).primaryType());
+        for (AnalyzedPackageIndex.Entry entry : entries) {
+            String object = new String(bytes, (int) entry.offset(), entry.length(), StandardCharsets.UTF_8);
+            assertEquals("{\"name\": \"T" + entry.primaryType() + "\"}", object);
+        }
+    }
+}
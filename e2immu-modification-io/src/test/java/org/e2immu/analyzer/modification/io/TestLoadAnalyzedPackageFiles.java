@@ -1,25 +1,40 @@
 package org.e2immu.analyzer.modification.io;
 
 import ch.qos.logback.classic.Level;
+import org.e2immu.analyzer.modification.common.LazyAnalysis;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.analyzer.modification.prepwork.PrepAnalyzer;
 import org.e2immu.analyzer.modification.prepwork.hcs.HiddenContentSelector;
 import org.e2immu.analyzer.modification.prepwork.hct.HiddenContentTypes;
+import org.e2immu.language.cst.api.info.Info;
 import org.e2immu.language.cst.api.info.MethodInfo;
 import org.e2immu.language.cst.api.info.ParameterInfo;
 import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.cst.api.runtime.Runtime;
 import org.e2immu.language.inspection.integration.JavaInspectorImpl;
 import org.e2immu.language.inspection.integration.ToolChain;
 import org.e2immu.language.inspection.resource.InputConfigurationImpl;
+import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import static org.e2immu.language.cst.impl.analysis.PropertyImpl.*;
 import static org.e2immu.language.cst.impl.analysis.ValueImpl.ImmutableImpl.IMMUTABLE;
@@ -95,6 +110,290 @@ public class TestLoadAnalyzedPackageFiles {
         doTests(javaInspector);
     }
 
+    @DisplayName("using resource:, in parallel")
+    @Test
+    public void test2b() throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(ToolChain.CLASSPATH_SLF4J_LOGBACK)
+                .addClassPath(ToolChain.CLASSPATH_JUNIT)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        List<String> resources = List.of(ToolChain.currentJdkAnalyzedPackages(), ToolChain.commonLibsAnalyzedPackages());
+        LoadAnalyzedPackageFiles sequential = new LoadAnalyzedPackageFiles();
+        int countSequential = sequential.go(javaInspector, resources);
+        LoadAnalyzedPackageFiles parallel = new LoadAnalyzedPackageFiles(4);
+        int countParallel = parallel.go(javaInspector, resources);
+        LOGGER.info("Sequential: {}; parallel: {}", sequential.summary(), parallel.summary());
+        assertEquals(countSequential, countParallel);
+        assertEquals(sequential.summary().files(), parallel.summary().files());
+        assertEquals(sequential.summary().bytes(), parallel.summary().bytes());
+
+        doTests(javaInspector);
+    }
+
+    @DisplayName("using files, in parallel")
+    @Test
+    public void test3() throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(ToolChain.CLASSPATH_SLF4J_LOGBACK)
+                .addClassPath(ToolChain.CLASSPATH_JUNIT)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        String jdk = ToolChain.mapJreShortNameToAnalyzedPackageShortName(ToolChain.currentJre().shortName());
+        File jdkDir = new File("../../analyzer-aapi/e2immu-aapi-archive/src/main/resources/org/e2immu/analyzer/aapi/archive/analyzedPackageFiles/jdk/" + jdk);
+        assertTrue(jdkDir.isDirectory());
+
+        LoadAnalyzedPackageFiles sequential = new LoadAnalyzedPackageFiles();
+        int countSequential = sequential.goDir(javaInspector, jdkDir);
+        LoadAnalyzedPackageFiles parallel = new LoadAnalyzedPackageFiles(4);
+        int countParallel = parallel.goDir(javaInspector, jdkDir);
+        assertEquals(countSequential, countParallel);
+
+        LoadAnalyzedPackageFiles.Summary summary = parallel.summary();
+        LOGGER.info("Sequential: {}; parallel: {}", sequential.summary(), summary);
+        assertEquals(countParallel, summary.primaryTypes());
+        assertEquals(sequential.summary().files(), summary.files());
+        assertEquals(sequential.summary().bytes(), summary.bytes());
+        assertTrue(summary.bytesPerSecond() > 0);
+
+        doTests(javaInspector);
+    }
+
+    @DisplayName("using an archive")
+    @Test
+    public void test4() throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(ToolChain.CLASSPATH_SLF4J_LOGBACK)
+                .addClassPath(ToolChain.CLASSPATH_JUNIT)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        String jdk = ToolChain.mapJreShortNameToAnalyzedPackageShortName(ToolChain.currentJre().shortName());
+        File jdkDir = new File("../../analyzer-aapi/e2immu-aapi-archive/src/main/resources/org/e2immu/analyzer/aapi/archive/analyzedPackageFiles/jdk/" + jdk);
+        assertTrue(jdkDir.isDirectory());
+        List<Path> jsonFiles;
+        try (Stream<Path> stream = Files.walk(jdkDir.toPath(), 3)) {
+            jsonFiles = stream.filter(p -> p.toString().endsWith(".json")).sorted().toList();
+        }
+        Path archive = Files.createTempFile("jdk", AnalysisArchive.EXTENSION);
+        int converted = AnalysisArchive.jsonToArchive(jsonFiles, archive);
+        long jsonBytes = 0;
+        for (Path jsonFile : jsonFiles) jsonBytes += Files.size(jsonFile);
+        LOGGER.info("Archive of {} primary types: {} bytes, JSON: {} bytes", converted, Files.size(archive), jsonBytes);
+        assertTrue(Files.size(archive) < jsonBytes);
+
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles(4);
+        int count = loadAnalyzedPackageFiles.goArchive(new PrepWorkCodec(javaInspector.runtime()).codec(), archive);
+        assertEquals(converted, count);
+        Files.delete(archive);
+
+        doTests(javaInspector);
+    }
+
+    @DisplayName("a directory with both JSON files and an archive")
+    @Test
+    public void test4b(@TempDir Path directory) throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(ToolChain.CLASSPATH_SLF4J_LOGBACK)
+                .addClassPath(ToolChain.CLASSPATH_JUNIT)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        String jdk = ToolChain.mapJreShortNameToAnalyzedPackageShortName(ToolChain.currentJre().shortName());
+        File jdkDir = new File("../../analyzer-aapi/e2immu-aapi-archive/src/main/resources/org/e2immu/analyzer/aapi/archive/analyzedPackageFiles/jdk/" + jdk);
+        assertTrue(jdkDir.isDirectory());
+        List<Path> jsonFiles = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(jdkDir.toPath(), 3)) {
+            for (Path jsonFile : stream.filter(p -> p.toString().endsWith(".json")).sorted().toList()) {
+                jsonFiles.add(Files.copy(jsonFile, directory.resolve(jsonFile.getFileName())));
+            }
+        }
+        int converted = AnalysisArchive.jsonToArchive(jsonFiles, directory.resolve(AnalysisArchive.FILE_NAME));
+
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles();
+        int count = loadAnalyzedPackageFiles.goDir(new PrepWorkCodec(javaInspector.runtime()).codec(),
+                directory.toFile());
+        assertEquals(converted, count);
+        assertEquals(1, loadAnalyzedPackageFiles.summary().files());
+
+        doTests(javaInspector);
+    }
+
+    @DisplayName("the archive loads faster than the JSON files")
+    @Test
+    public void test4c(@TempDir Path directory) throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(ToolChain.CLASSPATH_SLF4J_LOGBACK)
+                .addClassPath(ToolChain.CLASSPATH_JUNIT)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        String jdk = ToolChain.mapJreShortNameToAnalyzedPackageShortName(ToolChain.currentJre().shortName());
+        File jdkDir = new File("../../analyzer-aapi/e2immu-aapi-archive/src/main/resources/org/e2immu/analyzer/aapi/archive/analyzedPackageFiles/jdk/" + jdk);
+        assertTrue(jdkDir.isDirectory());
+        List<Path> jsonFiles;
+        try (Stream<Path> stream = Files.walk(jdkDir.toPath(), 3)) {
+            jsonFiles = stream.filter(p -> p.toString().endsWith(".json")).sorted().toList();
+        }
+        Path archive = directory.resolve(AnalysisArchive.FILE_NAME);
+        AnalysisArchive.jsonToArchive(jsonFiles, archive);
+
+        // the first load also inspects the types the decoder refers to; it is not measured
+        new LoadAnalyzedPackageFiles().goDir(javaInspector, jdkDir);
+
+        long jsonNanos = Long.MAX_VALUE;
+        long archiveNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            LoadAnalyzedPackageFiles json = new LoadAnalyzedPackageFiles();
+            json.goDir(javaInspector, jdkDir);
+            jsonNanos = Math.min(jsonNanos, json.summary().nanos());
+            LoadAnalyzedPackageFiles binary = new LoadAnalyzedPackageFiles();
+            binary.goArchive(new PrepWorkCodec(javaInspector.runtime()).codec(), archive);
+            archiveNanos = Math.min(archiveNanos, binary.summary().nanos());
+        }
+        LOGGER.info("Best of 3, JSON: {} ms, archive: {} ms", jsonNanos / 1_000_000, archiveNanos / 1_000_000);
+        assertTrue(archiveNanos < jsonNanos);
+
+        doTests(javaInspector);
+    }
+
+    @DisplayName("lazily, using resource:")
+    @Test
+    public void test5() throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(ToolChain.CLASSPATH_SLF4J_LOGBACK)
+                .addClassPath(ToolChain.CLASSPATH_JUNIT)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles();
+        try (LazyAnalysis.Registration ignored = loadAnalyzedPackageFiles.goLazy(javaInspector,
+                List.of(ToolChain.currentJdkAnalyzedPackages(), ToolChain.commonLibsAnalyzedPackages()))) {
+            assertEquals(0, loadAnalyzedPackageFiles.summary().primaryTypes());
+            TypeInfo list = javaInspector.compiledTypesManager().get(List.class);
+            assertNull(list.analysis().getOrNull(HiddenContentTypes.HIDDEN_CONTENT_TYPES, HiddenContentTypes.class));
+
+            for (Class<?> clazz : List.of(Object.class, HashMap.class, List.class)) {
+                LazyAnalysis.ensureLoaded(javaInspector.compiledTypesManager().get(clazz));
+            }
+            LazyAnalysis.ensureLoaded(list); // a second time: nothing happens
+            assertEquals(3, loadAnalyzedPackageFiles.summary().primaryTypes());
+            doTests(javaInspector);
+        }
+    }
+
+    @DisplayName("lazily, a failure is thrown once")
+    @Test
+    public void test5b(@TempDir Path directory) throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        // an index that is out of date: the object is not where it says
+        Files.writeString(directory.resolve("JavaLang.json"), "[\n]\n");
+        AnalyzedPackageIndex.write(directory.resolve(AnalyzedPackageIndex.FILE_NAME),
+                List.of(new AnalyzedPackageIndex.Entry("java.lang.Object", "JavaLang.json", 1000, 20)));
+
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles();
+        try (LazyAnalysis.Registration ignored = loadAnalyzedPackageFiles.goLazy(javaInspector,
+                List.of(directory.toString()))) {
+            TypeInfo object = javaInspector.compiledTypesManager().get(Object.class);
+            assertThrows(UncheckedIOException.class, () -> LazyAnalysis.ensureLoaded(object));
+            assertDoesNotThrow(() -> LazyAnalysis.ensureLoaded(object));
+            assertEquals(0, loadAnalyzedPackageFiles.summary().primaryTypes());
+        }
+    }
+
+    @Language("java")
+    private static final String INPUT6 = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            import java.util.StringJoiner;
+            public class X {
+                private final List<String> list = new ArrayList<>();
+                public void add(String s) {
+                    list.add(s);
+                }
+                public int size() {
+                    return list.size();
+                }
+                public String join() {
+                    StringJoiner joiner = new StringJoiner(",");
+                    for (String s : list) joiner.add(s);
+                    return joiner.toString();
+                }
+            }
+            """;
+
+    /*
+    The source is parsed after PrepAnalyzer.initialize(), so that the inspector loads types, such as StringJoiner,
+    that initialize() has not seen.
+     */
+    private static Map<String, String> analyze6(boolean lazy) throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+        List<String> directories = List.of(ToolChain.currentJdkAnalyzedPackages(),
+                ToolChain.commonLibsAnalyzedPackages());
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles();
+        // eagerly, there is no registration to close
+        try (LazyAnalysis.Registration ignored = lazy
+                ? loadAnalyzedPackageFiles.goLazy(javaInspector, directories) : null) {
+            if (!lazy) loadAnalyzedPackageFiles.go(javaInspector, directories);
+            javaInspector.parse(JavaInspectorImpl.FAIL_FAST);
+            Runtime runtime = javaInspector.runtime();
+            PrepAnalyzer prepAnalyzer = new PrepAnalyzer(runtime);
+            prepAnalyzer.initialize(javaInspector.compiledTypesManager().typesLoaded());
+
+            TypeInfo X = javaInspector.parse(INPUT6);
+            List<Info> analysisOrder = prepAnalyzer.doPrimaryType(X);
+            IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder()
+                    .setMaxIterations(3).build();
+            IteratingAnalyzer.Output output = new IteratingAnalyzerImpl(runtime, configuration).analyze(analysisOrder);
+            assertTrue(output.analyzerExceptions().isEmpty());
+
+            assertFalse(X.findUniqueMethod("size", 0).isModifying());
+            assertTrue(X.findUniqueMethod("add", 1).isModifying());
+            Map<String, String> map = new TreeMap<>();
+            for (Info info : analysisOrder) {
+                info.analysis().propertyValueStream().forEach(pv ->
+                        map.put(info.fullyQualifiedName() + " " + pv.property().key(), String.valueOf(pv.value())));
+            }
+            return map;
+        }
+    }
+
+    @DisplayName("lazily, the analysis of the source code is the same as with eager loading")
+    @Test
+    public void test6() throws IOException {
+        Map<String, String> eager = analyze6(false);
+        assertFalse(eager.isEmpty());
+        Map<String, String> lazy = analyze6(true);
+        assertEquals(eager.keySet(), lazy.keySet());
+        for (Map.Entry<String, String> entry : eager.entrySet()) {
+            assertEquals(entry.getValue(), lazy.get(entry.getKey()), entry.getKey());
+        }
+    }
+
     private static void doTests(JavaInspectorImpl javaInspector) {
         TypeInfo typeInfo = javaInspector.compiledTypesManager().get(Object.class);
         MethodInfo methodInfo = typeInfo.findUniqueMethod("toString", 0);
@@ -10,14 +10,19 @@ import org.e2immu.language.cst.impl.runtime.RuntimeImpl;
 import org.e2immu.util.internal.util.Trie;
 import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestWriteAnalysis {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWriteAnalysis.class);
@@ -56,5 +61,53 @@ public class TestWriteAnalysis {
         String s = Files.readString(targetFile.toPath());
 
         assertEquals(EXPECT, s);
+
+        List<AnalyzedPackageIndex.Entry> index = AnalyzedPackageIndex.read(new File(dir, AnalyzedPackageIndex.FILE_NAME)
+                .toPath());
+        assertEquals(1, index.size());
+        AnalyzedPackageIndex.Entry entry = index.getFirst();
+        assertEquals("org.e2immu.C", entry.primaryType());
+        assertEquals("OrgE2immu.json", entry.file());
+        String object = s.substring((int) entry.offset(), (int) entry.offset() + entry.length()).trim();
+        assertTrue(object.startsWith("{\"name\": \"Torg.e2immu.C\""));
+        assertTrue(object.endsWith("}}}"));
+    }
+
+    @Test
+    public void testParallelIncremental(@TempDir Path dir) throws IOException {
+        CompilationUnit cu1 = runtime.newCompilationUnitBuilder().setPackageName("org.e2immu").build();
+        TypeInfo c = runtime.newTypeInfo(cu1, "C");
+        c.analysis().set(PropertyImpl.IMMUTABLE_TYPE, ValueImpl.ImmutableImpl.IMMUTABLE);
+        CompilationUnit cu2 = runtime.newCompilationUnitBuilder().setPackageName("org.e2immu.sub").build();
+        TypeInfo d = runtime.newTypeInfo(cu2, "D");
+        d.analysis().set(PropertyImpl.IMMUTABLE_TYPE, ValueImpl.ImmutableImpl.IMMUTABLE);
+        Trie<TypeInfo> trie = new Trie<>();
+        trie.add(new String[]{"org", "e2immu"}, c);
+        trie.add(new String[]{"org", "e2immu", "sub"}, d);
+
+        Path sequentialDir = dir.resolve("sequential");
+        new WriteAnalysis(runtime).write(sequentialDir.toString(), trie);
+
+        Path parallelDir = dir.resolve("parallel");
+        WriteAnalysis wa = new WriteAnalysis(runtime, ti -> true, WriteAnalysis.Format.JSON, 4, true);
+        wa.write(parallelDir.toString(), trie);
+        assertEquals(new WriteAnalysis.Summary(3, 0), wa.summary());
+        for (String file : List.of("OrgE2immu.json", "OrgE2immuSub.json", AnalyzedPackageIndex.FILE_NAME)) {
+            assertEquals(Files.readString(sequentialDir.resolve(file)), Files.readString(parallelDir.resolve(file)));
+        }
+
+        Path cFile = parallelDir.resolve("OrgE2immu.json");
+        FileTime old = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(cFile, old);
+        wa.write(parallelDir.toString(), trie);
+        assertEquals(new WriteAnalysis.Summary(3, 3), wa.summary());
+        assertEquals(old, Files.getLastModifiedTime(cFile));
+
+        d.analysis().set(PropertyImpl.DEFAULTS_ANALYZER, ValueImpl.BoolImpl.TRUE);
+        wa.write(parallelDir.toString(), trie);
+        // D's file and the index have changed
+        assertEquals(new WriteAnalysis.Summary(5, 4), wa.summary());
+        assertEquals(old, Files.getLastModifiedTime(cFile));
+        assertTrue(Files.readString(parallelDir.resolve("OrgE2immuSub.json")).contains("defaultsAnalyzer"));
     }
 }
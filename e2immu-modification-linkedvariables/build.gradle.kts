@@ -73,6 +73,10 @@ tasks.test {
 
     maxParallelForks = 4
     maxHeapSize = "2G"
+
+    // TestCloneBenchThroughput
+    System.getProperties().stringPropertyNames().filter { it.startsWith("e2immu.clonebench.") }
+        .forEach { systemProperty(it, System.getProperty(it)) }
 }
 
 
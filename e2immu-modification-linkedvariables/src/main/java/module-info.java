@@ -10,6 +10,7 @@ module org.e2immu.analyzer.modification.linkedvariables {
     requires org.e2immu.util.internal.graph;
     requires org.e2immu.util.internal.util;
     requires org.slf4j;
+    requires jdk.management;
 
     exports org.e2immu.analyzer.modification.linkedvariables;
     exports org.e2immu.analyzer.modification.linkedvariables.impl;
@@ -0,0 +1,51 @@
+package org.e2immu.analyzer.modification.linkedvariables;
+
+import org.e2immu.language.cst.api.info.Info;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/*
+Wall-clock time and allocated bytes, per info, per analyzer, per iteration.
+Only recorded when IteratingAnalyzer.Configuration.recordTimings() is true.
+
+Allocated bytes are measured on the current thread (com.sun.management.ThreadMXBean); they are -1 when the JVM does
+not support this measurement.
+ */
+public interface AnalyzerTimings {
+
+    interface Timing {
+        Info info();
+
+        // simple name of the analyzer interface, e.g. MethodModAnalyzer
+        String analyzer();
+
+        int iteration();
+
+        long nanos();
+
+        long allocatedBytes();
+    }
+
+    interface Total {
+        int count();
+
+        long nanos();
+
+        long allocatedBytes();
+    }
+
+    // the n slowest analyses of a method by the MethodModAnalyzer, slowest first
+    List<Timing> slowestMethods(int n);
+
+    // the n slowest analyses, of any info by any analyzer, slowest first
+    List<Timing> slowest(int n);
+
+    // per analyzer, sorted by name
+    Map<String, Total> totalsPerAnalyzer();
+
+    // one line per timing: info,kind,analyzer,iteration,nanos,allocatedBytes, preceded by a header
+    void writeCsv(Writer writer) throws IOException;
+}
@@ -9,6 +9,13 @@ import java.util.Map;
 
 public interface IteratingAnalyzer extends Analyzer {
 
+    enum ParallelScheduler {
+        // all units of a level of the call graph, then the next level
+        WAVEFRONT,
+        // a unit starts as soon as the units it depends on have finished
+        DATAFLOW
+    }
+
     interface Configuration {
         int maxIterations();
 
@@ -20,6 +27,50 @@ public interface IteratingAnalyzer extends Analyzer {
         boolean trackObjectCreations();
 
         CycleBreakingStrategy cycleBreakingStrategy();
+
+        // link graphs up to this number of vertices use a bitset closure where possible; 0 to disable
+        int linkGraphBitsetThreshold();
+
+        /*
+        the maximal weight of the cache of link graphs, shared by all methods analyzed by one IteratingAnalyzer,
+        see ConcurrentGraphCacheImpl
+         */
+        long linkGraphCacheMaxWeight();
+
+        // reuse the links of the previous statement for variables whose part of the link graph has not changed
+        boolean incrementalLinkGraph();
+
+        /*
+        after the first iteration, only re-analyze the vertices of the waitFor graph, the infos that depend on them
+        in the call graph, and the types that own any of these
+         */
+        boolean worklist();
+
+        /*
+        the number of threads analyzing the primary types of a level of the call graph in parallel; 1 for sequential
+        execution. Parallel execution requires the call graph.
+         */
+        int parallelism();
+
+        // only relevant when parallelism() > 1
+        ParallelScheduler parallelScheduler();
+
+        /*
+        in later iterations, do not analyze a method again when neither it, nor its successors in the call graph,
+        have changed since its last analysis. Requires the call graph.
+         */
+        boolean skipStableMethods();
+
+        // record wall-clock time and allocated bytes per info and analyzer, see Output.timings()
+        boolean recordTimings();
+
+        /*
+        write the link graph of every statement whose shortest path computation takes at least this number of
+        milliseconds to a file in graphCaptureDirectory(), see WeightedGraphCodec; negative to disable
+         */
+        long graphCaptureThresholdMillis();
+
+        String graphCaptureDirectory();
     }
 
     interface Output extends Analyzer.Output {
@@ -34,7 +85,22 @@ public interface IteratingAnalyzer extends Analyzer {
         int iterations();
 
         Map<String, Integer> infoHistogram();
+
+        // the number of infos analyzed in each iteration, not counting the stable methods that were skipped
+        List<Integer> revisitedPerIteration();
+
+        // null unless Configuration.recordTimings() is true
+        AnalyzerTimings timings();
+    }
+
+    default Output analyze(List<Info> analysisOrder) {
+        return analyze(analysisOrder, null);
     }
 
-    Output analyze(List<Info> analysisOrder);
+    /*
+    the call graph, as computed by ComputeCallGraph, is used in worklist mode, to find the dependents of
+    the infos that are still waiting, and for parallel execution. When null, only the vertices of the waitFor graph are
+    revisited, and the analysis is sequential.
+     */
+    Output analyze(List<Info> analysisOrder, G<Info> callGraph);
 }
@@ -53,12 +53,24 @@ public interface SingleIterationAnalyzer extends Analyzer {
         G<Info> waitFor();
 
         Map<String, Integer> infoHistogram();
+
+        // the number of stable methods that were not analyzed again,
+        // see IteratingAnalyzer.Configuration.skipStableMethods()
+        int skippedMethods();
     }
 
     default Output go(List<Info> analysisOrder, boolean activateCycleBreaking) {
         return go(analysisOrder, activateCycleBreaking, true);
     }
 
-    Output go(List<Info> analysisOrder, boolean activateCycleBreaking, boolean firstIteration);
+    default Output go(List<Info> analysisOrder, boolean activateCycleBreaking, boolean firstIteration) {
+        return go(analysisOrder, null, activateCycleBreaking, firstIteration);
+    }
+
+    /*
+    the call graph is only needed for parallel execution (Configuration.parallelism() > 1); without it, the analysis
+    order is executed sequentially.
+     */
+    Output go(List<Info> analysisOrder, G<Info> callGraph, boolean activateCycleBreaking, boolean firstIteration);
 
 }
@@ -6,6 +6,11 @@ import java.util.function.Function;
 public interface Cache {
     interface CacheElement {
         int savings();
+
+        // estimated size in bytes, used by caches that are bounded by weight rather than by number of entries
+        default long weight() {
+            return 1L;
+        }
     }
 
     record Hash(byte[] bytes) {
@@ -21,7 +26,20 @@ public interface Cache {
         }
     }
 
+    /*
+    Streaming construction of a Hash, without materialising the hashed content.
+     */
+    interface HashBuilder {
+        HashBuilder add(int value);
+
+        HashBuilder add(CharSequence charSequence);
+
+        Hash build();
+    }
+
     Hash createHash(String string);
 
+    HashBuilder newHashBuilder();
+
     CacheElement computeIfAbsent(Hash hash, Function<Hash, CacheElement> elementSupplier);
 }
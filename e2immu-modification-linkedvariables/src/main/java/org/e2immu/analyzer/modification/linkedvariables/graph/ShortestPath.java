@@ -6,9 +6,37 @@ import org.e2immu.language.cst.api.variable.Variable;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 public interface ShortestPath {
     Map<Variable, LV> links(@NotNull Variable v, LV maxWeight);
 
     Set<Variable> variables();
+
+    /*
+    The result of links(v, null) for all variables at once. Row i holds the links of variable(i), indexed by
+    the same positions; a null entry means: no link.
+     */
+    interface LinkMatrix {
+        int size();
+
+        Variable variable(int i);
+
+        // -1 when the variable is not part of the graph
+        int indexOf(Variable v);
+
+        LV get(int from, int to);
+
+        // the links of variable(from), without the link to itself
+        Map<Variable, LV> linksWithoutSelf(int from);
+    }
+
+    LinkMatrix allLinks();
+
+    /*
+    The sources, and, recursively, all variables to which modification propagates from a variable in the result:
+    those with a link in links(v, null) for which LV.propagateModification() holds, computed as if the edges for
+    which LV.theirsContainsAll() holds were absent. Only variables for which 'accept' holds, are added.
+     */
+    Set<Variable> propagateModification(Set<Variable> sources, Predicate<Variable> accept);
 }
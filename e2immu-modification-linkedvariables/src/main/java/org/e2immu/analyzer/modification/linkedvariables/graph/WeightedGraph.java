@@ -27,6 +27,14 @@ public interface WeightedGraph {
     @NotModified
     ShortestPath shortestPath();
 
+    /*
+    Equivalent to shortestPath().allLinks(), but the rows of variables from which no vertex can be reached whose
+    edges differ from those in the previous graph, are copied from previousLinks, the result of that previous graph.
+     */
+    @Independent(hc = true)
+    @NotModified
+    ShortestPath.LinkMatrix allLinks(WeightedGraph previous, ShortestPath.LinkMatrix previousLinks);
+
     @NotModified
     void visit(@NotNull @Independent(hc = true) BiConsumer<Variable, Map<Variable, LV>> consumer);
 
@@ -0,0 +1,120 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+
+import static org.e2immu.analyzer.modification.linkedvariables.graph.impl.ShortestPathImpl.*;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl.LINK_ASSIGNED;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl.LINK_STATICALLY_ASSIGNED;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl.NO_LINKS;
+
+/*
+Alternative to running Dijkstra from every source, for graphs that are not too large.
+
+The distance components of ShortestPathImpl are spaced so far apart that the class of the shortest distance
+(-0-, -1-, -2-, -4-) equals the lowest level L such that the target can be reached using only edges of level L or
+lower. We therefore compute, for each of the 4 levels, the reflexive-transitive closure of the edges up to that level,
+with Warshall's algorithm on bitsets (one word per 64 vertices).
+
+This only yields the correct result for sources from which no edge with a Links payload can be reached: in that
+case, every edge is accepted and the connection remains NO_LINKS. Other sources must go through Dijkstra, because
+Links.next() may reject edges and the payloads have to be combined. See exact().
+ */
+class BitsetClosure {
+    static final int LEVELS = 4;
+
+    private final int n;
+    private final int words;
+    // reach[level][i * words + w]
+    private final long[][] reach;
+    // vertices with at least one outgoing edge that carries links
+    private final long[] payloadVertices;
+    private final LV dependent;
+    private final LV commonHC;
+
+    BitsetClosure(CsrGraph graph) {
+        n = graph.vertices();
+        words = (n + 63) >>> 6;
+        reach = new long[LEVELS][n * words];
+        payloadVertices = new long[words];
+
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long[] distances = graph.distances();
+        for (int u = 0; u < n; u++) {
+            int row = u * words;
+            for (int level = 0; level < LEVELS; level++) {
+                set(reach[level], row, u);
+            }
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                for (int level = level(distances[e]); level < LEVELS; level++) {
+                    set(reach[level], row, targets[e]);
+                }
+                if (graph.payloads()[e] != NO_LINKS) {
+                    set(payloadVertices, 0, u);
+                }
+            }
+        }
+        for (long[] r : reach) {
+            warshall(r);
+        }
+        dependent = fromDistanceSum(DEPENDENT, NO_LINKS);
+        commonHC = fromDistanceSum(COMMON_HC, NO_LINKS);
+    }
+
+    static int level(long distance) {
+        if (distance < ASSIGNED) return 0;
+        if (distance < DEPENDENT) return 1;
+        if (distance < COMMON_HC) return 2;
+        return 3;
+    }
+
+    private static void set(long[] bits, int offset, int i) {
+        bits[offset + (i >>> 6)] |= 1L << i;
+    }
+
+    private static boolean get(long[] bits, int offset, int i) {
+        return (bits[offset + (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    private void warshall(long[] r) {
+        for (int k = 0; k < n; k++) {
+            int rowK = k * words;
+            for (int i = 0; i < n; i++) {
+                int rowI = i * words;
+                if (i != k && get(r, rowI, k)) {
+                    for (int w = 0; w < words; w++) {
+                        r[rowI + w] |= r[rowK + w];
+                    }
+                }
+            }
+        }
+    }
+
+    // true when row(source) equals the result of Dijkstra
+    boolean exact(int source) {
+        long[] all = reach[LEVELS - 1];
+        int row = source * words;
+        for (int w = 0; w < words; w++) {
+            if ((all[row + w] & payloadVertices[w]) != 0) return false;
+        }
+        return true;
+    }
+
+    LV[] row(int source) {
+        assert exact(source);
+        LV[] result = new LV[n];
+        int row = source * words;
+        for (int t = 0; t < n; t++) {
+            if (get(reach[0], row, t)) {
+                result[t] = LINK_STATICALLY_ASSIGNED;
+            } else if (get(reach[1], row, t)) {
+                result[t] = LINK_ASSIGNED;
+            } else if (get(reach[2], row, t)) {
+                result[t] = dependent;
+            } else if (get(reach[3], row, t)) {
+                result[t] = commonHC;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.language.cst.api.variable.Variable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/*
+Orders the vertices of a link graph independently of the names of the variables, so that structurally identical
+graphs of different methods produce the same cache key.
+
+Vertices are colored by color refinement (1-dimensional Weisfeiler-Leman): the initial color of a vertex is derived
+from its degree and the labels of its edges; in every round, a vertex's new color combines its current color
+with the multiset of (edge label, color of the neighbor) pairs. Refinement stops when the number of color classes
+no longer grows. Vertices are then sorted by color; ties are broken on the reverse fully qualified name.
+
+Correctness does not depend on the quality of the ordering: the cache key hashes the complete adjacency in the
+chosen order, so two graphs only share a cache entry when they are identical in that order. A poor ordering
+merely reduces the number of hits.
+ */
+class CanonicalOrder {
+
+    private CanonicalOrder() {
+    }
+
+    static Variable[] sort(Collection<Variable> vertices, Function<Variable, Map<Variable, LV>> dependsOn) {
+        int n = vertices.size();
+        Variable[] variables = vertices.toArray(new Variable[0]);
+        if (n <= 1) return variables;
+        Map<Variable, Integer> index = new HashMap<>(2 * n);
+        for (int i = 0; i < n; i++) index.put(variables[i], i);
+
+        int[] offsets = new int[n + 1];
+        int edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            Map<Variable, LV> map = dependsOn.apply(variables[i]);
+            edgeCount += map == null ? 0 : map.size();
+        }
+        int[] targets = new int[edgeCount];
+        long[] labels = new long[edgeCount];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = e;
+            Map<Variable, LV> map = dependsOn.apply(variables[i]);
+            if (map != null) {
+                for (Map.Entry<Variable, LV> entry : map.entrySet()) {
+                    targets[e] = index.get(entry.getKey());
+                    labels[e] = labelCode(entry.getValue());
+                    ++e;
+                }
+            }
+        }
+        offsets[n] = e;
+
+        long[] color = new long[n];
+        long[] scratch = new long[8];
+        for (int i = 0; i < n; i++) {
+            int degree = offsets[i + 1] - offsets[i];
+            if (degree > scratch.length) scratch = new long[degree];
+            System.arraycopy(labels, offsets[i], scratch, 0, degree);
+            color[i] = combine(degree, scratch, degree);
+        }
+        int classes = countDistinct(color);
+        long[] newColor = new long[n];
+        for (int round = 0; round < n && classes < n; round++) {
+            for (int i = 0; i < n; i++) {
+                int degree = offsets[i + 1] - offsets[i];
+                for (int k = 0; k < degree; k++) {
+                    int edge = offsets[i] + k;
+                    scratch[k] = mix(labels[edge] * 0x9e3779b97f4a7c15L + color[targets[edge]]);
+                }
+                newColor[i] = combine(color[i], scratch, degree);
+            }
+            int newClasses = countDistinct(newColor);
+            long[] tmp = color;
+            color = newColor;
+            newColor = tmp;
+            if (newClasses <= classes) break;
+            classes = newClasses;
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        long[] finalColor = color;
+        Arrays.sort(order, (i1, i2) -> {
+            int c = Long.compare(finalColor[i1], finalColor[i2]);
+            if (c != 0) return c;
+            return WeightedGraphImpl.REVERSE_FQN_COMPARATOR.compare(variables[i1], variables[i2]);
+        });
+        Variable[] result = new Variable[n];
+        for (int i = 0; i < n; i++) result[i] = variables[order[i]];
+        return result;
+    }
+
+    // both delay values map onto the same code, as in the cache key
+    private static long labelCode(LV lv) {
+        if (lv.isDelayed()) return -1L;
+        if (lv.haveLinks()) return 31L * lv.value() + lv.label().hashCode();
+        return lv.value();
+    }
+
+    // order-independent: the values are sorted first
+    private static long combine(long seed, long[] values, int count) {
+        Arrays.sort(values, 0, count);
+        long h = mix(seed);
+        for (int k = 0; k < count; k++) {
+            h = mix(h * 31 + values[k]);
+        }
+        return h;
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static int countDistinct(long[] values) {
+        long[] copy = values.clone();
+        Arrays.sort(copy);
+        int count = 1;
+        for (int i = 1; i < copy.length; i++) {
+            if (copy[i] != copy[i - 1]) ++count;
+        }
+        return count;
+    }
+}
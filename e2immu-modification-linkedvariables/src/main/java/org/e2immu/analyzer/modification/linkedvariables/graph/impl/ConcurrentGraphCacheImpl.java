@@ -0,0 +1,183 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.util.internal.graph.util.TimedLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/*
+Thread-safe alternative to GraphCacheImpl.
+
+Lookups do not lock. On a miss, the element is computed outside any lock, by the thread that registered the
+computation first; other threads asking for the same hash wait for that computation rather than repeating it.
+
+The cache is bounded by the sum of the weights of its elements, rather than by their number. Because the weight
+of a LinkMap grows after it has been inserted (rows are added lazily), the weights are re-estimated in a sweep,
+which runs every SWEEP_INTERVAL misses, or as soon as the running estimate exceeds the bound. Sweeps evict the
+least recently accessed elements until the total weight is below 3/4 of the bound. Only one thread sweeps at a time;
+others do not wait for it.
+ */
+public class ConcurrentGraphCacheImpl implements Cache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentGraphCacheImpl.class);
+
+    public static final long DEFAULT_MAX_WEIGHT = 16L << 20;
+    private static final int SWEEP_INTERVAL = 64;
+
+    private static class Entry {
+        final CompletableFuture<CacheElement> future = new CompletableFuture<>();
+        volatile long lastAccess;
+
+        Entry(long lastAccess) {
+            this.lastAccess = lastAccess;
+        }
+
+        // only for elements that have been computed successfully
+        CacheElement elementOrNull() {
+            return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+        }
+    }
+
+    private final ConcurrentHashMap<Hash, Entry> cache = new ConcurrentHashMap<>();
+    private final long maxWeight;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong missesSinceSweep = new AtomicLong();
+    private final LongAdder estimatedWeight = new LongAdder();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder sumSavings = new LongAdder();
+
+    private final TimedLogger timedLogger = new TimedLogger(LOGGER, 1000L);
+
+    public ConcurrentGraphCacheImpl() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    public ConcurrentGraphCacheImpl(long maxWeight) {
+        assert maxWeight > 0;
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public Hash createHash(String string) {
+        return new StructuralHashBuilder().add(string).build();
+    }
+
+    @Override
+    public HashBuilder newHashBuilder() {
+        return new StructuralHashBuilder();
+    }
+
+    @Override
+    public CacheElement computeIfAbsent(Hash hash, Function<Hash, CacheElement> elementSupplier) {
+        timedLogger.info("Graph cache {} hits, {} misses, {} evictions, {} savings from evicted, weight {}",
+                hits, misses, evictions, sumSavings, estimatedWeight);
+        long now = clock.incrementAndGet();
+        Entry entry = cache.get(hash);
+        if (entry == null) {
+            Entry newEntry = new Entry(now);
+            Entry inCache = cache.putIfAbsent(hash, newEntry);
+            if (inCache == null) {
+                misses.increment();
+                return compute(hash, newEntry, elementSupplier);
+            }
+            entry = inCache;
+        }
+        hits.increment();
+        entry.lastAccess = now;
+        return entry.future.join();
+    }
+
+    private CacheElement compute(Hash hash, Entry entry, Function<Hash, CacheElement> elementSupplier) {
+        CacheElement element;
+        try {
+            element = elementSupplier.apply(hash);
+        } catch (RuntimeException | Error e) {
+            cache.remove(hash, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        entry.future.complete(element);
+        estimatedWeight.add(element.weight());
+        if (missesSinceSweep.incrementAndGet() >= SWEEP_INTERVAL || estimatedWeight.sum() > maxWeight) {
+            sweep();
+        }
+        return element;
+    }
+
+    private void sweep() {
+        if (!sweepLock.tryLock()) return;
+        try {
+            missesSinceSweep.set(0);
+            List<Map.Entry<Hash, Entry>> computed = new ArrayList<>(cache.size());
+            long total = 0L;
+            for (Map.Entry<Hash, Entry> e : cache.entrySet()) {
+                CacheElement element = e.getValue().elementOrNull();
+                if (element != null) {
+                    total += element.weight();
+                    computed.add(e);
+                }
+            }
+            if (total > maxWeight) {
+                long target = maxWeight - maxWeight / 4;
+                computed.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+                for (Map.Entry<Hash, Entry> e : computed) {
+                    if (total <= target) break;
+                    Entry entry = e.getValue();
+                    if (cache.remove(e.getKey(), entry)) {
+                        CacheElement element = entry.future.join();
+                        total -= element.weight();
+                        evictions.increment();
+                        sumSavings.add(element.savings());
+                    }
+                }
+            }
+            estimatedWeight.reset();
+            estimatedWeight.add(total);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getSumSavings() {
+        return sumSavings.sum();
+    }
+
+    // as of the last sweep, plus the initial weights of the elements added since
+    public long getEstimatedWeight() {
+        return estimatedWeight.sum();
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,162 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.prepwork.variable.Links;
+import org.e2immu.util.internal.graph.op.DijkstraShortestPath;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl.NO_LINKS;
+
+/*
+Dijkstra's algorithm directly on the arrays of a CsrGraph, with an indexed binary min-heap on primitive arrays.
+Apart from the result arrays and the heap, nothing is allocated per edge.
+
+The semantics follow DijkstraShortestPath: the Links payload of an edge decides, via next(), whether the edge
+may be followed given the connection accumulated so far, and what the new connection is. A shorter distance
+replaces the connection, an equal distance merges it.
+ */
+class CsrDijkstra {
+    private final CsrGraph graph;
+    private final Function<Integer, String> nodePrinter;
+
+    CsrDijkstra(CsrGraph graph, Function<Integer, String> nodePrinter) {
+        this.graph = graph;
+        this.nodePrinter = nodePrinter;
+    }
+
+    /*
+    Edges with a distance strictly larger than maxWeight are ignored; use Long.MAX_VALUE to follow all edges.
+    On return, dist[i] is Long.MAX_VALUE when i cannot be reached, and connection[i] is null.
+     */
+    void shortestPath(int source, long maxWeight, long[] dist, Links[] connection) {
+        int n = graph.vertices();
+        assert dist.length == n && connection.length == n;
+        Arrays.fill(dist, Long.MAX_VALUE);
+        Arrays.fill(connection, null);
+        dist[source] = 0L;
+        connection[source] = NO_LINKS;
+
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long[] distances = graph.distances();
+        Links[] payloads = graph.payloads();
+
+        IntMinHeap heap = new IntMinHeap(n, dist);
+        heap.insert(source);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            long du = dist[u];
+            Links cu = connection[u];
+            for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                long w = distances[e];
+                if (w > maxWeight) continue;
+                int v = targets[e];
+                if (heap.isSettled(v)) continue; // all weights are strictly positive
+                DijkstraShortestPath.Accept accept = payloads[e].next(nodePrinter, u, v, cu);
+                if (!accept.accept()) continue;
+                Links next = accept.next() == null ? NO_LINKS : (Links) accept.next();
+                long alt = du + w;
+                long dv = dist[v];
+                if (alt < dv) {
+                    dist[v] = alt;
+                    connection[v] = next;
+                    if (dv == Long.MAX_VALUE) {
+                        heap.insert(v);
+                    } else {
+                        heap.decrease(v);
+                    }
+                } else if (alt == dv && connection[v] != next) {
+                    connection[v] = (Links) connection[v].merge(next);
+                }
+            }
+        }
+    }
+
+    /*
+    Binary min-heap of vertex indices, keyed on the (externally owned) dist array.
+    position[v] is the index of v in the heap, -1 when not yet inserted, and -2 once polled.
+     */
+    static class IntMinHeap {
+        private static final int NOT_INSERTED = -1;
+        private static final int SETTLED = -2;
+
+        private final int[] heap;
+        private final int[] position;
+        private final long[] key;
+        private int size;
+
+        IntMinHeap(int n, long[] key) {
+            this.heap = new int[Math.max(1, n)];
+            this.position = new int[Math.max(1, n)];
+            Arrays.fill(position, NOT_INSERTED);
+            this.key = key;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean isSettled(int v) {
+            return position[v] == SETTLED;
+        }
+
+        void insert(int v) {
+            assert position[v] == NOT_INSERTED;
+            heap[size] = v;
+            position[v] = size;
+            siftUp(size++);
+        }
+
+        // to be called after key[v] has been lowered
+        void decrease(int v) {
+            assert position[v] >= 0;
+            siftUp(position[v]);
+        }
+
+        int poll() {
+            int top = heap[0];
+            position[top] = SETTLED;
+            int last = heap[--size];
+            if (size > 0) {
+                heap[0] = last;
+                position[last] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int i) {
+            int v = heap[i];
+            long k = key[v];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                int p = heap[parent];
+                if (key[p] <= k) break;
+                heap[i] = p;
+                position[p] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+
+        private void siftDown(int i) {
+            int v = heap[i];
+            long k = key[v];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && key[heap[right]] < key[heap[child]]) child = right;
+                int c = heap[child];
+                if (k <= key[c]) break;
+                heap[i] = c;
+                position[c] = i;
+                i = child;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+    }
+}
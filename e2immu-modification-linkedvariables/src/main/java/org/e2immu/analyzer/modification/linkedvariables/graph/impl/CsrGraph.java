@@ -0,0 +1,84 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.prepwork.variable.Links;
+
+import java.util.Arrays;
+
+/*
+Compressed sparse row representation of the edges of a weighted graph, built once per call to
+WeightedGraphImpl.shortestPath(). The edges of vertex i are at positions offsets[i] (inclusive) to
+offsets[i+1] (exclusive) of the targets, distances and payloads arrays.
+
+The distances are the components computed by ShortestPathImpl.toDistanceComponent().
+ */
+record CsrGraph(int[] offsets, int[] targets, long[] distances, Links[] payloads) {
+
+    CsrGraph {
+        assert offsets.length > 0 && offsets[0] == 0;
+        assert targets.length == offsets[offsets.length - 1];
+        assert distances.length == targets.length && payloads.length == targets.length;
+    }
+
+    int vertices() {
+        return offsets.length - 1;
+    }
+
+    int edges() {
+        return targets.length;
+    }
+
+    static class Builder {
+        private final int[] offsets;
+        private int[] targets;
+        private long[] distances;
+        private Links[] payloads;
+        private int vertex;
+        private int edge;
+
+        Builder(int vertices, int expectedEdges) {
+            offsets = new int[vertices + 1];
+            int capacity = Math.max(4, expectedEdges);
+            targets = new int[capacity];
+            distances = new long[capacity];
+            payloads = new Links[capacity];
+        }
+
+        /*
+        vertices must be started in increasing order, without gaps; all edges added after startVertex(i)
+        belong to vertex i.
+         */
+        Builder startVertex(int i) {
+            assert i == vertex : "Vertices must be added in order";
+            offsets[i] = edge;
+            vertex = i + 1;
+            return this;
+        }
+
+        Builder addEdge(int target, long distance, Links payload) {
+            assert vertex > 0 : "No vertex started";
+            if (edge == targets.length) {
+                int newCapacity = targets.length * 2;
+                targets = Arrays.copyOf(targets, newCapacity);
+                distances = Arrays.copyOf(distances, newCapacity);
+                payloads = Arrays.copyOf(payloads, newCapacity);
+            }
+            targets[edge] = target;
+            distances[edge] = distance;
+            payloads[edge] = payload;
+            ++edge;
+            return this;
+        }
+
+        CsrGraph build() {
+            while (vertex < offsets.length - 1) {
+                offsets[vertex++] = edge;
+            }
+            offsets[offsets.length - 1] = edge;
+            if (edge == targets.length) {
+                return new CsrGraph(offsets, targets, distances, payloads);
+            }
+            return new CsrGraph(offsets, Arrays.copyOf(targets, edge),
+                    Arrays.copyOf(distances, edge), Arrays.copyOf(payloads, edge));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.e2immu.util.internal.graph.util.TimedLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.LinkedHashMap;
@@ -15,7 +16,14 @@ public class GraphCacheImpl implements Cache {
     private static final Logger LOGGER = LoggerFactory.getLogger(GraphCacheImpl.class);
 
     private final LinkedHashMap<Hash, CacheElement> cache;
-    private final MessageDigest md;
+    // one digest per thread, so that parallel analysis does not serialize on hashing
+    private static final ThreadLocal<MessageDigest> MD = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
     private final int maxSize;
     private int hits;
     private int misses;
@@ -25,11 +33,6 @@ public class GraphCacheImpl implements Cache {
     private final TimedLogger timedLogger = new TimedLogger(LOGGER, 1000L);
 
     public GraphCacheImpl(int maxSize) {
-        try {
-            md = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
         this.maxSize = maxSize;
         // LRU-cache
         cache = new LinkedHashMap<>(maxSize / 2, 0.75f, true) {
@@ -45,13 +48,18 @@ public class GraphCacheImpl implements Cache {
         };
     }
 
+    @Override
     public Hash createHash(String string) {
-        synchronized (md) {
-            md.reset();
-            md.update(string.getBytes());
-            byte[] digest = md.digest();
-            return new Hash(digest);
-        }
+        MessageDigest md = MD.get();
+        md.reset();
+        md.update(string.getBytes(StandardCharsets.UTF_8));
+        byte[] digest = md.digest();
+        return new Hash(digest);
+    }
+
+    @Override
+    public HashBuilder newHashBuilder() {
+        return new StructuralHashBuilder();
     }
 
     @Override
@@ -0,0 +1,49 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.language.cst.api.variable.Variable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+The rows may be shared with the graph cache; they must not be modified.
+ */
+record LinkMatrixImpl(Variable[] variables, Map<Variable, Integer> variableIndex,
+                      LV[][] rows) implements ShortestPath.LinkMatrix {
+
+    @Override
+    public int size() {
+        return variables.length;
+    }
+
+    @Override
+    public Variable variable(int i) {
+        return variables[i];
+    }
+
+    @Override
+    public int indexOf(Variable v) {
+        Integer i = variableIndex.get(v);
+        return i == null ? -1 : i;
+    }
+
+    @Override
+    public LV get(int from, int to) {
+        return rows[from][to];
+    }
+
+    @Override
+    public Map<Variable, LV> linksWithoutSelf(int from) {
+        LV[] row = rows[from];
+        Map<Variable, LV> result = new HashMap<>();
+        for (int j = 0; j < row.length; j++) {
+            LV lv = row[j];
+            if (lv != null && j != from) {
+                result.put(variables[j], lv);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.prepwork.variable.Link;
+import org.e2immu.analyzer.modification.prepwork.variable.Links;
+
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import static org.e2immu.analyzer.modification.linkedvariables.graph.impl.ShortestPathImpl.COMMON_HC;
+import static org.e2immu.analyzer.modification.linkedvariables.graph.impl.ShortestPathImpl.DEPENDENT;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl.NO_LINKS;
+
+/*
+Propagation of modification over a link graph, without copying it.
+
+A view on the CsrGraph of a ShortestPathImpl only follows the edges that propagate modification: -0-, -1- and -2-,
+and not when the other side contains all (LV.theirsContainsAll()). On that view, a variable t is modified by a
+source s when the shortest distance from s to t is below COMMON_HC; as long as the edges carry no Links, that is
+plain reachability, which we compute breadth-first. Once a source can reach an edge with a Links payload,
+Links.next() may reject edges, and we fall back to Dijkstra on a filtered copy of the graph, created on demand.
+
+Any vertex fully explored by a breadth-first search from an earlier source, has a reach contained in that of the
+source; there is no need to explore it again. The whole propagation is therefore linear in the number of edges,
+unless Dijkstra is needed.
+ */
+class ModificationReach {
+    private final CsrGraph graph;
+    private final Function<Integer, String> nodePrinter;
+    private final boolean[] usable;
+    private CsrDijkstra dijkstra;
+
+    ModificationReach(CsrGraph graph, Function<Integer, String> nodePrinter) {
+        this.graph = graph;
+        this.nodePrinter = nodePrinter;
+        long[] distances = graph.distances();
+        Links[] payloads = graph.payloads();
+        usable = new boolean[graph.edges()];
+        for (int e = 0; e < usable.length; e++) {
+            usable[e] = distances[e] <= DEPENDENT && !theirsContainsAll(payloads[e]);
+        }
+    }
+
+    // equivalent to LV.theirsContainsAll()
+    private static boolean theirsContainsAll(Links links) {
+        for (Link link : links.map().values()) {
+            if (link.to().isAll()) return true;
+        }
+        return false;
+    }
+
+    /*
+    On entry, 'modified' holds the sources; on exit, also all vertices reachable from them, recursively, as long as
+    'accept' holds for them. Vertices that are not accepted can be passed through, but are not sources themselves.
+     */
+    void propagate(boolean[] modified, IntPredicate accept) {
+        int n = graph.vertices();
+        int[] worklist = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (modified[i]) worklist[size++] = i;
+        }
+        boolean[] explored = new boolean[n];
+        int[] stamp = new int[n];
+        int[] queue = new int[n];
+        long[] dist = null;
+        Links[] connection = null;
+        int epoch = 0;
+        while (size > 0) {
+            int source = worklist[--size];
+            if (explored[source]) continue;
+            ++epoch;
+            int reached = breadthFirst(source, epoch, stamp, explored, queue);
+            if (reached >= 0) {
+                for (int k = 0; k < reached; k++) {
+                    int t = queue[k];
+                    explored[t] = true;
+                    if (!modified[t] && accept.test(t)) {
+                        modified[t] = true;
+                        worklist[size++] = t;
+                    }
+                }
+            } else {
+                if (dist == null) {
+                    dist = new long[n];
+                    connection = new Links[n];
+                }
+                dijkstra().shortestPath(source, DEPENDENT, dist, connection);
+                for (int t = 0; t < n; t++) {
+                    if (dist[t] < COMMON_HC && !modified[t] && accept.test(t)) {
+                        modified[t] = true;
+                        worklist[size++] = t;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+    Returns the number of vertices reached, which are in queue[0..result[; -1 when an edge with Links was found.
+    Explored vertices are not expanded: their reach has been added before.
+     */
+    private int breadthFirst(int source, int epoch, int[] stamp, boolean[] explored, int[] queue) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        Links[] payloads = graph.payloads();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        stamp[source] = epoch;
+        while (head < tail) {
+            int u = queue[head++];
+            if (explored[u]) continue;
+            for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                if (!usable[e]) continue;
+                if (payloads[e] != NO_LINKS) return -1;
+                int v = targets[e];
+                if (stamp[v] != epoch) {
+                    stamp[v] = epoch;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return tail;
+    }
+
+    private CsrDijkstra dijkstra() {
+        if (dijkstra == null) {
+            int n = graph.vertices();
+            int[] offsets = graph.offsets();
+            int[] targets = graph.targets();
+            long[] distances = graph.distances();
+            Links[] payloads = graph.payloads();
+            CsrGraph.Builder builder = new CsrGraph.Builder(n, graph.edges());
+            for (int u = 0; u < n; u++) {
+                builder.startVertex(u);
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    if (usable[e]) builder.addEdge(targets[e], distances[e], payloads[e]);
+                }
+            }
+            dijkstra = new CsrDijkstra(builder.build(), nodePrinter);
+        }
+        return dijkstra;
+    }
+}
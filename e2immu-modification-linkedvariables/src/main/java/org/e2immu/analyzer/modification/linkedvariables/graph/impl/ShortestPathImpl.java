@@ -6,34 +6,35 @@ import org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl;
 import org.e2immu.analyzer.modification.prepwork.variable.LV;
 import org.e2immu.analyzer.modification.prepwork.variable.Links;
 import org.e2immu.language.cst.api.variable.Variable;
-import org.e2immu.util.internal.graph.op.DijkstraShortestPath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Stream;
+import java.util.function.Predicate;
 
 import static org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl.*;
-import static org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl.NO_LINKS;
 
 public class ShortestPathImpl implements ShortestPath {
     private static final Logger LOGGER = LoggerFactory.getLogger("graph-algorithm");
 
     private final Map<Variable, Integer> variableIndex;
     private final Variable[] variables;
-    private final Map<Integer, Map<Integer, DijkstraShortestPath.DCP>> edges;
-    private final DijkstraShortestPath dijkstraShortestPath;
+    private final CsrGraph graph;
+    private final CsrDijkstra dijkstra;
     private final LinkMap linkMap;
+    private final int bitsetThreshold;
 
     ShortestPathImpl(Map<Variable, Integer> variableIndex,
                      Variable[] variables,
-                     Map<Integer, Map<Integer, DijkstraShortestPath.DCP>> edges,
-                     LinkMap linkMap) {
+                     CsrGraph graph,
+                     LinkMap linkMap,
+                     int bitsetThreshold) {
+        this.bitsetThreshold = bitsetThreshold;
         this.variables = variables;
-        this.edges = edges;
+        this.graph = graph;
         this.variableIndex = variableIndex;
-        dijkstraShortestPath = new DijkstraShortestPath(NO_LINKS, this::nodePrinter, ShortestPathImpl::distancePrinter);
+        dijkstra = new CsrDijkstra(graph, this::nodePrinter);
         this.linkMap = linkMap;
     }
 
@@ -73,12 +74,10 @@ public class ShortestPathImpl implements ShortestPath {
     }
 
     // used to produce the result.
-    public static LV fromDistanceSum(DijkstraShortestPath.DC dc) {
-        long l = dc.dist();
+    public static LV fromDistanceSum(long l, Links links) {
         if (l == Long.MAX_VALUE) return null; // no link
         if (l < ASSIGNED) return LINK_STATICALLY_ASSIGNED;
         if (l < DEPENDENT) return LINK_ASSIGNED;
-        Links links = (Links) dc.connection();
         if (l < COMMON_HC) {
             return LVImpl.createDependent(links);
         }
@@ -88,11 +87,23 @@ public class ShortestPathImpl implements ShortestPath {
     record Key(int start, long maxWeight) {
     }
 
-    record LinkMap(Map<Key, LV[]> map, AtomicInteger savingsCount, String cacheKey) implements Cache.CacheElement {
+    /*
+    The map is filled lazily, by links(); it must be thread-safe, because cache elements can be shared.
+     */
+    record LinkMap(Map<Key, LV[]> map, AtomicInteger savingsCount, String cacheKey, int n) implements Cache.CacheElement {
+        private static final long ENTRY_OVERHEAD = 128L;
+        private static final long ROW_OVERHEAD = 48L;
+        private static final long REFERENCE_SIZE = 4L;
+
         @Override
         public int savings() {
             return savingsCount.get();
         }
+
+        @Override
+        public long weight() {
+            return ENTRY_OVERHEAD + map.size() * (ROW_OVERHEAD + n * REFERENCE_SIZE);
+        }
     }
 
 
@@ -112,7 +123,9 @@ public class ShortestPathImpl implements ShortestPath {
             shortest = inMap;
             linkMap.savingsCount.incrementAndGet();
         } else {
-            shortest = computeDijkstra(startVertex, maxWeight, maxWeightLong);
+            int n = variables.length;
+            shortest = computeDijkstra(startVertex, maxWeight == null ? Long.MAX_VALUE : maxWeightLong,
+                    new long[n], new Links[n]);
             linkMap.map.put(key, shortest);
             linkMap.savingsCount.decrementAndGet();
         }
@@ -126,30 +139,119 @@ public class ShortestPathImpl implements ShortestPath {
         return result;
     }
 
-    private LV[] computeDijkstra(int startVertex, LV maxWeight, long maxWeightLong) {
-        DijkstraShortestPath.EdgeProvider edgeProvider = i -> {
-            Map<Integer, DijkstraShortestPath.DCP> edgeMap = edges.get(i);
-            if (edgeMap == null) return Stream.of();
-            return edgeMap.entrySet().stream()
-                    .filter(e -> maxWeight == null || e.getValue().dist() <= maxWeightLong);
-        };
-        DijkstraShortestPath.DC[] shortestDC = dijkstraShortestPath.shortestPathDC(variables.length, edgeProvider,
-                startVertex);
-
-        LV[] shortest = new LV[shortestDC.length];
-        for (int i = 0; i < shortest.length; i++) {
-            LV v;
-            long l = shortestDC[i].dist();
-            if (l == Long.MAX_VALUE) {
-                v = null;
-            } else {
-                v = fromDistanceSum(shortestDC[i]);
+    /*
+    One pass over all sources, sharing the scratch arrays, and without building a map per source.
+    Rows already in the cache are reused; missing ones are added.
+
+    For graphs with at most bitsetThreshold vertices, rows are computed from a BitsetClosure whenever that is exact,
+    i.e., when no edge carrying Links can be reached from the source. The others go through Dijkstra.
+
+    Note that we cannot condense the graph (e.g., strongly connected components of -0- and -1- edges) and propagate
+    over the condensation: Links.next() decides whether an edge can be followed depending on the connection
+    accumulated so far, so the result of a source is not a function of the results of its neighbours.
+     */
+    @Override
+    public LinkMatrix allLinks() {
+        return allLinks(null, null);
+    }
+
+    /*
+    Rows of variables that are not in 'affected' are copied from 'previous', after translating the indices.
+    See WeightedGraphImpl.allLinks(WeightedGraph, LinkMatrix).
+     */
+    LinkMatrix allLinks(LinkMatrix previous, Set<Variable> affected) {
+        int n = variables.length;
+        LV[][] rows = new LV[n][];
+        long[] dist = null;
+        Links[] connection = null;
+        BitsetClosure closure = null;
+        int[] toPrevious = null;
+        int byDijkstra = 0;
+        int byClosure = 0;
+        int byPrevious = 0;
+        for (int i = 0; i < n; i++) {
+            Key key = new Key(i, 0L);
+            LV[] row = linkMap.map.get(key);
+            if (row == null && previous != null && !affected.contains(variables[i])) {
+                if (toPrevious == null) {
+                    toPrevious = new int[n];
+                    for (int j = 0; j < n; j++) toPrevious[j] = previous.indexOf(variables[j]);
+                }
+                row = copyRow(previous, toPrevious, i);
+                if (row != null) {
+                    linkMap.map.put(key, row);
+                    ++byPrevious;
+                }
             }
-            shortest[i] = v;
+            if (row == null) {
+                if (closure == null && n <= bitsetThreshold) {
+                    closure = new BitsetClosure(graph);
+                }
+                if (closure != null && closure.exact(i)) {
+                    row = closure.row(i);
+                    ++byClosure;
+                } else {
+                    if (dist == null) {
+                        dist = new long[n];
+                        connection = new Links[n];
+                    }
+                    row = computeDijkstra(i, Long.MAX_VALUE, dist, connection);
+                    ++byDijkstra;
+                }
+                linkMap.map.put(key, row);
+            }
+            rows[i] = row;
+        }
+        int computed = byClosure + byDijkstra;
+        linkMap.savingsCount.addAndGet(n - 2 * computed);
+        LOGGER.debug("All links, n={}: {} rows from cache, {} from previous, {} by bitset closure, {} by Dijkstra",
+                n, n - computed - byPrevious, byPrevious, byClosure, byDijkstra);
+        return new LinkMatrixImpl(variables, variableIndex, rows);
+    }
+
+    private static LV[] copyRow(LinkMatrix previous, int[] toPrevious, int i) {
+        int from = toPrevious[i];
+        if (from < 0) return null;
+        LV[] row = new LV[toPrevious.length];
+        for (int j = 0; j < toPrevious.length; j++) {
+            int to = toPrevious[j];
+            if (to >= 0) row[j] = previous.get(from, to);
+        }
+        return row;
+    }
+
+    private LV[] computeDijkstra(int startVertex, long maxWeight, long[] dist, Links[] connection) {
+        int n = variables.length;
+        dijkstra.shortestPath(startVertex, maxWeight, dist, connection);
+
+        LV[] shortest = new LV[n];
+        for (int i = 0; i < n; i++) {
+            shortest[i] = fromDistanceSum(dist[i], connection[i]);
         }
         return shortest;
     }
 
+    @Override
+    public Set<Variable> propagateModification(Set<Variable> sources, Predicate<Variable> accept) {
+        Set<Variable> result = new HashSet<>(sources);
+        boolean[] modified = new boolean[variables.length];
+        boolean inGraph = false;
+        for (Variable source : sources) {
+            Integer i = variableIndex.get(source);
+            if (i != null) {
+                modified[i] = true;
+                inGraph = true;
+            }
+        }
+        if (inGraph) {
+            new ModificationReach(graph, this::nodePrinter).propagate(modified, i -> accept.test(variables[i]));
+            for (int i = 0; i < modified.length; i++) {
+                if (modified[i]) result.add(variables[i]);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Set<Variable> variables() {
         return variableIndex.keySet();
@@ -161,6 +263,10 @@ public class ShortestPathImpl implements ShortestPath {
         return variables[i];
     }
 
+    CsrGraph graph() {
+        return graph;
+    }
+
     public String getCacheKey() {
         return linkMap.cacheKey;
     }
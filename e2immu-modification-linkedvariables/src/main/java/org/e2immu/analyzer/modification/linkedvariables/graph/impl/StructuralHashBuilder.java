@@ -0,0 +1,125 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+
+/*
+Non-cryptographic 128-bit hash, fed incrementally. The mixing follows the body and finalization steps of
+MurmurHash3 (x64, 128-bit variant), with 64-bit blocks instead of bytes.
+Not thread-safe; create one per hash.
+ */
+public class StructuralHashBuilder implements Cache.HashBuilder {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    private long pending;
+    private boolean havePending;
+    private long blocks;
+
+    public StructuralHashBuilder() {
+        this(0L);
+    }
+
+    public StructuralHashBuilder(long seed) {
+        h1 = seed;
+        h2 = seed;
+    }
+
+    @Override
+    public StructuralHashBuilder add(int value) {
+        return addLong(value);
+    }
+
+    /*
+    the length is part of the hash, so that consecutive strings cannot be confused with each other
+     */
+    @Override
+    public StructuralHashBuilder add(CharSequence charSequence) {
+        int length = charSequence.length();
+        addLong(length);
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            addLong(charSequence.charAt(i)
+                    | (long) charSequence.charAt(i + 1) << 16
+                    | (long) charSequence.charAt(i + 2) << 32
+                    | (long) charSequence.charAt(i + 3) << 48);
+        }
+        if (i < length) {
+            long rest = 0L;
+            for (int shift = 0; i < length; i++, shift += 16) {
+                rest |= (long) charSequence.charAt(i) << shift;
+            }
+            addLong(rest);
+        }
+        return this;
+    }
+
+    public StructuralHashBuilder addLong(long value) {
+        if (havePending) {
+            mix(pending, value);
+            havePending = false;
+        } else {
+            pending = value;
+            havePending = true;
+        }
+        return this;
+    }
+
+    private void mix(long k1, long k2) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+        blocks++;
+    }
+
+    @Override
+    public Cache.Hash build() {
+        long f1 = h1;
+        long f2 = h2;
+        long length = blocks * 2;
+        if (havePending) {
+            long k1 = pending;
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            f1 ^= k1;
+            length++;
+        }
+        f1 ^= length;
+        f2 ^= length;
+        f1 += f2;
+        f2 += f1;
+        f1 = fmix64(f1);
+        f2 = fmix64(f2);
+        f1 += f2;
+        f2 += f1;
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (f1 >>> (8 * i));
+            bytes[i + 8] = (byte) (f2 >>> (8 * i));
+        }
+        return new Cache.Hash(bytes);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
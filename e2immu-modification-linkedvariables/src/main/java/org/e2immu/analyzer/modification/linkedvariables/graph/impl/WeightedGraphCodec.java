@@ -0,0 +1,227 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinkImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl;
+import org.e2immu.analyzer.modification.prepwork.delay.CausesOfDelay;
+import org.e2immu.analyzer.modification.prepwork.hcs.IndexImpl;
+import org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl;
+import org.e2immu.analyzer.modification.prepwork.variable.Index;
+import org.e2immu.analyzer.modification.prepwork.variable.Indices;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.analyzer.modification.prepwork.variable.Link;
+import org.e2immu.analyzer.modification.prepwork.variable.Links;
+import org.e2immu.language.cst.api.element.CompilationUnit;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.cst.api.runtime.Runtime;
+import org.e2immu.language.cst.api.type.ParameterizedType;
+import org.e2immu.language.cst.api.variable.Variable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl.NO_LINKS;
+
+/*
+Line-based text format for link graphs, so that graphs of real analysis runs can be stored, and loaded again
+without the sources or a JavaInspector: for benchmarking and for reproducing slow statements.
+
+    graph <name>
+    v <fully qualified name>        vertex i is the i-th 'v' line of the graph
+    e <i> <j> <lv>                  i depends on j
+    end
+
+The graph is written as seen by WeightedGraph.visit(), and restored edge by edge (see WeightedGraphImpl.restoreNode),
+without adding the reverse edges again: the asymmetry of the return variable must be kept.
+Variables are restored as local variables named by their fully qualified name; the vertex order by name, and the
+structure of the graph, are therefore the same as in the original.
+
+LVs are written as the value ("D" for delays, "I" for the initial delay), followed, when there are links, by
+":<modification area source>:<modification area target>:<link>;<link>...", where a link is "<from>><to>",
+with an "M" suffix when it is mutable. Indices are separated by ",", the integers in an index by ".".
+ */
+public class WeightedGraphCodec {
+    private static final String GRAPH = "graph ";
+    private static final String VERTEX = "v ";
+    private static final String EDGE = "e ";
+    private static final String END = "end";
+
+    public record NamedGraph(String name, WeightedGraph graph) {
+    }
+
+    private final Runtime runtime;
+    private final ParameterizedType variableType;
+
+    public WeightedGraphCodec(Runtime runtime) {
+        this.runtime = runtime;
+        CompilationUnit compilationUnit = runtime.newCompilationUnitBuilder().setPackageName("replay").build();
+        TypeInfo typeInfo = runtime.newTypeInfo(compilationUnit, "V");
+        this.variableType = runtime.newParameterizedType(typeInfo, 0);
+    }
+
+    // -- writing
+
+    public static void write(String name, WeightedGraph graph, Writer writer) throws IOException {
+        assert name.indexOf('\n') < 0;
+        Map<Variable, Integer> index = new HashMap<>();
+        List<Variable> vertices = new ArrayList<>();
+        graph.visit((v, dependsOn) -> {
+            index.put(v, vertices.size());
+            vertices.add(v);
+        });
+        StringBuilder sb = new StringBuilder();
+        sb.append(GRAPH).append(name).append('\n');
+        for (Variable v : vertices) {
+            sb.append(VERTEX).append(v.fullyQualifiedName()).append('\n');
+        }
+        graph.visit((v, dependsOn) -> {
+            if (dependsOn != null) {
+                int from = index.get(v);
+                for (Map.Entry<Variable, LV> entry : dependsOn.entrySet()) {
+                    sb.append(EDGE).append(from).append(' ').append(index.get(entry.getKey())).append(' ');
+                    appendLv(sb, entry.getValue());
+                    sb.append('\n');
+                }
+            }
+        });
+        sb.append(END).append('\n');
+        writer.write(sb.toString());
+    }
+
+    static void appendLv(StringBuilder sb, LV lv) {
+        if (lv.isInitialDelay()) {
+            sb.append('I');
+        } else if (lv.isDelayed()) {
+            sb.append('D');
+        } else {
+            sb.append(lv.value());
+            Links links = lv.links();
+            if (links != null && links != NO_LINKS && !links.map().isEmpty()) {
+                sb.append(':');
+                appendIndices(sb, links.modificationAreaSource());
+                sb.append(':');
+                appendIndices(sb, links.modificationAreaTarget());
+                sb.append(':');
+                sb.append(links.map().entrySet().stream().sorted(Map.Entry.comparingByKey()).map(e -> {
+                    StringBuilder l = new StringBuilder();
+                    appendIndices(l, e.getKey());
+                    l.append('>');
+                    appendIndices(l, e.getValue().to());
+                    if (e.getValue().mutable()) l.append('M');
+                    return l;
+                }).collect(Collectors.joining(";")));
+            }
+        }
+    }
+
+    private static void appendIndices(StringBuilder sb, Indices indices) {
+        sb.append(indices.set().stream()
+                .map(index -> index.list().stream().map(Object::toString).collect(Collectors.joining(".")))
+                .collect(Collectors.joining(",")));
+    }
+
+    // -- reading
+
+    public List<NamedGraph> read(BufferedReader reader, Cache cache, boolean canonicalOrder) {
+        List<NamedGraph> result = new ArrayList<>();
+        try {
+            String line;
+            int lineNumber = 0;
+            String name = null;
+            List<Variable> vertices = null;
+            List<Map<Variable, LV>> edges = null;
+            while ((line = reader.readLine()) != null) {
+                ++lineNumber;
+                if (line.isBlank()) continue;
+                if (line.startsWith(GRAPH)) {
+                    name = line.substring(GRAPH.length());
+                    vertices = new ArrayList<>();
+                    edges = new ArrayList<>();
+                } else if (vertices == null) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected '" + GRAPH + "'");
+                } else if (line.startsWith(VERTEX)) {
+                    vertices.add(runtime.newLocalVariable(line.substring(VERTEX.length()), variableType));
+                    edges.add(new LinkedHashMap<>());
+                } else if (line.startsWith(EDGE)) {
+                    String[] parts = line.split(" ");
+                    if (parts.length != 4) {
+                        throw new IllegalArgumentException("Line " + lineNumber + ": cannot parse edge " + line);
+                    }
+                    int from = Integer.parseInt(parts[1]);
+                    int to = Integer.parseInt(parts[2]);
+                    edges.get(from).put(vertices.get(to), parseLv(parts[3]));
+                } else if (END.equals(line)) {
+                    WeightedGraphImpl graph = new WeightedGraphImpl(cache, canonicalOrder);
+                    // first all vertices, so that the order of visit() is the same as in the original
+                    for (Variable v : vertices) {
+                        graph.restoreNode(v, Map.of());
+                    }
+                    for (int i = 0; i < vertices.size(); i++) {
+                        graph.restoreNode(vertices.get(i), edges.get(i));
+                    }
+                    result.add(new NamedGraph(name, graph));
+                    vertices = null;
+                    edges = null;
+                } else {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": cannot parse " + line);
+                }
+            }
+            if (vertices != null) throw new IllegalArgumentException("Missing '" + END + "' for graph " + name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    static LV parseLv(String s) {
+        if ("I".equals(s)) return LVImpl.LINK_INITIAL_DELAY;
+        if ("D".equals(s)) return LVImpl.delay(CausesOfDelay.DELAY);
+        int colon = s.indexOf(':');
+        int value = Integer.parseInt(colon < 0 ? s : s.substring(0, colon));
+        if (colon < 0) {
+            return switch (value) {
+                case 0 -> LVImpl.LINK_STATICALLY_ASSIGNED;
+                case 1 -> LVImpl.LINK_ASSIGNED;
+                case 2 -> LVImpl.LINK_DEPENDENT;
+                case 4 -> LVImpl.LINK_COMMON_HC;
+                case 5 -> LVImpl.LINK_INDEPENDENT;
+                default -> throw new IllegalArgumentException("Unknown LV value " + value);
+            };
+        }
+        String[] parts = s.split(":", 4);
+        Indices modificationAreaSource = parseIndices(parts[1]);
+        Indices modificationAreaTarget = parseIndices(parts[2]);
+        Map<Indices, Link> map = new HashMap<>();
+        for (String link : parts[3].split(";")) {
+            int gt = link.indexOf('>');
+            boolean mutable = link.endsWith("M");
+            Indices to = parseIndices(link.substring(gt + 1, mutable ? link.length() - 1 : link.length()));
+            map.put(parseIndices(link.substring(0, gt)), new LinkImpl(to, mutable));
+        }
+        Links links = new LinksImpl(Map.copyOf(map), modificationAreaSource, modificationAreaTarget);
+        return switch (value) {
+            case 2 -> LVImpl.createDependent(links);
+            case 4 -> LVImpl.createHC(links);
+            default -> throw new IllegalArgumentException("Links on LV value " + value);
+        };
+    }
+
+    private static Indices parseIndices(String s) {
+        String[] parts = s.split(",");
+        Set<Index> set = parts.length == 1 ? null : new TreeSet<>();
+        Index single = null;
+        for (String part : parts) {
+            List<Integer> list = Arrays.stream(part.split("\\.")).map(Integer::parseInt).toList();
+            Index index = new IndexImpl(list);
+            if (set == null) single = index;
+            else set.add(index);
+        }
+        return new IndicesImpl(set == null ? Set.of(single) : set);
+    }
+}
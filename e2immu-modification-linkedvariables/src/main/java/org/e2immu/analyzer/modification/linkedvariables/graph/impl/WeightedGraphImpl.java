@@ -1,5 +1,6 @@
 package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
 
+import org.e2immu.analyzer.modification.common.jfr.ShortestPathEvent;
 import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
 import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
 import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
@@ -7,9 +8,11 @@ import org.e2immu.analyzer.modification.prepwork.variable.LV;
 import org.e2immu.analyzer.modification.prepwork.variable.ReturnVariable;
 import org.e2immu.language.cst.api.variable.Variable;
 import org.e2immu.support.Freezable;
-import org.e2immu.util.internal.graph.op.DijkstraShortestPath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -17,9 +20,16 @@ import java.util.stream.Collectors;
 import static org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl.LINK_INDEPENDENT;
 
 public class WeightedGraphImpl extends Freezable implements WeightedGraph {
+    private static final Logger LOGGER = LoggerFactory.getLogger("graph-algorithm");
+
+    public static final int DEFAULT_BITSET_THRESHOLD = 256;
 
     private final Map<Variable, Node> nodeMap;
     private final Cache cache;
+    private final boolean canonicalOrder;
+    private final int bitsetThreshold;
+    // computed on demand, discarded when the graph changes
+    private ShortestPathImpl shortestPath;
 
     // for testing only!
     public WeightedGraphImpl() {
@@ -27,8 +37,24 @@ public class WeightedGraphImpl extends Freezable implements WeightedGraph {
     }
 
     public WeightedGraphImpl(Cache cache) {
+        this(cache, false, DEFAULT_BITSET_THRESHOLD);
+    }
+
+    public WeightedGraphImpl(Cache cache, boolean canonicalOrder) {
+        this(cache, canonicalOrder, DEFAULT_BITSET_THRESHOLD);
+    }
+
+    /*
+    canonicalOrder: order the vertices by structure (see CanonicalOrder) rather than by name, so that the cache
+    can be shared by methods with structurally identical link graphs.
+    bitsetThreshold: graphs up to this number of vertices may use a BitsetClosure in ShortestPath.allLinks();
+    use 0 to always use Dijkstra.
+     */
+    public WeightedGraphImpl(Cache cache, boolean canonicalOrder, int bitsetThreshold) {
         nodeMap = new LinkedHashMap<>();
         this.cache = cache;
+        this.canonicalOrder = canonicalOrder;
+        this.bitsetThreshold = bitsetThreshold;
     }
 
     private static class Node {
@@ -55,6 +81,7 @@ public class WeightedGraphImpl extends Freezable implements WeightedGraph {
     private Node getOrCreate(Variable v) {
         ensureNotFrozen();
         Objects.requireNonNull(v);
+        shortestPath = null;
         return nodeMap.computeIfAbsent(v, Node::new);
     }
 
@@ -83,6 +110,20 @@ public class WeightedGraphImpl extends Freezable implements WeightedGraph {
         }
     }
 
+    /*
+    Restores a node as seen by visit(), without adding reverse edges. Used by WeightedGraphCodec.
+     */
+    void restoreNode(Variable v, Map<Variable, LV> dependsOn) {
+        Node node = getOrCreate(v);
+        for (Map.Entry<Variable, LV> e : dependsOn.entrySet()) {
+            if (node.dependsOn == null) {
+                node.dependsOn = new LinkedHashMap<>();
+            }
+            node.dependsOn.put(e.getKey(), e.getValue());
+            getOrCreate(e.getKey());
+        }
+    }
+
     static Comparator<String> REVERSE_STRING_COMPARATOR = (s1, s2) -> {
         int i1 = s1.length() - 1;
         int i2 = s2.length() - 1;
@@ -102,16 +143,30 @@ public class WeightedGraphImpl extends Freezable implements WeightedGraph {
 
     @Override
     public ShortestPath shortestPath() {
+        if (shortestPath == null) {
+            shortestPath = computeShortestPath();
+        }
+        return shortestPath;
+    }
+
+    private ShortestPathImpl computeShortestPath() {
+        ShortestPathEvent event = new ShortestPathEvent();
+        event.begin();
         int n = nodeMap.size();
-        Variable[] variables = new Variable[n];
+        Variable[] variables;
         // -- CACHE --
-        int j = 0;
-        for (Variable v : nodeMap.keySet()) {
-            variables[j++] = v;
+        if (canonicalOrder) {
+            variables = CanonicalOrder.sort(nodeMap.keySet(), v -> nodeMap.get(v).dependsOn);
+        } else {
+            variables = new Variable[n];
+            int j = 0;
+            for (Variable v : nodeMap.keySet()) {
+                variables[j++] = v;
+            }
+            // we need a stable order across the variables; given the huge prefixes of parameters and fields,
+            // it seems a lot faster to sort starting from the back.
+            Arrays.sort(variables, REVERSE_FQN_COMPARATOR); // default: by name
         }
-        // we need a stable order across the variables; given the huge prefixes of parameters and fields,
-        // it seems a lot faster to sort starting from the back.
-        Arrays.sort(variables, REVERSE_FQN_COMPARATOR); // default: by name
         // -- CACHE --
         Map<Variable, Integer> variableIndex = new LinkedHashMap<>();
         int i = 0;
@@ -119,42 +174,140 @@ public class WeightedGraphImpl extends Freezable implements WeightedGraph {
             variableIndex.put(v, i);
             ++i;
         }
-        StringBuilder sb = new StringBuilder(n * n * 5);
-        Map<Integer, Map<Integer, DijkstraShortestPath.DCP>> edges = new LinkedHashMap<>();
-        //CausesOfDelay delay = null;
+        /*
+         The cache key is a structural hash of the sorted (index, LV-code) tuples of every node.
+         The equivalent string is only built when debugging.
+         */
+        StringBuilder sb = LOGGER.isDebugEnabled() ? new StringBuilder(n * n * 5) : null;
+        Cache.HashBuilder hashBuilder = cache.newHashBuilder().add(n);
+        CsrGraph.Builder edges = new CsrGraph.Builder(n, 2 * n);
+        long[] sortKeys = new long[8];
+        LV[] rowLvs = new LV[8];
         for (int d1 = 0; d1 < n; d1++) {
             Node node = nodeMap.get(variables[d1]);
             Map<Variable, LV> dependsOn = node.dependsOn;
-            sb.append(d1);
-            if (dependsOn != null && !dependsOn.isEmpty()) {
-
-                Map<Integer, DijkstraShortestPath.DCP> edgesOfD1 = new LinkedHashMap<>();
-                edges.put(d1, edgesOfD1);
-
-                List<String> unsorted = new ArrayList<>(dependsOn.size());
+            int degree = dependsOn == null ? 0 : dependsOn.size();
+            edges.startVertex(d1);
+            hashBuilder.add(degree);
+            if (sb != null) sb.append(d1);
+            if (degree > 0) {
+                if (degree > sortKeys.length) {
+                    sortKeys = new long[degree];
+                    rowLvs = new LV[degree];
+                }
+                int k = 0;
                 for (Map.Entry<Variable, LV> e2 : dependsOn.entrySet()) {
                     Integer d2 = variableIndex.get(e2.getKey());
                     assert d2 != null : "Variable " + e2.getKey() + " is not in " + Arrays.toString(variables);
                     LV lv = e2.getValue();
 
                     long d = ShortestPathImpl.toDistanceComponent(lv);
-                    edgesOfD1.put(d2, new DijkstraShortestPath.DCP(d, lv.links()));
+                    edges.addEdge(d2, d, lv.links());
 
-                    String cacheCode = lv.isDelayed() ? "D" : lv.minimal();
-                    unsorted.add(d2 + ":" + cacheCode);
+                    // targets are unique within a row, so sorting on the high half is sufficient
+                    sortKeys[k] = ((long) d2 << 32) | k;
+                    rowLvs[k] = lv;
+                    ++k;
+                }
+                Arrays.sort(sortKeys, 0, degree);
+                for (int s = 0; s < degree; s++) {
+                    hashBuilder.add((int) (sortKeys[s] >>> 32));
+                    addToHash(hashBuilder, rowLvs[(int) sortKeys[s]]);
                 }
-                sb.append("(");
-                sb.append(unsorted.stream().sorted().collect(Collectors.joining(";")));
-                sb.append(")");
-            } else {
+                if (sb != null) {
+                    List<String> unsorted = new ArrayList<>(degree);
+                    for (int s = 0; s < degree; s++) {
+                        LV lv = rowLvs[(int) sortKeys[s]];
+                        String cacheCode = lv.isDelayed() ? "D" : lv.minimal();
+                        unsorted.add((sortKeys[s] >>> 32) + ":" + cacheCode);
+                    }
+                    sb.append("(");
+                    sb.append(unsorted.stream().sorted().collect(Collectors.joining(";")));
+                    sb.append(")");
+                }
+            } else if (sb != null) {
                 sb.append("/");
             }
         }
-        String cacheKey = sb.toString();
-        Cache.Hash hash = cache.createHash(cacheKey);
+        String cacheKey = sb == null ? null : sb.toString();
+        Cache.Hash hash = hashBuilder.build();
+        boolean[] cacheMiss = new boolean[1];
         ShortestPathImpl.LinkMap linkMap = (ShortestPathImpl.LinkMap)
-                cache.computeIfAbsent(hash, h -> new ShortestPathImpl.LinkMap(new LinkedHashMap<>(), new AtomicInteger(), cacheKey));
-        return new ShortestPathImpl(variableIndex, variables, edges, linkMap);
+                cache.computeIfAbsent(hash, h -> {
+                    cacheMiss[0] = true;
+                    return new ShortestPathImpl.LinkMap(new ConcurrentHashMap<>(), new AtomicInteger(), cacheKey, n);
+                });
+        CsrGraph graph = edges.build();
+        if (event.shouldCommit()) {
+            event.nodes = n;
+            event.edges = graph.edges();
+            event.cacheHit = !cacheMiss[0];
+            event.commit();
+        }
+        return new ShortestPathImpl(variableIndex, variables, graph, linkMap, bitsetThreshold);
+    }
+
+    /*
+    The row of a source only depends on the part of the graph that can be reached from it. When none of the vertices
+    reachable in this graph has edges that differ from those in the previous graph, that part is identical in both
+    graphs, and so is the row. Only the sources that can reach a changed vertex need to be recomputed.
+     */
+    @Override
+    public ShortestPath.LinkMatrix allLinks(WeightedGraph previous, ShortestPath.LinkMatrix previousLinks) {
+        ShortestPathImpl shortestPath = (ShortestPathImpl) shortestPath();
+        if (!(previous instanceof WeightedGraphImpl previousImpl) || previousLinks == null) {
+            return shortestPath.allLinks();
+        }
+        Set<Variable> affected = verticesReaching(changedVertices(previousImpl));
+        return shortestPath.allLinks(previousLinks, affected);
+    }
+
+    private Set<Variable> changedVertices(WeightedGraphImpl previous) {
+        Set<Variable> changed = new HashSet<>();
+        nodeMap.forEach((v, node) -> {
+            Node previousNode = previous.nodeMap.get(v);
+            if (previousNode == null || !sameEdges(node.dependsOn, previousNode.dependsOn)) {
+                changed.add(v);
+            }
+        });
+        return changed;
+    }
+
+    private static boolean sameEdges(Map<Variable, LV> m1, Map<Variable, LV> m2) {
+        if (m1 == null || m1.isEmpty()) return m2 == null || m2.isEmpty();
+        return m1.equals(m2);
+    }
+
+    // breadth-first, against the direction of the edges
+    private Set<Variable> verticesReaching(Set<Variable> targets) {
+        if (targets.isEmpty()) return targets;
+        Map<Variable, List<Variable>> predecessors = new HashMap<>();
+        nodeMap.forEach((v, node) -> {
+            if (node.dependsOn != null) {
+                for (Variable to : node.dependsOn.keySet()) {
+                    predecessors.computeIfAbsent(to, t -> new ArrayList<>()).add(v);
+                }
+            }
+        });
+        Set<Variable> result = new HashSet<>(targets);
+        Deque<Variable> queue = new ArrayDeque<>(targets);
+        while (!queue.isEmpty()) {
+            Variable v = queue.poll();
+            for (Variable from : predecessors.getOrDefault(v, List.of())) {
+                if (result.add(from)) queue.add(from);
+            }
+        }
+        return result;
+    }
+
+    // both delay values map onto the same code, as in LV.minimal()
+    private static void addToHash(Cache.HashBuilder hashBuilder, LV lv) {
+        if (lv.isDelayed()) {
+            hashBuilder.add(-1);
+        } else {
+            hashBuilder.add(lv.value());
+            if (lv.haveLinks()) hashBuilder.add(lv.label());
+        }
     }
 
     @Override
@@ -172,7 +325,7 @@ public class WeightedGraphImpl extends Freezable implements WeightedGraph {
 
     @Override
     public WeightedGraph copyForModification() {
-        WeightedGraphImpl wg = new WeightedGraphImpl(cache);
+        WeightedGraphImpl wg = new WeightedGraphImpl(cache, canonicalOrder, bitsetThreshold);
         nodeMap.forEach((v, node) -> {
             Node newNode = new Node(v);
             newNode.dependsOn = node.dependsOn == null ? Map.of() :
@@ -0,0 +1,84 @@
+package org.e2immu.analyzer.modification.linkedvariables.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.MethodModAnalyzer;
+import org.e2immu.language.cst.api.analysis.Property;
+import org.e2immu.language.cst.api.analysis.Value;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.ParameterInfo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Change versions of the infos in the analysis order, across the iterations of the IteratingAnalyzer.
+
+After the analysis of an info, and again at the end of every iteration (other analyzers write values as well),
+the analysis map of each info is compared to the previous one; when it has changed, the info receives a new version,
+taken from a global clock. A method needs no new analysis when none of its successors in the call graph has received
+a version after the start of its last analysis, and the method itself (including its parameters) none after the end
+of that analysis: its result would be the same.
+A method of which the last analysis waited for other infos is always analyzed again: those infos need not be
+successors in the call graph (e.g. a type of which the type analyzers compute the independence later), so that their
+changes are not seen here, and the method would keep returning the same delay.
+
+Rather than tracking the properties analyzer by analyzer (they are written in many places, some of which overwrite a
+value with an equal one), we compare all properties. This can only cause more methods to be analyzed again.
+ */
+class AnalysisVersions {
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Info, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Info, Map<Property, Value>> snapshots = new ConcurrentHashMap<>();
+    private final Map<MethodInfo, LastAnalysis> lastAnalyses = new ConcurrentHashMap<>();
+
+    // start: before the analysis; end: after the analysis, and the update of the versions of the method
+    record LastAnalysis(long start, long end, boolean activateCycleBreaking, MethodModAnalyzer.Output output) {
+    }
+
+    long now() {
+        return clock.get();
+    }
+
+    // 0 for infos that have never changed, e.g. those outside the analysis order
+    long version(Info info) {
+        long version = versions.getOrDefault(info, 0L);
+        if (info instanceof MethodInfo methodInfo) {
+            for (ParameterInfo pi : methodInfo.parameters()) {
+                version = Math.max(version, versions.getOrDefault(pi, 0L));
+            }
+        }
+        return version;
+    }
+
+    void update(Info info) {
+        Map<Property, Value> snapshot = new HashMap<>();
+        info.analysis().propertyValueStream().forEach(pv -> snapshot.put(pv.property(), pv.value()));
+        Map<Property, Value> previous = snapshots.put(info, snapshot);
+        if (!snapshot.equals(previous)) {
+            versions.put(info, clock.incrementAndGet());
+        }
+        if (info instanceof MethodInfo methodInfo) {
+            methodInfo.parameters().forEach(this::update);
+        }
+    }
+
+    LastAnalysis lastAnalysis(MethodInfo methodInfo) {
+        return lastAnalyses.get(methodInfo);
+    }
+
+    void analyzed(MethodInfo methodInfo, LastAnalysis lastAnalysis) {
+        lastAnalyses.put(methodInfo, lastAnalysis);
+    }
+
+    boolean isStable(MethodInfo methodInfo, Iterable<Info> dependencies, LastAnalysis lastAnalysis) {
+        MethodModAnalyzer.Output output = lastAnalysis.output();
+        if (!output.waitForMethods().isEmpty() || !output.waitForIndependenceOfTypes().isEmpty()) return false;
+        if (version(methodInfo) > lastAnalysis.end()) return false;
+        for (Info info : dependencies) {
+            if (version(info) > lastAnalysis.start()) return false;
+        }
+        return true;
+    }
+}
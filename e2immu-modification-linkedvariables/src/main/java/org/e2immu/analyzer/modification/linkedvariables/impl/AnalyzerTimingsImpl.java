@@ -0,0 +1,100 @@
+package org.e2immu.analyzer.modification.linkedvariables.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.AnalyzerTimings;
+import org.e2immu.analyzer.modification.linkedvariables.MethodModAnalyzer;
+import org.e2immu.language.cst.api.info.Info;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+Thread-safe: the SingleIterationAnalyzer may run analyzers in parallel.
+ */
+public class AnalyzerTimingsImpl implements AnalyzerTimings {
+    private static final String METHOD_MOD_ANALYZER = MethodModAnalyzer.class.getSimpleName();
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final Queue<Timing> timings = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger iteration = new AtomicInteger();
+
+    private record TimingImpl(Info info, String analyzer, int iteration, long nanos,
+                              long allocatedBytes) implements Timing {
+    }
+
+    private record TotalImpl(int count, long nanos, long allocatedBytes) implements Total {
+        TotalImpl add(Timing timing) {
+            return new TotalImpl(count + 1, nanos + timing.nanos(), allocatedBytes + timing.allocatedBytes());
+        }
+    }
+
+    public AnalyzerTimingsImpl() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported()) {
+            if (!bean.isThreadAllocatedMemoryEnabled()) bean.setThreadAllocatedMemoryEnabled(true);
+            threadMXBean = bean;
+        } else {
+            threadMXBean = null;
+        }
+    }
+
+    // called at the start of each iteration; iterations start counting at 1
+    void nextIteration() {
+        iteration.incrementAndGet();
+    }
+
+    <T> T time(Info info, Class<?> analyzer, Supplier<T> supplier) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        T t = supplier.get();
+        long nanos = System.nanoTime() - start;
+        long bytes = bytesBefore < 0 ? -1 : allocatedBytes() - bytesBefore;
+        timings.add(new TimingImpl(info, analyzer.getSimpleName(), iteration.get(), nanos, bytes));
+        return t;
+    }
+
+    private long allocatedBytes() {
+        return threadMXBean == null ? -1 : threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    @Override
+    public List<Timing> slowestMethods(int n) {
+        return timings.stream()
+                .filter(t -> METHOD_MOD_ANALYZER.equals(t.analyzer()))
+                .sorted(Comparator.comparingLong(Timing::nanos).reversed())
+                .limit(n)
+                .toList();
+    }
+
+    @Override
+    public List<Timing> slowest(int n) {
+        return timings.stream()
+                .sorted(Comparator.comparingLong(Timing::nanos).reversed())
+                .limit(n)
+                .toList();
+    }
+
+    @Override
+    public Map<String, Total> totalsPerAnalyzer() {
+        Map<String, TotalImpl> totals = new TreeMap<>();
+        for (Timing timing : timings) {
+            totals.merge(timing.analyzer(), new TotalImpl(1, timing.nanos(), timing.allocatedBytes()),
+                    (t1, t2) -> t1.add(timing));
+        }
+        return Collections.unmodifiableMap(totals);
+    }
+
+    @Override
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("info,kind,analyzer,iteration,nanos,allocatedBytes\n");
+        for (Timing timing : timings) {
+            writer.write('"' + timing.info().fullyQualifiedName().replace("\"", "\"\"") + "\","
+                         + timing.info().info() + "," + timing.analyzer() + "," + timing.iteration() + ","
+                         + timing.nanos() + "," + timing.allocatedBytes() + "\n");
+        }
+    }
+}
@@ -4,7 +4,6 @@ import org.e2immu.analyzer.modification.common.AnalysisHelper;
 import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
 import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
 import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
-import org.e2immu.analyzer.modification.linkedvariables.graph.impl.GraphCacheImpl;
 import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphImpl;
 import org.e2immu.analyzer.modification.linkedvariables.lv.LinkedVariablesImpl;
 import org.e2immu.analyzer.modification.linkedvariables.lv.StaticValuesImpl;
@@ -38,23 +37,80 @@ traversal of edges and typeIsNotImmutable() to allow them.
 class ComputeLinkCompletion {
     private static final Logger LOGGER = LoggerFactory.getLogger("graph-algorithm");
 
-    private final Cache cache = new GraphCacheImpl(100);
+    /*
+    Can be shared by all methods, in all threads: with vertices in canonical order, the cache key depends only on the
+    structure of the link graph, and most statements produce one of relatively few shapes.
+     */
+    private final Cache cache;
     private final StaticValuesHelper staticValuesHelper;
     private final AnalysisHelper analysisHelper;
+    private final int bitsetThreshold;
+    private final GraphCapture graphCapture;
 
-    ComputeLinkCompletion(AnalysisHelper analysisHelper, StaticValuesHelper staticValuesHelper) {
+    ComputeLinkCompletion(AnalysisHelper analysisHelper, StaticValuesHelper staticValuesHelper, Cache cache,
+                          int bitsetThreshold, GraphCapture graphCapture) {
         this.analysisHelper = analysisHelper;
+        this.cache = cache;
         this.staticValuesHelper = staticValuesHelper;
+        this.bitsetThreshold = bitsetThreshold;
+        this.graphCapture = graphCapture;
+    }
+
+    /*
+    The link graph of a statement, and its completion. Given to the Builder of a later statement, rows of variables
+    whose part of the graph has not changed can be copied rather than recomputed.
+     */
+    record LinkGraph(WeightedGraph weightedGraph, ShortestPath.LinkMatrix linkMatrix) {
+    }
+
+    /*
+    The link graph as the next statement will see it, when it reads the merge stage of a statement with sub-blocks:
+    the merged links, without the next statement's own links. Rows of variables whose links have not changed in the
+    sub-blocks are copied from the evaluation's graph.
+     */
+    LinkGraph mergeLinkGraph(VariableData variableData, LinkGraph evaluation) {
+        WeightedGraph weightedGraph = new WeightedGraphImpl(cache, true, bitsetThreshold);
+        addLinks(weightedGraph, variableData, Stage.MERGE, variableData);
+        variableData.variableInfoStream(Stage.MERGE).forEach(vi ->
+                weightedGraph.addNode(vi.variable(), Map.of()));
+        ShortestPath.LinkMatrix linkMatrix = evaluation == null
+                ? weightedGraph.shortestPath().allLinks()
+                : weightedGraph.allLinks(evaluation.weightedGraph, evaluation.linkMatrix);
+        return new LinkGraph(weightedGraph, linkMatrix);
+    }
+
+    // copy link data into the graph, but only for variables that are known to 'variableData'
+    // (some variables disappear after a statement, e.g. pattern variables)
+    private static void addLinks(WeightedGraph weightedGraph, VariableData from, Stage stageOfFrom,
+                                 VariableData variableData) {
+        from.variableInfoContainerStream().forEach(vicFrom -> {
+            VariableInfo vi = vicFrom.best(stageOfFrom);
+            if (vi.linkedVariables() != null && variableData.isKnown(vicFrom)) {
+                Map<Variable, LV> map = new HashMap<>();
+                vi.linkedVariables().stream()
+                        .filter(e -> variableData.isKnown(e.getKey()))
+                        .forEach(e -> map.put(e.getKey(), e.getValue()));
+                weightedGraph.addNode(vi.variable(), map);
+            }
+        });
     }
 
     class Builder {
-        private final WeightedGraph weightedGraph = new WeightedGraphImpl(cache);
+        private final WeightedGraph weightedGraph = new WeightedGraphImpl(cache, true, bitsetThreshold);
+        private final LinkGraph previousLinkGraph;
+        private final String methodFqn;
         private final Set<Variable> modifiedInEval = new HashSet<>();
         private final Map<FieldReference, Boolean> modifiedFunctionalComponents = new HashMap<>();
         private final Map<Variable, Set<TypeInfo>> casts = new HashMap<>();
 
         private final Map<Variable, List<StaticValues>> staticValues = new HashMap<>();
 
+        // previousLinkGraph can be null; otherwise, it must not be modified anymore
+        Builder(LinkGraph previousLinkGraph, String methodFqn) {
+            this.previousLinkGraph = previousLinkGraph;
+            this.methodFqn = methodFqn;
+        }
+
         void addLinkEvaluation(EvaluationResult evaluationResult, VariableData destination) {
             for (Map.Entry<Variable, LinkedVariables> entry : evaluationResult.links().entrySet()) {
                 VariableInfoImpl vi = (VariableInfoImpl) destination.variableInfo(entry.getKey());
@@ -86,12 +142,14 @@ class ComputeLinkCompletion {
             weightedGraph.addNode(destinationVi.variable(), linkedVariables.variables());
         }
 
-        public void write(VariableData variableData, Stage stage,
-                          VariableData previous, Stage stageOfPrevious,
-                          String statementIndex, Source source) {
-            writeLinksAndModification(variableData, stage, previous, stageOfPrevious);
+        public LinkGraph write(VariableData variableData, Stage stage,
+                               VariableData previous, Stage stageOfPrevious,
+                               String statementIndex, Source source) {
+            LinkGraph linkGraph = writeLinksAndModification(variableData, stage, previous, stageOfPrevious,
+                    statementIndex);
             writeAssignments(variableData, stage, previous, stageOfPrevious, statementIndex, source);
             writeCasts(variableData, stage, previous, stageOfPrevious);
+            return linkGraph;
         }
 
         private void writeCasts(VariableData variableData,
@@ -99,8 +157,9 @@ class ComputeLinkCompletion {
                                 VariableData previous,
                                 Stage stageOfPrevious) {
             if (previous != null) {
-                previous.variableInfoStream(stageOfPrevious).forEach(vi -> {
-                    if (variableData.isKnown(vi.variable().fullyQualifiedName())) {
+                previous.variableInfoContainerStream().forEach(vicPrev -> {
+                    if (variableData.isKnown(vicPrev)) {
+                        VariableInfo vi = vicPrev.best(stageOfPrevious);
                         Value.SetOfTypeInfo set = vi.analysis().getOrDefault(VariableInfoImpl.DOWNCAST_VARIABLE,
                                 ValueImpl.SetOfTypeInfoImpl.EMPTY);
                         if (!set.typeInfoSet().isEmpty()) {
@@ -110,7 +169,7 @@ class ComputeLinkCompletion {
                 });
             }
             this.casts.forEach((v, set) -> {
-                VariableInfoContainer vic = variableData.variableInfoContainerOrNull(v.fullyQualifiedName());
+                VariableInfoContainer vic = variableData.variableInfoContainerOrNull(v);
                 VariableInfoImpl vii = (VariableInfoImpl) vic.best(stage);
                 vii.analysis().setAllowControlledOverwrite(VariableInfoImpl.DOWNCAST_VARIABLE,
                         new ValueImpl.SetOfTypeInfoImpl(Set.copyOf(set)));
@@ -127,36 +186,29 @@ class ComputeLinkCompletion {
             if (previous != null) {
                 // copy previous assignment data into the map, but only for variables that are known to the current one
                 // (some variables disappear after a statement, e.g. pattern variables)
-                previous.variableInfoStream(stageOfPrevious)
-                        .forEach(vi -> {
-                            if (variableData.isKnown(vi.variable().fullyQualifiedName()) && vi.staticValues() != null) {
-                                addAssignment(vi.variable(), vi.staticValues());
-                            }
-                        });
+                previous.variableInfoContainerStream().forEach(vicPrev -> {
+                    if (variableData.isKnown(vicPrev)) {
+                        VariableInfo vi = vicPrev.best(stageOfPrevious);
+                        if (vi.staticValues() != null) {
+                            addAssignment(vi.variable(), vi.staticValues());
+                        }
+                    }
+                });
             }
             for (Map.Entry<Variable, List<StaticValues>> entry : staticValues.entrySet()) {
                 Variable variable = entry.getKey();
-                VariableInfoContainer vic = variableData.variableInfoContainerOrNull(variable.fullyQualifiedName());
+                VariableInfoContainer vic = variableData.variableInfoContainerOrNull(variable);
                 VariableInfoImpl vii = (VariableInfoImpl) vic.best(stage);
                 StaticValues merge = entry.getValue().stream().reduce(StaticValuesImpl.NONE, StaticValues::merge);
                 vii.staticValuesSet(merge);
             }
         }
 
-        private void writeLinksAndModification(VariableData variableData, Stage stage,
-                                               VariableData previous, Stage stageOfPrevious) {
+        private LinkGraph writeLinksAndModification(VariableData variableData, Stage stage,
+                                                    VariableData previous, Stage stageOfPrevious,
+                                                    String statementIndex) {
             if (previous != null) {
-                // copy previous link data into the graph, but only for variables that are known to the current one
-                // (some variables disappear after a statement, e.g. pattern variables)
-                previous.variableInfoStream(stageOfPrevious).forEach(vi -> {
-                    if (variableData.isKnown(vi.variable().fullyQualifiedName()) && vi.linkedVariables() != null) {
-                        Map<Variable, LV> map = new HashMap<>();
-                        vi.linkedVariables().stream()
-                                .filter(e -> variableData.isKnown(e.getKey().fullyQualifiedName()))
-                                .forEach(e -> map.put(e.getKey(), e.getValue()));
-                        weightedGraph.addNode(vi.variable(), map);
-                    }
-                });
+                addLinks(weightedGraph, previous, stageOfPrevious, variableData);
             }
             LOGGER.debug("WG: {}", weightedGraph);
 
@@ -164,27 +216,32 @@ class ComputeLinkCompletion {
             variableData.variableInfoStream(stage).forEach(vi ->
                     weightedGraph.addNode(vi.variable(), Map.of()));
 
-            WeightedGraph wgForModification = weightedGraph.copyForModification();
-            ShortestPath shortestPathForMod = wgForModification.shortestPath();
-            Set<Variable> modifying = computeModified(previous, stageOfPrevious, modifiedInEval, shortestPathForMod);
-
+            long start = graphCapture == null ? 0L : System.nanoTime();
             ShortestPath shortestPath = weightedGraph.shortestPath();
+            Set<Variable> modifying = computeModified(previous, stageOfPrevious, modifiedInEval, shortestPath);
+
+            ShortestPath.LinkMatrix linkMatrix = previousLinkGraph == null
+                    ? shortestPath.allLinks()
+                    : weightedGraph.allLinks(previousLinkGraph.weightedGraph, previousLinkGraph.linkMatrix);
+            if (graphCapture != null) {
+                long nanos = System.nanoTime() - start;
+                if (graphCapture.exceedsThreshold(nanos)) {
+                    graphCapture.capture(methodFqn + " " + statementIndex + " " + stage, weightedGraph, nanos);
+                }
+            }
             Map<Variable, Map<Variable, Boolean>> mfiComponentMaps = computeMFIComponents(previous, stageOfPrevious,
-                    modifiedFunctionalComponents, shortestPath);
+                    modifiedFunctionalComponents, linkMatrix);
 
-            for (Variable variable : shortestPath.variables()) {
-                Map<Variable, LV> links = shortestPath.links(variable, null);
+            for (int i = 0; i < linkMatrix.size(); i++) {
+                Variable variable = linkMatrix.variable(i);
 
-                VariableInfoContainer vic = variableData.variableInfoContainerOrNull(variable.fullyQualifiedName());
+                VariableInfoContainer vic = variableData.variableInfoContainerOrNull(variable);
                 if (vic != null && vic.has(stage)) {
                     VariableInfoImpl vii = (VariableInfoImpl) vic.best(stage);
-                    LinkedVariables linkedVariables = LinkedVariablesImpl.of(links).remove(Set.of(variable));
+                    // there is always a link to itself, which we remove
+                    LinkedVariables linkedVariables = LinkedVariablesImpl.of(linkMatrix.linksWithoutSelf(i));
                     vii.initializeLinkedVariables(LinkedVariablesImpl.NOT_YET_SET);
-                    if (links.isEmpty()) {
-                        vii.setLinkedVariables(LinkedVariablesImpl.EMPTY);
-                    } else {
-                        vii.setLinkedVariables(linkedVariables);
-                    }
+                    vii.setLinkedVariables(linkedVariables);
                     if (!vii.analysis().haveAnalyzedValueFor(VariableInfoImpl.UNMODIFIED_VARIABLE)) {
                         boolean unmodified = !modifying.contains(variable);
                         vii.analysis().setAllowControlledOverwrite(UNMODIFIED_VARIABLE, ValueImpl.BoolImpl.from(unmodified));
@@ -200,17 +257,20 @@ class ComputeLinkCompletion {
                     }
                 } // is possible: artificially created break variable (see e.g. TestBreakVariable)
             }
+            return new LinkGraph(weightedGraph, linkMatrix);
         }
 
         private Map<Variable, Map<Variable, Boolean>> computeMFIComponents
                 (VariableData previous, Stage stageOfPrevious,
                  Map<FieldReference, Boolean> modifiedFunctionalComponents,
-                 ShortestPath shortestPath) {
+                 ShortestPath.LinkMatrix linkMatrix) {
             Map<Variable, Map<Variable, Boolean>> mapForAllVariables = new HashMap<>();
             modifiedFunctionalComponents.forEach((fr, b) -> recursivelyAddTo(mapForAllVariables, fr, b));
+            int n = linkMatrix.size();
             if (previous != null) {
-                for (Variable variable : shortestPath.variables()) {
-                    VariableInfoContainer vicPrev = previous.variableInfoContainerOrNull(variable.fullyQualifiedName());
+                for (int i = 0; i < n; i++) {
+                    Variable variable = linkMatrix.variable(i);
+                    VariableInfoContainer vicPrev = previous.variableInfoContainerOrNull(variable);
                     if (vicPrev != null) {
                         VariableInfo vi = vicPrev.best(stageOfPrevious);
                         if (vi != null) {
@@ -224,12 +284,15 @@ class ComputeLinkCompletion {
             boolean change = true;
             while (change) {
                 change = false;
-                for (Variable variable : shortestPath.variables()) {
-                    Map<Variable, LV> links = shortestPath.links(variable, null);
-                    for (Map.Entry<Variable, LV> e : links.entrySet()) {
-                        Variable to = e.getKey();
-                        if (to != variable && mapForAllVariables.containsKey(to) && e.getValue().isStaticallyAssignedOrAssigned()) {
-                            change |= mergeMFIMaps(mapForAllVariables, variable, mapForAllVariables.get(to));
+                for (int i = 0; i < n; i++) {
+                    Variable variable = linkMatrix.variable(i);
+                    for (int j = 0; j < n; j++) {
+                        LV lv = linkMatrix.get(i, j);
+                        if (lv != null && j != i && lv.isStaticallyAssignedOrAssigned()) {
+                            Variable to = linkMatrix.variable(j);
+                            if (mapForAllVariables.containsKey(to)) {
+                                change |= mergeMFIMaps(mapForAllVariables, variable, mapForAllVariables.get(to));
+                            }
                         }
                     }
                 }
@@ -289,7 +352,7 @@ class ComputeLinkCompletion {
             }
             if (previous != null) {
                 for (Variable variable : shortestPath.variables()) {
-                    VariableInfoContainer vicPrev = previous.variableInfoContainerOrNull(variable.fullyQualifiedName());
+                    VariableInfoContainer vicPrev = previous.variableInfoContainerOrNull(variable);
                     if (vicPrev != null) {
                         VariableInfo vi = vicPrev.best(stageOfPrevious);
                         if (vi != null && !vi.isUnmodified()) {
@@ -300,25 +363,7 @@ class ComputeLinkCompletion {
                     }
                 }
             }
-            // because we have no completeness of the graph at the moment, we iterate
-            boolean change = true;
-            while (change) {
-                change = false;
-                Set<Variable> newModified = new HashSet<>(modified);
-                for (Variable variable : modified) {
-                    Map<Variable, LV> links = shortestPath.links(variable, null);
-                    for (Map.Entry<Variable, LV> e : links.entrySet()) {
-                        Variable to = e.getKey();
-                        if (to != variable && e.getValue().propagateModification()) {
-                            if (isNotImmutable(to)) {
-                                change |= newModified.add(to);
-                            }
-                        }
-                    }
-                }
-                modified.addAll(newModified);
-            }
-            return modified;
+            return shortestPath.propagateModification(modified, this::isNotImmutable);
         }
 
         /*
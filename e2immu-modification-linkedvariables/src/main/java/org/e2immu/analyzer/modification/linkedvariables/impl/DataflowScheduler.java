@@ -0,0 +1,78 @@
+package org.e2immu.analyzer.modification.linkedvariables.impl;
+
+import org.e2immu.language.cst.api.info.Info;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/*
+Executes the units of a Wavefront.Dag as soon as all the units they depend on have finished, rather than level by
+level. Each unit has a countdown of unfinished dependencies; the thread that brings it to zero submits the unit.
+The running time is bounded by the critical path of the DAG, rather than by the sum of the slowest unit of each level.
+
+When a unit throws an exception, the units that have not started yet are skipped; the first exception is rethrown
+once all submitted units have finished.
+ */
+class DataflowScheduler {
+    private final List<List<Info>> units;
+    private final List<List<Integer>> dependents;
+    private final AtomicIntegerArray remaining;
+    private final Consumer<List<Info>> unitConsumer;
+    private final CountDownLatch done;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private ForkJoinPool pool;
+
+    DataflowScheduler(Wavefront.Dag dag, Consumer<List<Info>> unitConsumer) {
+        this.units = dag.units();
+        this.unitConsumer = unitConsumer;
+        int n = units.size();
+        dependents = new ArrayList<>(n);
+        for (int u = 0; u < n; u++) dependents.add(new ArrayList<>());
+        remaining = new AtomicIntegerArray(n);
+        for (int u = 0; u < n; u++) {
+            int[] dependencies = dag.dependencies()[u];
+            remaining.set(u, dependencies.length);
+            for (int d : dependencies) dependents.get(d).add(u);
+        }
+        done = new CountDownLatch(n);
+    }
+
+    void run(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+        try {
+            for (int u = 0; u < units.size(); u++) {
+                if (remaining.get(u) == 0) submit(u);
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+        Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException re) throw re;
+        if (throwable instanceof Error error) throw error;
+        if (throwable != null) throw new RuntimeException(throwable);
+    }
+
+    private void submit(int u) {
+        pool.execute(() -> {
+            try {
+                if (failure.get() == null) unitConsumer.accept(units.get(u));
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                for (int dependent : dependents.get(u)) {
+                    if (remaining.decrementAndGet(dependent) == 0) submit(dependent);
+                }
+                done.countDown();
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package org.e2immu.analyzer.modification.linkedvariables.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+Opt-in capture of slow link graphs, see Configuration.graphCaptureThresholdMillis().
+
+All graphs of one analyzer go to one file, graphs-<time stamp>-<n>.graphs in the capture directory, which is created
+when the first graph is written. Every graph is appended and flushed immediately, so that the file is usable even
+when the analysis is killed because it takes too long. Replay with ReplayGraphs, or the benchmarks of the bench module.
+ */
+class GraphCapture {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphCapture.class);
+    private static int counter;
+
+    private final long thresholdNanos;
+    private final Path directory;
+    private Path file;
+
+    private GraphCapture(long thresholdMillis, Path directory) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.directory = directory;
+    }
+
+    // null when capturing is disabled
+    static GraphCapture create(long thresholdMillis, String directory) {
+        if (thresholdMillis < 0) return null;
+        return new GraphCapture(thresholdMillis, Path.of(directory));
+    }
+
+    boolean exceedsThreshold(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    void capture(String name, WeightedGraph graph, long nanos) {
+        String fullName = name + " " + nanos / 1_000_000L + "ms";
+        StringWriter sw = new StringWriter();
+        try {
+            WeightedGraphCodec.write(fullName, graph, sw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(fullName, sw.toString());
+    }
+
+    private synchronized void append(String name, String content) {
+        try {
+            if (file == null) {
+                Files.createDirectories(directory);
+                int n;
+                synchronized (GraphCapture.class) {
+                    n = ++counter;
+                }
+                file = directory.resolve("graphs-" + System.currentTimeMillis() + "-" + n + ".graphs");
+                LOGGER.info("Capturing link graphs to {}", file);
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)) {
+                writer.write(content);
+            }
+            LOGGER.debug("Captured link graph {}", name);
+        } catch (IOException e) {
+            LOGGER.error("Cannot write captured link graph {}", name, e);
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package org.e2immu.analyzer.modification.linkedvariables.impl;
 
 import org.e2immu.analyzer.modification.common.AnalyzerException;
+import org.e2immu.analyzer.modification.common.jfr.IterationEvent;
+import org.e2immu.analyzer.modification.linkedvariables.AnalyzerTimings;
 import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
 import org.e2immu.analyzer.modification.linkedvariables.SingleIterationAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.ConcurrentGraphCacheImpl;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphImpl;
+import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeCallGraph;
 import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.TypeInfo;
 import org.e2immu.language.cst.api.runtime.Runtime;
 import org.e2immu.util.internal.graph.G;
 import org.e2immu.util.internal.graph.V;
@@ -24,17 +30,34 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
     private static final Logger LOGGER = LoggerFactory.getLogger(IteratingAnalyzerImpl.class);
 
     private final Runtime runtime;
+    private final ConcurrentGraphCacheImpl graphCache;
 
     public IteratingAnalyzerImpl(Runtime runtime, Configuration configuration) {
         super(configuration);
         this.runtime = runtime;
+        this.graphCache = new ConcurrentGraphCacheImpl(configuration.linkGraphCacheMaxWeight());
+    }
+
+    // the cache of the link graphs, shared by all calls to analyze(); exposed for its statistics
+    public ConcurrentGraphCacheImpl graphCache() {
+        return graphCache;
     }
 
     public record ConfigurationImpl(int maxIterations,
                                     boolean stopWhenCycleDetectedAndNoImprovements,
                                     boolean storeErrors,
                                     CycleBreakingStrategy cycleBreakingStrategy,
-                                    boolean trackObjectCreations) implements Configuration {
+                                    boolean trackObjectCreations,
+                                    int linkGraphBitsetThreshold,
+                                    long linkGraphCacheMaxWeight,
+                                    boolean incrementalLinkGraph,
+                                    boolean worklist,
+                                    int parallelism,
+                                    ParallelScheduler parallelScheduler,
+                                    boolean skipStableMethods,
+                                    boolean recordTimings,
+                                    long graphCaptureThresholdMillis,
+                                    String graphCaptureDirectory) implements Configuration {
     }
 
     public static class ConfigurationBuilder {
@@ -43,6 +66,16 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         private boolean storeErrors;
         private boolean trackObjectCreations;
         private CycleBreakingStrategy cycleBreakingStrategy = CycleBreakingStrategy.NONE;
+        private int linkGraphBitsetThreshold = WeightedGraphImpl.DEFAULT_BITSET_THRESHOLD;
+        private long linkGraphCacheMaxWeight = 4 * ConcurrentGraphCacheImpl.DEFAULT_MAX_WEIGHT;
+        private boolean incrementalLinkGraph = true;
+        private boolean worklist;
+        private int parallelism = 1;
+        private ParallelScheduler parallelScheduler = ParallelScheduler.WAVEFRONT;
+        private boolean skipStableMethods;
+        private boolean recordTimings;
+        private long graphCaptureThresholdMillis = -1;
+        private String graphCaptureDirectory = "build/graphs";
 
         public ConfigurationBuilder setStoreErrors(boolean storeErrors) {
             this.storeErrors = storeErrors;
@@ -69,9 +102,61 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
             return this;
         }
 
+        public ConfigurationBuilder setLinkGraphBitsetThreshold(int linkGraphBitsetThreshold) {
+            this.linkGraphBitsetThreshold = linkGraphBitsetThreshold;
+            return this;
+        }
+
+        public ConfigurationBuilder setLinkGraphCacheMaxWeight(long linkGraphCacheMaxWeight) {
+            this.linkGraphCacheMaxWeight = linkGraphCacheMaxWeight;
+            return this;
+        }
+
+        public ConfigurationBuilder setIncrementalLinkGraph(boolean incrementalLinkGraph) {
+            this.incrementalLinkGraph = incrementalLinkGraph;
+            return this;
+        }
+
+        public ConfigurationBuilder setWorklist(boolean worklist) {
+            this.worklist = worklist;
+            return this;
+        }
+
+        public ConfigurationBuilder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public ConfigurationBuilder setParallelScheduler(ParallelScheduler parallelScheduler) {
+            this.parallelScheduler = parallelScheduler;
+            return this;
+        }
+
+        public ConfigurationBuilder setSkipStableMethods(boolean skipStableMethods) {
+            this.skipStableMethods = skipStableMethods;
+            return this;
+        }
+
+        public ConfigurationBuilder setRecordTimings(boolean recordTimings) {
+            this.recordTimings = recordTimings;
+            return this;
+        }
+
+        public ConfigurationBuilder setGraphCaptureThresholdMillis(long graphCaptureThresholdMillis) {
+            this.graphCaptureThresholdMillis = graphCaptureThresholdMillis;
+            return this;
+        }
+
+        public ConfigurationBuilder setGraphCaptureDirectory(String graphCaptureDirectory) {
+            this.graphCaptureDirectory = graphCaptureDirectory;
+            return this;
+        }
+
         public Configuration build() {
             return new ConfigurationImpl(maxIterations, stopWhenCycleDetectedAndNoImprovements, storeErrors,
-                    cycleBreakingStrategy, trackObjectCreations);
+                    cycleBreakingStrategy, trackObjectCreations, linkGraphBitsetThreshold, linkGraphCacheMaxWeight,
+                    incrementalLinkGraph, worklist, parallelism, parallelScheduler, skipStableMethods, recordTimings,
+                    graphCaptureThresholdMillis, graphCaptureDirectory);
         }
     }
 
@@ -81,13 +166,19 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         private final int iterations;
         private final Map<String, Integer> infoHistogram;
         private final List<AnalyzerException> analyzerExceptions;
+        private final List<Integer> revisitedPerIteration;
+        private final AnalyzerTimings timings;
 
         public OutputImpl(G<Info> waitingFor,
                           Cycles<Info> cycles,
                           int iterations,
                           Map<String, Integer> infoHistogram,
-                          List<AnalyzerException> analyzerExceptions) {
+                          List<AnalyzerException> analyzerExceptions,
+                          List<Integer> revisitedPerIteration,
+                          AnalyzerTimings timings) {
             this.waitingFor = waitingFor;
+            this.timings = timings;
+            this.revisitedPerIteration = revisitedPerIteration;
             this.iterations = iterations;
             this.infoHistogram = infoHistogram;
             this.analyzerExceptions = analyzerExceptions;
@@ -118,27 +209,54 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         public List<AnalyzerException> analyzerExceptions() {
             return analyzerExceptions;
         }
+
+        @Override
+        public List<Integer> revisitedPerIteration() {
+            return revisitedPerIteration;
+        }
+
+        @Override
+        public AnalyzerTimings timings() {
+            return timings;
+        }
     }
 
     @Override
-    public Output analyze(List<Info> analysisOrder) {
+    public Output analyze(List<Info> analysisOrder, G<Info> callGraph) {
         int iterations = 0;
         int prevWaitingForSize = Integer.MAX_VALUE;
-        SingleIterationAnalyzer singleIterationAnalyzer = new SingleIterationAnalyzerImpl(runtime, configuration);
+        AnalyzerTimingsImpl timings = configuration.recordTimings() ? new AnalyzerTimingsImpl() : null;
+        SingleIterationAnalyzer singleIterationAnalyzer = new SingleIterationAnalyzerImpl(runtime, configuration,
+                timings, graphCache);
         List<AnalyzerException> analyzerExceptions = new LinkedList<>();
         boolean cycleBreakingActive = false;
+        List<Info> toAnalyze = analysisOrder;
+        List<Integer> revisited = new ArrayList<>();
+        Map<Info, List<Info>> dependents = null;
         while (true) {
             ++iterations;
-            LOGGER.info("{}, cycle breaking active? {}", highlight("Start iteration " + iterations), cycleBreakingActive);
-            SingleIterationAnalyzer.Output output = singleIterationAnalyzer.go(analysisOrder, cycleBreakingActive,
-                    iterations == 1);
+            LOGGER.info("{}, cycle breaking active? {}, analyzing {} of {} infos",
+                    highlight("Start iteration " + iterations), cycleBreakingActive, toAnalyze.size(),
+                    analysisOrder.size());
+            IterationEvent event = new IterationEvent();
+            event.begin();
+            SingleIterationAnalyzer.Output output = singleIterationAnalyzer.go(toAnalyze, callGraph,
+                    cycleBreakingActive, iterations == 1);
+            revisited.add(toAnalyze.size() - output.skippedMethods());
             G<Info> waitFor = output.waitFor();
+            if (event.shouldCommit()) {
+                event.iteration = iterations;
+                event.infos = toAnalyze.size();
+                event.waitFor = waitFor.vertices().size();
+                event.cycleBreaking = cycleBreakingActive;
+                event.commit();
+            }
             analyzerExceptions.addAll(output.analyzerExceptions());
             boolean done = waitFor.vertices().isEmpty();
             if (iterations == configuration.maxIterations() || done) {
                 LOGGER.info("Stop iterating after {} iterations, done? {}", iterations, done);
                 return new OutputImpl(waitFor, new Cycles<>(Set.of()), iterations,
-                        output.infoHistogram(), analyzerExceptions);
+                        output.infoHistogram(), analyzerExceptions, List.copyOf(revisited), timings);
             }
             int waitForSize = waitFor.vertices().size();
             boolean noImprovement = waitForSize >= prevWaitingForSize;
@@ -150,7 +268,8 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                     printCycles(output.waitFor(), cycles);
                     assert !cycles.isEmpty();
                     if (configuration.stopWhenCycleDetectedAndNoImprovements() || cycleBreakingActive) {
-                        return new OutputImpl(waitFor, cycles, iterations, output.infoHistogram(), analyzerExceptions);
+                        return new OutputImpl(waitFor, cycles, iterations, output.infoHistogram(), analyzerExceptions,
+                                List.copyOf(revisited), timings);
                     }
                     LOGGER.info("Activating cycle breaking");
                     cycleBreakingActive = true;
@@ -162,7 +281,61 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                 LOGGER.info("WaitingFor now {}, iterating again", highlight("" + waitForSize));
             }
             prevWaitingForSize = waitForSize;
+            if (configuration.worklist()) {
+                if (dependents == null) dependents = dependents(callGraph);
+                toAnalyze = worklist(analysisOrder, waitFor, dependents);
+            }
+        }
+    }
+
+    /*
+    The reverse of the call graph, restricted to the edges used to compute the analysis order.
+    Empty when there is no call graph.
+     */
+    public static Map<Info, List<Info>> dependents(G<Info> callGraph) {
+        if (callGraph == null) return Map.of();
+        Map<Info, List<Info>> dependents = new HashMap<>();
+        for (V<Info> from : callGraph.vertices()) {
+            Map<V<Info>, Long> edges = callGraph.edges(from);
+            if (edges != null) {
+                for (Map.Entry<V<Info>, Long> entry : edges.entrySet()) {
+                    if (ComputeCallGraph.isAtLeastReference(entry.getValue())) {
+                        dependents.computeIfAbsent(entry.getKey().t(), t -> new ArrayList<>()).add(from.t());
+                    }
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /*
+    The infos of the analysis order that must be analyzed again, in the same order: the vertices of the waitFor graph,
+    and, transitively, their dependents. Types are analyzed again when they own (directly, or via a nested type)
+    one of these.
+     */
+    public static List<Info> worklist(List<Info> analysisOrder, G<Info> waitFor, Map<Info, List<Info>> dependents) {
+        Set<Info> revisit = new HashSet<>();
+        Deque<Info> queue = new ArrayDeque<>();
+        for (V<Info> v : waitFor.vertices()) {
+            if (revisit.add(v.t())) queue.add(v.t());
+        }
+        while (!queue.isEmpty()) {
+            Info info = queue.poll();
+            for (Info dependent : dependents.getOrDefault(info, List.of())) {
+                if (revisit.add(dependent)) queue.add(dependent);
+            }
+        }
+        Set<TypeInfo> owners = new HashSet<>();
+        for (Info info : revisit) {
+            TypeInfo typeInfo = info.typeInfo();
+            while (typeInfo != null && owners.add(typeInfo) && !typeInfo.isPrimaryType()) {
+                typeInfo = typeInfo.compilationUnitOrEnclosingType().isRight()
+                        ? typeInfo.compilationUnitOrEnclosingType().getRight() : null;
+            }
         }
+        return analysisOrder.stream()
+                .filter(info -> info instanceof TypeInfo typeInfo ? owners.contains(typeInfo) : revisit.contains(info))
+                .toList();
     }
 
     private void printCycles(G<Info> graph, Cycles<Info> cycles) {
@@ -3,8 +3,10 @@ package org.e2immu.analyzer.modification.linkedvariables.impl;
 import org.e2immu.analyzer.modification.common.AnalysisHelper;
 import org.e2immu.analyzer.modification.common.AnalyzerException;
 import org.e2immu.analyzer.modification.common.defaults.ShallowMethodAnalyzer;
+import org.e2immu.analyzer.modification.common.jfr.MethodAnalysisEvent;
 import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
 import org.e2immu.analyzer.modification.linkedvariables.MethodModAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.ConcurrentGraphCacheImpl;
 import org.e2immu.analyzer.modification.linkedvariables.lv.LinkedVariablesImpl;
 import org.e2immu.analyzer.modification.linkedvariables.lv.StaticValuesImpl;
 import org.e2immu.analyzer.modification.linkedvariables.staticvalues.StaticValuesHelper;
@@ -58,15 +60,26 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
     private final GetSetHelper getSetHelper;
     private final StaticValuesHelper staticValuesHelper;
     private final boolean trackObjectCreations;
+    private final boolean incrementalLinkGraph;
 
     public MethodModAnalyzerImpl(Runtime runtime, IteratingAnalyzer.Configuration configuration) {
+        this(runtime, configuration, new ConcurrentGraphCacheImpl(configuration.linkGraphCacheMaxWeight()));
+    }
+
+    // graphCache: the cache of the link graphs, can be shared with other instances
+    public MethodModAnalyzerImpl(Runtime runtime, IteratingAnalyzer.Configuration configuration,
+                                 ConcurrentGraphCacheImpl graphCache) {
         super(configuration);
         this.runtime = runtime;
         staticValuesHelper = new StaticValuesHelper(runtime);
         shallowMethodAnalyzer = new ShallowMethodAnalyzer(runtime, Element::annotations);
-        computeLinkCompletion = new ComputeLinkCompletion(new AnalysisHelper(), staticValuesHelper); // has a cache, we want this to be stable
+        GraphCapture graphCapture = GraphCapture.create(configuration.graphCaptureThresholdMillis(),
+                configuration.graphCaptureDirectory());
+        computeLinkCompletion = new ComputeLinkCompletion(new AnalysisHelper(), staticValuesHelper, graphCache,
+                configuration.linkGraphBitsetThreshold(), graphCapture); // has a cache, we want this to be stable
         this.getSetHelper = new GetSetHelper(runtime);
         this.trackObjectCreations = configuration.trackObjectCreations();
+        this.incrementalLinkGraph = configuration.incrementalLinkGraph();
     }
 
     private record OutputImpl(List<AnalyzerException> analyzerExceptions, Set<MethodInfo> waitForMethods,
@@ -103,6 +116,8 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
         private final Map<String, Integer> infoHistogram = new HashMap<>();
         private final boolean activateCycleBreaking;
         private final ExpressionAnalyzer expressionAnalyzer;
+        // link graph of the statements whose VariableData can still act as 'previous'
+        private final Map<VariableData, ComputeLinkCompletion.LinkGraph> linkGraphs = new IdentityHashMap<>();
 
         MethodAnalyzer(boolean activateCycleBreaking) {
             this.activateCycleBreaking = activateCycleBreaking;
@@ -110,6 +125,19 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
         }
 
         public void doMethod(MethodInfo methodInfo) {
+            MethodAnalysisEvent event = new MethodAnalysisEvent();
+            event.begin();
+            try {
+                analyzeMethod(methodInfo);
+            } finally {
+                if (event.shouldCommit()) {
+                    event.method = methodInfo.fullyQualifiedName();
+                    event.commit();
+                }
+            }
+        }
+
+        private void analyzeMethod(MethodInfo methodInfo) {
             LOGGER.debug("Mod: do method {}", methodInfo);
             ComputeHCS.safeHcsMethod(runtime, methodInfo);
             assert methodInfo.parameters().stream()
@@ -118,7 +146,10 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
 
             if (methodInfo.isAbstract()) {
                 // NOTE: the shallow analyzers only write out non-default values
-                shallowMethodAnalyzer.analyze(methodInfo);
+                // the shallow method analyzer is not thread-safe; see SingleIterationAnalyzerImpl.go for parallelism
+                synchronized (shallowMethodAnalyzer) {
+                    shallowMethodAnalyzer.analyze(methodInfo);
+                }
                 // TODO consider moving this into the shallow analyzer!
                 getSetHelper.copyStaticValuesForGetSet(methodInfo);
             } else {
@@ -317,15 +348,20 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
             VariableData previous = vdOfParent;
             boolean first = true;
             for (Statement statement : block.statements()) {
+                VariableData vd;
                 try {
-                    previous = doStatement(methodInfo, statement, previous, first);
+                    vd = doStatement(methodInfo, statement, previous, first);
                 } catch (Throwable re) {
                     LOGGER.error("Have error analyzing statement {}, {}, in method {}",
                             statement, statement.source(), methodInfo);
                     throw re;
                 }
+                // the link graph of the parent is still needed by the other sub-blocks
+                if (previous != vdOfParent) linkGraphs.remove(previous);
+                previous = vd;
                 if (first) first = false;
             }
+            if (previous != vdOfParent) linkGraphs.remove(previous);
             return previous;
         }
 
@@ -338,7 +374,10 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
             Stage stageOfPrevious = first ? Stage.EVALUATION : Stage.MERGE;
             VariableData vd = VariableDataImpl.of(statement);
             assert vd != null : "No variable data in " + statement + " source " + statement.source();
-            ComputeLinkCompletion.Builder clcBuilder = computeLinkCompletion.new Builder();
+            ComputeLinkCompletion.LinkGraph previousLinkGraph = incrementalLinkGraph && previous != null
+                    ? linkGraphs.get(previous) : null;
+            ComputeLinkCompletion.Builder clcBuilder = computeLinkCompletion.new Builder(previousLinkGraph,
+                    methodInfo.fullyQualifiedName());
 
             if (statement instanceof LocalVariableCreation lvc) {
                 lvc.localVariableStream().forEach(lv -> {
@@ -402,7 +441,9 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
                     clcBuilder.addCasts(er.casts());
                 });
             } // else: resources of Try statement are handled in doBlocks
-            clcBuilder.write(vd, Stage.EVALUATION, previous, stageOfPrevious, statement.source().index(), statement.source());
+            ComputeLinkCompletion.LinkGraph linkGraph = clcBuilder.write(vd, Stage.EVALUATION, previous,
+                    stageOfPrevious, statement.source().index(), statement.source());
+            if (incrementalLinkGraph) linkGraphs.put(vd, linkGraph);
 
             if (statement.hasSubBlocks()) {
                 LinkedHashMap<String, VariableData> lastOfEachSubBlock = doBlocks(methodInfo, statement, vd);
@@ -412,6 +453,10 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
                             mergeBlocks(vic, lastOfEachSubBlock, vd);
                         }
                     });
+                    // the next statement reads the merge stage, not the evaluation stage
+                    if (incrementalLinkGraph) {
+                        linkGraphs.put(vd, computeLinkCompletion.mergeLinkGraph(vd, linkGraph));
+                    }
                 }
             }
             return vd;
@@ -465,14 +510,14 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
             merge.staticValuesSet(reducedSv);
 
             boolean unmodified = lastOfEachSubBlock.values().stream()
-                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable.fullyQualifiedName()))
+                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable))
                     .filter(Objects::nonNull)
                     .map(VariableInfoContainer::best)
                     .allMatch(vi -> vi.analysis().getOrDefault(UNMODIFIED_VARIABLE, FALSE).isTrue());
             merge.analysis().setAllowControlledOverwrite(UNMODIFIED_VARIABLE, ValueImpl.BoolImpl.from(unmodified));
 
             Map<Variable, Boolean> map = lastOfEachSubBlock.values().stream()
-                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable.fullyQualifiedName()))
+                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable))
                     .filter(Objects::nonNull)
                     .map(VariableInfoContainer::best)
                     .flatMap(vi -> vi.analysis().getOrDefault(MODIFIED_FI_COMPONENTS_VARIABLE,
@@ -481,7 +526,7 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
                             (b1, b2) -> b1 || b2)); // TODO is this the correct merge function?
             merge.analysis().setAllowControlledOverwrite(MODIFIED_FI_COMPONENTS_VARIABLE, new ValueImpl.VariableBooleanMapImpl(map));
             Set<TypeInfo> combinedCasts = lastOfEachSubBlock.values().stream()
-                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable.fullyQualifiedName()))
+                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable))
                     .filter(Objects::nonNull)
                     .map(VariableInfoContainer::best)
                     .flatMap(vi -> vi.analysis().getOrDefault(DOWNCAST_VARIABLE, ValueImpl.SetOfTypeInfoImpl.EMPTY).typeInfoSet().stream())
@@ -493,7 +538,7 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
 
         private static StaticValues computeStaticValuesMerge(Map<String, VariableData> lastOfEachSubBlock, Variable variable) {
             List<StaticValues> staticValuesList = lastOfEachSubBlock.values().stream()
-                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable.fullyQualifiedName()))
+                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable))
                     .filter(Objects::nonNull)
                     .map(VariableInfoContainer::best)
                     .map(VariableInfo::staticValues)
@@ -506,13 +551,13 @@ public class MethodModAnalyzerImpl extends CommonAnalyzerImpl implements MethodM
                                                                    Variable variable,
                                                                    VariableData vdMerge) {
             List<LinkedVariables> linkedVariablesList = lastOfEachSubBlock.values().stream()
-                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable.fullyQualifiedName()))
+                    .map(lastVd -> lastVd.variableInfoContainerOrNull(variable))
                     .filter(Objects::nonNull)
                     .map(VariableInfoContainer::best)
                     .map(VariableInfo::linkedVariables)
                     .filter(Objects::nonNull)
                     .toList();
-            return linkedVariablesList.stream().reduce(EMPTY, LinkedVariables::merge).remove(v -> !vdMerge.isKnown(v.fullyQualifiedName()));
+            return linkedVariablesList.stream().reduce(EMPTY, LinkedVariables::merge).remove(v -> !vdMerge.isKnown(v));
         }
 
         @Override
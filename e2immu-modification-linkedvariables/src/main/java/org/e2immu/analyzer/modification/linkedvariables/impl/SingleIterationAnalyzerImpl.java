@@ -3,6 +3,7 @@ package org.e2immu.analyzer.modification.linkedvariables.impl;
 import org.e2immu.analyzer.modification.common.AnalyzerException;
 import org.e2immu.analyzer.modification.common.defaults.ShallowTypeAnalyzer;
 import org.e2immu.analyzer.modification.linkedvariables.*;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.ConcurrentGraphCacheImpl;
 import org.e2immu.language.cst.api.element.Element;
 import org.e2immu.language.cst.api.info.FieldInfo;
 import org.e2immu.language.cst.api.info.Info;
@@ -10,10 +11,22 @@ import org.e2immu.language.cst.api.info.MethodInfo;
 import org.e2immu.language.cst.api.info.TypeInfo;
 import org.e2immu.language.cst.api.runtime.Runtime;
 import org.e2immu.util.internal.graph.G;
+import org.e2immu.util.internal.graph.V;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, ModAnalyzerForTesting {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SingleIterationAnalyzerImpl.class);
+
     private final IteratingAnalyzer.Configuration configuration;
     private final MethodModAnalyzer methodModAnalyzer;
     private final FieldAnalyzer fieldAnalyzer;
@@ -22,94 +35,224 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
     private final TypeIndependentAnalyzer typeIndependentAnalyzer;
     private final ShallowTypeAnalyzer shallowTypeAnalyzer;
     private final TypeContainerAnalyzer typeContainerAnalyzer;
+    private final AnalysisVersions analysisVersions;
+    private final AnalyzerTimingsImpl timings;
 
     private record OutputImpl(List<AnalyzerException> analyzerExceptions, G<Info> waitFor,
-                              Map<String, Integer> infoHistogram)
+                              Map<String, Integer> infoHistogram, int skippedMethods)
             implements Output {
     }
 
     public SingleIterationAnalyzerImpl(Runtime runtime, IteratingAnalyzer.Configuration configuration) {
+        this(runtime, configuration, null,
+                new ConcurrentGraphCacheImpl(configuration.linkGraphCacheMaxWeight()));
+    }
+
+    // timings: null when they should not be recorded
+    public SingleIterationAnalyzerImpl(Runtime runtime, IteratingAnalyzer.Configuration configuration,
+                                       AnalyzerTimingsImpl timings, ConcurrentGraphCacheImpl graphCache) {
         this.configuration = configuration;
-        methodModAnalyzer = new MethodModAnalyzerImpl(runtime, configuration);
+        this.timings = timings;
+        methodModAnalyzer = new MethodModAnalyzerImpl(runtime, configuration, graphCache);
         fieldAnalyzer = new FieldAnalyzerImpl(runtime, configuration);
         typeModIndyAnalyzer = new TypeModIndyAnalyzerImpl(runtime, configuration);
         typeImmutableAnalyzer = new TypeImmutableAnalyzerImpl(configuration);
         typeIndependentAnalyzer = new TypeIndependentAnalyzerImpl(configuration);
         shallowTypeAnalyzer = new ShallowTypeAnalyzer(runtime, Element::annotations, false);
         typeContainerAnalyzer = new TypeContainerAnalyzerImpl(configuration);
+        analysisVersions = configuration.skipStableMethods() ? new AnalysisVersions() : null;
     }
 
     @Override
     public List<AnalyzerException> go(List<Info> analysisOrder) {
-        return go(analysisOrder, false, true).analyzerExceptions();
+        return go(analysisOrder, null, false, true).analyzerExceptions();
+    }
+
+    /*
+    Collects the results of the individual analyzers. Thread-safe, so that it can be used by the parallel execution.
+    The edges of the waitFor graph are only added to the graph builder at the end.
+     */
+    private static class Collector {
+        final Queue<AnalyzerException> analyzerExceptions = new ConcurrentLinkedQueue<>();
+        final Map<MethodInfo, Set<MethodInfo>> methodsWaitFor = new ConcurrentHashMap<>();
+        final Queue<Map.Entry<Info, Collection<? extends Info>>> waitFor = new ConcurrentLinkedQueue<>();
+        final Map<String, Integer> infoHistogram = new ConcurrentHashMap<>();
+        final LongAdder skippedMethods = new LongAdder();
+
+        void waitFor(Info info, Collection<? extends Info> infos) {
+            if (!infos.isEmpty()) waitFor.add(Map.entry(info, infos));
+        }
+
+        G<Info> buildWaitFor() {
+            G.Builder<Info> builder = new G.Builder<>(Long::sum);
+            for (Map.Entry<Info, Collection<? extends Info>> entry : waitFor) {
+                builder.add(entry.getKey(), entry.getValue());
+            }
+            return builder.build();
+        }
     }
 
     @Override
-    public Output go(List<Info> analysisOrder, boolean activateCycleBreaking, boolean firstIteration) {
-        List<AnalyzerException> analyzerExceptions = new ArrayList<>();
-        Map<MethodInfo, Set<MethodInfo>> methodsWaitFor = new HashMap<>();
+    public Output go(List<Info> analysisOrder, G<Info> callGraph, boolean activateCycleBreaking,
+                     boolean firstIteration) {
+        if (timings != null) timings.nextIteration();
+        Collector collector = new Collector();
         Set<TypeInfo> primaryTypes = new HashSet<>();
-        Set<TypeInfo> abstractTypes = new HashSet<>();
         List<TypeInfo> typesInOrder = new ArrayList<>(analysisOrder.size());
-        G.Builder<Info> builder = new G.Builder<>(Long::sum);
-        Map<String, Integer> infoHistogram = new HashMap<>();
-
         for (Info info : analysisOrder) {
-            if (info instanceof MethodInfo methodInfo) {
-                if (methodInfo.isAbstract() && abstractTypes.add(info.typeInfo())) {
-                    shallowTypeAnalyzer.analyze(info.typeInfo());
-                }
-                MethodModAnalyzer.Output output = methodModAnalyzer.go(methodInfo, activateCycleBreaking);
-                methodsWaitFor.put(methodInfo, output.waitForMethods());
-                if (!output.waitForMethods().isEmpty()) builder.add(methodInfo, output.waitForMethods());
-                if (!output.waitForIndependenceOfTypes().isEmpty())
-                    builder.add(methodInfo, output.waitForIndependenceOfTypes());
-                analyzerExceptions.addAll(output.analyzerExceptions());
-            } else if (info instanceof FieldInfo fieldInfo) {
-                if (fieldInfo.owner().isAbstract()) {
-                    shallowTypeAnalyzer.analyzeField(fieldInfo);
-                }
-                FieldAnalyzer.Output output = fieldAnalyzer.go(fieldInfo, activateCycleBreaking);
-                if (!output.waitFor().isEmpty()) builder.add(fieldInfo, output.waitFor());
-                analyzerExceptions.addAll(output.analyzerExceptions());
-            } else if (info instanceof TypeInfo typeInfo) {
-                runTypeAnalyzers(activateCycleBreaking, typeInfo, methodsWaitFor, analyzerExceptions, builder);
+            if (info instanceof TypeInfo typeInfo) {
                 if (typeInfo.isPrimaryType()) primaryTypes.add(typeInfo);
                 typesInOrder.add(typeInfo);
             }
-            infoHistogram.merge(info.info(), 1, Integer::sum);
+        }
+        Map<TypeInfo, Boolean> abstractTypes = new ConcurrentHashMap<>();
+        if (configuration.parallelism() > 1 && callGraph != null) {
+            Wavefront.Dag dag = Wavefront.dag(analysisOrder, callGraph);
+            Consumer<List<Info>> unitConsumer = unit -> {
+                for (Info info : unit) go(info, callGraph, activateCycleBreaking, abstractTypes, collector);
+            };
+            if (configuration.parallelScheduler() == IteratingAnalyzer.ParallelScheduler.DATAFLOW) {
+                new DataflowScheduler(dag, unitConsumer).run(configuration.parallelism());
+            } else {
+                runInParallel(Wavefront.levels(dag), unitConsumer);
+            }
+        } else {
+            for (Info info : analysisOrder) {
+                go(info, callGraph, activateCycleBreaking, abstractTypes, collector);
+            }
         }
         AbstractMethodAnalyzer abstractMethodAnalyzer = new AbstractMethodAnalyzerImpl(configuration, primaryTypes);
-        analyzerExceptions.addAll(abstractMethodAnalyzer.go(firstIteration).analyzerExceptions());
+        collector.analyzerExceptions.addAll(abstractMethodAnalyzer.go(firstIteration).analyzerExceptions());
 
         /*
         run once more, because the abstract method analyzer may have resolved independence and modification values
         for abstract methods.
          */
         for (TypeInfo typeInfo : typesInOrder) {
-            runTypeAnalyzers(activateCycleBreaking, typeInfo, methodsWaitFor, analyzerExceptions, builder);
+            runTypeAnalyzers(activateCycleBreaking, typeInfo, collector);
+        }
+        if (analysisVersions != null) {
+            analysisOrder.forEach(analysisVersions::update);
+            LOGGER.info("Skipped {} stable methods", collector.skippedMethods);
+        }
+        return new OutputImpl(new ArrayList<>(collector.analyzerExceptions), collector.buildWaitFor(),
+                new HashMap<>(collector.infoHistogram), collector.skippedMethods.intValue());
+    }
+
+    private void go(Info info, G<Info> callGraph, boolean activateCycleBreaking, Map<TypeInfo, Boolean> abstractTypes,
+                    Collector collector) {
+        if (info instanceof MethodInfo methodInfo) {
+            if (methodInfo.isAbstract()) {
+                // other abstract methods of the same type wait until the shallow analysis is done
+                abstractTypes.computeIfAbsent(info.typeInfo(), t -> {
+                    synchronized (shallowTypeAnalyzer) {
+                        shallowTypeAnalyzer.analyze(t);
+                    }
+                    return true;
+                });
+            }
+            MethodModAnalyzer.Output output = goMethod(methodInfo, callGraph, activateCycleBreaking, collector);
+            collector.methodsWaitFor.put(methodInfo, output.waitForMethods());
+            collector.waitFor(methodInfo, output.waitForMethods());
+            collector.waitFor(methodInfo, output.waitForIndependenceOfTypes());
+        } else if (info instanceof FieldInfo fieldInfo) {
+            if (fieldInfo.owner().isAbstract()) {
+                synchronized (shallowTypeAnalyzer) {
+                    shallowTypeAnalyzer.analyzeField(fieldInfo);
+                }
+            }
+            FieldAnalyzer.Output output = timed(fieldInfo, FieldAnalyzer.class,
+                    () -> fieldAnalyzer.go(fieldInfo, activateCycleBreaking));
+            collector.waitFor(fieldInfo, output.waitFor());
+            collector.analyzerExceptions.addAll(output.analyzerExceptions());
+            if (analysisVersions != null) analysisVersions.update(fieldInfo);
+        } else if (info instanceof TypeInfo typeInfo) {
+            runTypeAnalyzers(activateCycleBreaking, typeInfo, collector);
+            if (analysisVersions != null) analysisVersions.update(typeInfo);
+        }
+        collector.infoHistogram.merge(info.info(), 1, Integer::sum);
+    }
+
+    /*
+    Returns the output of the last analysis of the method when it is stable: neither the method, nor any of its
+    successors in the call graph has changed since the start of that analysis, and that analysis did not wait for
+    anything (see AnalysisVersions). Exceptions are only collected once.
+     */
+    private MethodModAnalyzer.Output goMethod(MethodInfo methodInfo, G<Info> callGraph, boolean activateCycleBreaking,
+                                              Collector collector) {
+        if (analysisVersions == null || callGraph == null) {
+            MethodModAnalyzer.Output output = timed(methodInfo, MethodModAnalyzer.class,
+                    () -> methodModAnalyzer.go(methodInfo, activateCycleBreaking));
+            collector.analyzerExceptions.addAll(output.analyzerExceptions());
+            return output;
+        }
+        AnalysisVersions.LastAnalysis last = analysisVersions.lastAnalysis(methodInfo);
+        if (last != null && last.activateCycleBreaking() == activateCycleBreaking
+            && analysisVersions.isStable(methodInfo, successors(callGraph, methodInfo), last)) {
+            collector.skippedMethods.increment();
+            return last.output();
+        }
+        long start = analysisVersions.now();
+        MethodModAnalyzer.Output output = timed(methodInfo, MethodModAnalyzer.class,
+                    () -> methodModAnalyzer.go(methodInfo, activateCycleBreaking));
+        collector.analyzerExceptions.addAll(output.analyzerExceptions());
+        analysisVersions.update(methodInfo);
+        analysisVersions.analyzed(methodInfo, new AnalysisVersions.LastAnalysis(start, analysisVersions.now(),
+                activateCycleBreaking, output));
+        return output;
+    }
+
+    private static List<Info> successors(G<Info> callGraph, Info info) {
+        V<Info> v = callGraph.vertex(info);
+        Map<V<Info>, Long> edges = v == null ? null : callGraph.edges(v);
+        if (edges == null) return List.of();
+        return edges.keySet().stream().map(V::t).toList();
+    }
+
+    /*
+    Units of the same level are independent; a level only starts when the previous one has been completed.
+     */
+    private void runInParallel(List<List<List<Info>>> levels, Consumer<List<Info>> unitConsumer) {
+        ForkJoinPool pool = new ForkJoinPool(configuration.parallelism());
+        try {
+            for (List<List<Info>> level : levels) {
+                if (level.size() == 1) {
+                    unitConsumer.accept(level.getFirst());
+                } else {
+                    pool.submit(() -> level.parallelStream().forEach(unitConsumer)).get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
         }
-        return new OutputImpl(analyzerExceptions, builder.build(), infoHistogram);
     }
 
-    private void runTypeAnalyzers(boolean activateCycleBreaking,
-                                  TypeInfo typeInfo,
-                                  Map<MethodInfo, Set<MethodInfo>> methodsWaitFor,
-                                  List<AnalyzerException> analyzerExceptions,
-                                  G.Builder<Info> builder) {
-        Analyzer.Output output1 = typeModIndyAnalyzer.go(typeInfo, methodsWaitFor, activateCycleBreaking);
-        analyzerExceptions.addAll(output1.analyzerExceptions());
-
-        TypeIndependentAnalyzer.Output output2 = typeIndependentAnalyzer.go(typeInfo,
-                activateCycleBreaking);
-        analyzerExceptions.addAll(output2.analyzerExceptions());
-        if (!output2.internalWaitFor().isEmpty()) builder.add(typeInfo, output2.internalWaitFor());
-        if (!output2.externalWaitFor().isEmpty()) builder.add(typeInfo, output2.externalWaitFor());
-
-        TypeImmutableAnalyzer.Output output3 = typeImmutableAnalyzer.go(typeInfo,
-                activateCycleBreaking);
-        analyzerExceptions.addAll(output3.analyzerExceptions());
-        if (!output3.internalWaitFor().isEmpty()) builder.add(typeInfo, output3.internalWaitFor());
-        if (!output3.externalWaitFor().isEmpty()) builder.add(typeInfo, output3.externalWaitFor());
+    private <T> T timed(Info info, Class<?> analyzer, Supplier<T> supplier) {
+        return timings == null ? supplier.get() : timings.time(info, analyzer, supplier);
+    }
+
+    private void runTypeAnalyzers(boolean activateCycleBreaking, TypeInfo typeInfo, Collector collector) {
+        Analyzer.Output output1 = timed(typeInfo, TypeModIndyAnalyzer.class,
+                () -> typeModIndyAnalyzer.go(typeInfo, collector.methodsWaitFor, activateCycleBreaking));
+        collector.analyzerExceptions.addAll(output1.analyzerExceptions());
+
+        TypeIndependentAnalyzer.Output output2 = timed(typeInfo, TypeIndependentAnalyzer.class,
+                () -> typeIndependentAnalyzer.go(typeInfo, activateCycleBreaking));
+        collector.analyzerExceptions.addAll(output2.analyzerExceptions());
+        collector.waitFor(typeInfo, output2.internalWaitFor());
+        collector.waitFor(typeInfo, output2.externalWaitFor());
+
+        TypeImmutableAnalyzer.Output output3 = timed(typeInfo, TypeImmutableAnalyzer.class,
+                () -> typeImmutableAnalyzer.go(typeInfo, activateCycleBreaking));
+        collector.analyzerExceptions.addAll(output3.analyzerExceptions());
+        collector.waitFor(typeInfo, output3.internalWaitFor());
+        collector.waitFor(typeInfo, output3.externalWaitFor());
     }
 }
@@ -0,0 +1,176 @@
+package org.e2immu.analyzer.modification.linkedvariables.impl;
+
+import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeCallGraph;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.util.internal.graph.G;
+import org.e2immu.util.internal.graph.V;
+
+import java.util.*;
+
+/*
+Partitions an analysis order into units, for parallel execution by the SingleIterationAnalyzer.
+
+A unit is a strongly connected component of the dependency graph, its infos in analysis order; it must be executed
+sequentially. The units form a DAG, which is executed either level by level (units of the same level do not depend
+on each other; a unit only depends on units of lower levels), or by the DataflowScheduler.
+
+The dependency graph consists of the edges of the call graph used to compute the analysis order (at least REFERENCES),
+between infos of the order, and of edges from each info to the one preceding it in the same primary type.
+The latter are there because the analyzers of a method, a field, or a type, read values of the other members of
+the primary type without a corresponding edge in the call graph. Parallelism is therefore between primary types;
+the sequential and the parallel execution of the analysis order compute the same values.
+ */
+class Wavefront {
+
+    private Wavefront() {
+    }
+
+    /*
+    The units, in an order compatible with the dependencies (dependencies first), and for each unit, the indices of
+    the units it depends on.
+     */
+    record Dag(List<List<Info>> units, int[][] dependencies) {
+    }
+
+    static Dag dag(List<Info> analysisOrder, G<Info> callGraph) {
+        int n = analysisOrder.size();
+        Map<Info, Integer> index = new HashMap<>(2 * n);
+        for (int i = 0; i < n; i++) index.put(analysisOrder.get(i), i);
+        int[][] dependencies = dependencies(analysisOrder, callGraph, index);
+
+        int[] component = new int[n];
+        List<int[]> components = stronglyConnectedComponents(dependencies, component);
+
+        List<List<Info>> units = new ArrayList<>(components.size());
+        int[][] unitDependencies = new int[components.size()][];
+        for (int c = 0; c < components.size(); c++) {
+            int[] members = components.get(c);
+            Arrays.sort(members);
+            List<Info> unit = new ArrayList<>(members.length);
+            Set<Integer> dependsOn = new HashSet<>();
+            for (int i : members) {
+                unit.add(analysisOrder.get(i));
+                for (int d : dependencies[i]) {
+                    if (component[d] != c) dependsOn.add(component[d]);
+                }
+            }
+            units.add(unit);
+            unitDependencies[c] = dependsOn.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new Dag(units, unitDependencies);
+    }
+
+    static List<List<List<Info>>> levels(List<Info> analysisOrder, G<Info> callGraph) {
+        return levels(dag(analysisOrder, callGraph));
+    }
+
+    // Tarjan emits a component after all the components it depends on
+    static List<List<List<Info>>> levels(Dag dag) {
+        int[] level = new int[dag.units().size()];
+        List<List<List<Info>>> levels = new ArrayList<>();
+        for (int c = 0; c < level.length; c++) {
+            int l = 0;
+            for (int d : dag.dependencies()[c]) {
+                l = Math.max(l, level[d] + 1);
+            }
+            level[c] = l;
+            if (l == levels.size()) levels.add(new ArrayList<>());
+            levels.get(l).add(dag.units().get(c));
+        }
+        return levels;
+    }
+
+    private static int[][] dependencies(List<Info> analysisOrder, G<Info> callGraph, Map<Info, Integer> index) {
+        int n = analysisOrder.size();
+        List<Set<Integer>> sets = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) sets.add(new HashSet<>());
+        for (int i = 0; i < n; i++) {
+            Info info = analysisOrder.get(i);
+            V<Info> v = callGraph.vertex(info);
+            Map<V<Info>, Long> edges = v == null ? null : callGraph.edges(v);
+            if (edges != null) {
+                for (Map.Entry<V<Info>, Long> entry : edges.entrySet()) {
+                    Integer to = index.get(entry.getKey().t());
+                    if (to != null && to != i && ComputeCallGraph.isAtLeastReference(entry.getValue())) {
+                        sets.get(i).add(to);
+                    }
+                }
+            }
+        }
+        // within a primary type, the analysis order is kept
+        Map<TypeInfo, Integer> previousOfPrimaryType = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Integer previous = previousOfPrimaryType.put(analysisOrder.get(i).typeInfo().primaryType(), i);
+            if (previous != null) sets.get(i).add(previous);
+        }
+        int[][] dependencies = new int[n][];
+        for (int i = 0; i < n; i++) {
+            dependencies[i] = sets.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return dependencies;
+    }
+
+    /*
+    Iterative version of Tarjan's algorithm: call graphs can be too deep for recursion.
+    Components are returned in the order in which they are completed: dependencies first.
+     */
+    private static List<int[]> stronglyConnectedComponents(int[][] dependencies, int[] component) {
+        int n = dependencies.length;
+        int[] indexOf = new int[n];
+        Arrays.fill(indexOf, -1);
+        int[] lowLink = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callStack = new int[n];
+        int[] edgePosition = new int[n];
+        int counter = 0;
+        List<int[]> components = new ArrayList<>();
+
+        for (int root = 0; root < n; root++) {
+            if (indexOf[root] >= 0) continue;
+            int depth = 0;
+            callStack[depth] = root;
+            edgePosition[root] = 0;
+            indexOf[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int u = callStack[depth];
+                if (edgePosition[u] < dependencies[u].length) {
+                    int w = dependencies[u][edgePosition[u]++];
+                    if (indexOf[w] < 0) {
+                        indexOf[w] = lowLink[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        edgePosition[w] = 0;
+                        callStack[++depth] = w;
+                    } else if (onStack[w]) {
+                        lowLink[u] = Math.min(lowLink[u], indexOf[w]);
+                    }
+                } else {
+                    if (lowLink[u] == indexOf[u]) {
+                        int start = stackSize;
+                        do {
+                            --start;
+                        } while (stack[start] != u);
+                        int[] members = Arrays.copyOfRange(stack, start, stackSize);
+                        for (int m : members) {
+                            onStack[m] = false;
+                            component[m] = components.size();
+                        }
+                        stackSize = start;
+                        components.add(members);
+                    }
+                    --depth;
+                    if (depth >= 0) {
+                        int parent = callStack[depth];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[u]);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+}
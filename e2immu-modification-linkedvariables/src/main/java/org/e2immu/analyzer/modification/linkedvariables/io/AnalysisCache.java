@@ -0,0 +1,392 @@
+package org.e2immu.analyzer.modification.linkedvariables.io;
+
+import org.e2immu.analyzer.modification.common.AnalyzerException;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.prepwork.PrepAnalyzer;
+import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeAnalysisOrder;
+import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeCallGraph;
+import org.e2immu.analyzer.modification.prepwork.variable.LinkedVariables;
+import org.e2immu.language.cst.api.analysis.Codec;
+import org.e2immu.language.cst.api.analysis.Property;
+import org.e2immu.language.cst.api.info.*;
+import org.e2immu.language.cst.api.runtime.Runtime;
+import org.e2immu.language.cst.io.CodecImpl;
+import org.e2immu.util.internal.graph.G;
+import org.e2immu.util.internal.graph.V;
+import org.parsers.json.JSONParser;
+import org.parsers.json.ast.Array;
+import org.parsers.json.ast.JSONObject;
+import org.parsers.json.ast.KeyValuePair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinkedVariablesImpl.*;
+
+/*
+On-disk cache of the analysis of primary types, so that a rerun only analyzes the types that changed, and the types
+that depend on them.
+
+There is one file per primary type, <fully qualified name>.analysis, in the cache directory:
+
+    source <hash of the source>
+    dependency <fully qualified name> <hash of its analysis>
+    ...
+    analysis <hash of the analysis>
+    <the analysis as JSON: the properties WriteAnalysis writes, plus linked variables>
+
+The dependencies are the other primary types being analyzed that the type refers to in the call graph of
+ComputeCallGraph. A cached type is used when its source has not changed, all its dependencies are used from the cache
+as well, and their analysis is the one it was analyzed against; otherwise, it goes through the PrepAnalyzer and the
+IteratingAnalyzer again. The set of cached types is the largest set in which every type meets these conditions,
+so that cycles in the call graph are no problem.
+
+The caller decides what the source of a type is, and computes its hash, e.g. with hash() on the content of the
+source file.
+ */
+public class AnalysisCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisCache.class);
+    public static final String EXTENSION = ".analysis";
+
+    private static final String SOURCE = "source ";
+    private static final String DEPENDENCY = "dependency ";
+    private static final String ANALYSIS = "analysis ";
+    private static final Set<Property> LINKED_VARIABLES = Set.of(LINKED_VARIABLES_METHOD, LINKED_VARIABLES_PARAMETER,
+            LINKED_VARIABLES_FIELD);
+
+    private final Runtime runtime;
+    private final Path directory;
+    private final Function<TypeInfo, String> sourceHash;
+    private final Codec codec;
+    // the hash of the analysis of the types loaded or stored, to be recorded in the types that depend on them
+    private final Map<TypeInfo, String> analysisHashes = new HashMap<>();
+
+    public AnalysisCache(Runtime runtime, Path directory, Function<TypeInfo, String> sourceHash) {
+        this.runtime = runtime;
+        this.directory = directory;
+        this.sourceHash = sourceHash;
+        this.codec = new LinkedVariablesCodec(runtime).codec();
+    }
+
+    public record Result(Set<TypeInfo> cached, Set<TypeInfo> analyzed, IteratingAnalyzer.Output output) {
+    }
+
+    private record Entry(String sourceHash, Map<String, String> dependencies, String analysisHash, String json) {
+    }
+
+    /*
+    Loads the primary types that are valid in the cache, analyzes the others, and stores those of which the analysis
+    is complete. The PrepAnalyzer must have been initialized.
+     */
+    public Result analyze(PrepAnalyzer prepAnalyzer, IteratingAnalyzer analyzer, Set<TypeInfo> primaryTypes)
+            throws IOException {
+        G<Info> callGraph = new ComputeCallGraph(runtime, primaryTypes, PrepAnalyzer.DO_NOT_ACCEPT_EXTERNALS)
+                .go().graph();
+        Set<TypeInfo> cached = load(primaryTypes, callGraph);
+        Set<TypeInfo> toAnalyze = primaryTypes.stream().filter(t -> !cached.contains(t))
+                .collect(Collectors.toUnmodifiableSet());
+        LOGGER.info("Analysis cache: {} of {} primary types cached, analyzing {}", cached.size(),
+                primaryTypes.size(), toAnalyze.size());
+
+        G<Info> graph = prepAnalyzer.doPrimaryTypesReturnGraph(toAnalyze);
+        List<Info> analysisOrder = new ComputeAnalysisOrder().go(graph);
+        IteratingAnalyzer.Output output = analyzer.analyze(analysisOrder, graph);
+
+        // do not store incomplete analysis: it would be used as if it were complete
+        Set<TypeInfo> incomplete = Stream.concat(
+                        output.waitingFor().vertices().stream().map(V::t),
+                        output.analyzerExceptions().stream().map(AnalyzerException::getInfo))
+                .map(info -> info.typeInfo().primaryType())
+                .collect(Collectors.toUnmodifiableSet());
+        Set<TypeInfo> toStore = toAnalyze.stream().filter(t -> !incomplete.contains(t))
+                .collect(Collectors.toUnmodifiableSet());
+        store(primaryTypes, callGraph, toStore);
+        return new Result(cached, toAnalyze, output);
+    }
+
+    /*
+    Decodes the analysis of the primary types that are valid in the cache. The call graph must have been computed
+    over all primary types; the analysis of the types returned must not be computed again.
+     */
+    public Set<TypeInfo> load(Set<TypeInfo> primaryTypes, G<Info> callGraph) throws IOException {
+        Map<TypeInfo, Entry> entries = new HashMap<>();
+        for (TypeInfo primaryType : primaryTypes) {
+            Entry entry = read(primaryType);
+            if (entry != null && entry.sourceHash.equals(sourceHash.apply(primaryType))) {
+                entries.put(primaryType, entry);
+            }
+        }
+        Map<TypeInfo, Set<TypeInfo>> dependencies = dependencies(primaryTypes, callGraph);
+        Set<TypeInfo> valid = new HashSet<>(entries.keySet());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Iterator<TypeInfo> iterator = valid.iterator();
+            while (iterator.hasNext()) {
+                TypeInfo primaryType = iterator.next();
+                if (!isValid(entries.get(primaryType), dependencies.get(primaryType), valid, entries)) {
+                    iterator.remove();
+                    changed = true;
+                }
+            }
+        }
+        for (TypeInfo primaryType : valid) {
+            Entry entry = entries.get(primaryType);
+            decode(entry.json);
+            analysisHashes.put(primaryType, entry.analysisHash);
+        }
+        return Set.copyOf(valid);
+    }
+
+    private static boolean isValid(Entry entry, Set<TypeInfo> dependencies, Set<TypeInfo> valid,
+                                   Map<TypeInfo, Entry> entries) {
+        if (entry.dependencies.size() != dependencies.size()) return false;
+        for (TypeInfo dependency : dependencies) {
+            if (!valid.contains(dependency)) return false;
+            String hash = entry.dependencies.get(dependency.fullyQualifiedName());
+            if (!entries.get(dependency).analysisHash.equals(hash)) return false;
+        }
+        return true;
+    }
+
+    /*
+    Stores the analysis of the given primary types. Their dependencies must have been loaded or stored before,
+    or be part of the same call; otherwise the type is not stored.
+     */
+    public int store(Set<TypeInfo> primaryTypes, G<Info> callGraph, Set<TypeInfo> toStore) throws IOException {
+        Map<TypeInfo, String> jsonMap = new HashMap<>();
+        for (TypeInfo primaryType : toStore) {
+            try {
+                String json = encode(primaryType);
+                jsonMap.put(primaryType, json);
+                analysisHashes.put(primaryType, hash(json));
+            } catch (RuntimeException re) {
+                LOGGER.warn("Cannot store the analysis of {} in the cache: {}", primaryType, re.getMessage());
+                analysisHashes.remove(primaryType);
+            }
+        }
+        Files.createDirectories(directory);
+        Map<TypeInfo, Set<TypeInfo>> dependencies = dependencies(primaryTypes, callGraph);
+        int stored = 0;
+        for (Map.Entry<TypeInfo, String> entry : jsonMap.entrySet()) {
+            TypeInfo primaryType = entry.getKey();
+            StringBuilder sb = new StringBuilder();
+            sb.append(SOURCE).append(sourceHash.apply(primaryType)).append('\n');
+            boolean complete = true;
+            for (TypeInfo dependency : dependencies.get(primaryType).stream()
+                    .sorted(Comparator.comparing(TypeInfo::fullyQualifiedName)).toList()) {
+                String hash = analysisHashes.get(dependency);
+                if (hash == null) {
+                    complete = false;
+                    break;
+                }
+                sb.append(DEPENDENCY).append(dependency.fullyQualifiedName()).append(' ').append(hash).append('\n');
+            }
+            Path file = file(primaryType);
+            if (complete) {
+                sb.append(ANALYSIS).append(analysisHashes.get(primaryType)).append('\n').append(entry.getValue());
+                Path tmp = directory.resolve(file.getFileName() + ".tmp");
+                Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                ++stored;
+            } else {
+                Files.deleteIfExists(file);
+            }
+        }
+        LOGGER.info("Stored the analysis of {} primary types in {}", stored, directory);
+        return stored;
+    }
+
+    public static String hash(String content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+
+    private Path file(TypeInfo primaryType) {
+        return directory.resolve(primaryType.fullyQualifiedName() + EXTENSION);
+    }
+
+    // the primary types being analyzed, that each primary type refers to, except itself
+    private static Map<TypeInfo, Set<TypeInfo>> dependencies(Set<TypeInfo> primaryTypes, G<Info> callGraph) {
+        Map<TypeInfo, Set<TypeInfo>> map = new HashMap<>();
+        primaryTypes.forEach(t -> map.put(t, new HashSet<>()));
+        for (V<Info> from : callGraph.vertices()) {
+            TypeInfo fromType = from.t().typeInfo().primaryType();
+            Set<TypeInfo> set = map.get(fromType);
+            Map<V<Info>, Long> edges = callGraph.edges(from);
+            if (set == null || edges == null) continue;
+            for (Map.Entry<V<Info>, Long> edge : edges.entrySet()) {
+                TypeInfo toType = edge.getKey().t().typeInfo().primaryType();
+                if (toType != fromType && map.containsKey(toType)
+                    && ComputeCallGraph.isAtLeastReference(edge.getValue())) {
+                    set.add(toType);
+                }
+            }
+        }
+        return map;
+    }
+
+    // null when there is no entry, or when it is damaged
+    private Entry read(TypeInfo primaryType) throws IOException {
+        Path file = file(primaryType);
+        if (!Files.isRegularFile(file)) return null;
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        String source = null;
+        Map<String, String> dependencies = new HashMap<>();
+        int pos = 0;
+        while (pos < content.length()) {
+            int eol = content.indexOf('\n', pos);
+            if (eol < 0) break;
+            String line = content.substring(pos, eol);
+            pos = eol + 1;
+            if (line.startsWith(SOURCE)) {
+                source = line.substring(SOURCE.length());
+            } else if (line.startsWith(DEPENDENCY)) {
+                String[] parts = line.substring(DEPENDENCY.length()).split(" ");
+                if (parts.length != 2) break;
+                dependencies.put(parts[0], parts[1]);
+            } else if (line.startsWith(ANALYSIS)) {
+                String analysisHash = line.substring(ANALYSIS.length());
+                String json = content.substring(pos);
+                if (source != null && analysisHash.equals(hash(json))) {
+                    return new Entry(source, dependencies, analysisHash, json);
+                }
+                break;
+            } else {
+                break;
+            }
+        }
+        LOGGER.warn("Ignoring damaged analysis cache file {}", file);
+        return null;
+    }
+
+    // see WriteAnalysis.writePrimary: the same structure, with linked variables
+    private String encode(TypeInfo primaryType) throws IOException {
+        Codec.Context context = new CodecImpl.ContextImpl();
+        context.push(primaryType);
+        CodecImpl.E e = (CodecImpl.E) encodeType(context, primaryType, 0);
+        context.pop();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (OutputStreamWriter osw = new OutputStreamWriter(baos, StandardCharsets.UTF_8)) {
+            e.write(osw, 0, true);
+        }
+        return baos.toString(StandardCharsets.UTF_8);
+    }
+
+    private Codec.EncodedValue encodeType(Codec.Context context, TypeInfo typeInfo, int index) {
+        List<Codec.EncodedValue> subs = new ArrayList<>();
+        int sc = 0;
+        for (TypeInfo subType : typeInfo.subTypes()) {
+            context.push(subType);
+            subs.add(encodeType(context, subType, sc));
+            context.pop();
+            sc++;
+        }
+        int fc = 0;
+        for (FieldInfo fieldInfo : typeInfo.fields()) {
+            context.push(fieldInfo);
+            subs.add(encode(context, fieldInfo, fc, null));
+            context.pop();
+            fc++;
+        }
+        int cc = 0;
+        for (MethodInfo methodInfo : typeInfo.constructors()) {
+            context.push(methodInfo);
+            subs.add(encodeMethod(context, methodInfo, cc));
+            context.pop();
+            cc++;
+        }
+        int mc = 0;
+        for (MethodInfo methodInfo : typeInfo.methods()) {
+            context.push(methodInfo);
+            subs.add(encodeMethod(context, methodInfo, mc));
+            context.pop();
+            mc++;
+        }
+        return encode(context, typeInfo, index, subs);
+    }
+
+    private Codec.EncodedValue encodeMethod(Codec.Context context, MethodInfo methodInfo, int index) {
+        List<Codec.EncodedValue> subs = new ArrayList<>(methodInfo.parameters().size());
+        int p = 0;
+        for (ParameterInfo parameterInfo : methodInfo.parameters()) {
+            context.push(parameterInfo);
+            subs.add(encode(context, parameterInfo, p, null));
+            context.pop();
+            p++;
+        }
+        return encode(context, methodInfo, index, subs);
+    }
+
+    private Codec.EncodedValue encode(Codec.Context context, Info info, int index, List<Codec.EncodedValue> subs) {
+        Stream<Codec.EncodedPropertyValue> stream = info.analysis().propertyValueStream()
+                .map(pv -> LINKED_VARIABLES.contains(pv.property())
+                        ? new Codec.EncodedPropertyValue(pv.property().key(),
+                        LinkedVariablesCodec.encodeLinkedVariables(codec, context, (LinkedVariables) pv.value()))
+                        : codec.encode(context, pv.property(), pv.value()))
+                .filter(Objects::nonNull);
+        return codec.encode(context, info, "" + index, stream, subs);
+    }
+
+    // see LoadAnalyzedPackageFiles.processPrimaryType
+    private void decode(String json) {
+        JSONParser parser = new JSONParser(json);
+        parser.Root();
+        for (JSONObject jo : parser.rootNode().childrenOfType(JSONObject.class)) {
+            decodeSub(new CodecImpl.ContextImpl(), jo);
+        }
+    }
+
+    private void decodeSub(Codec.Context context, JSONObject jo) {
+        KeyValuePair nameKv = (KeyValuePair) jo.get(1);
+        String fullyQualifiedWithType = CodecImpl.unquote(nameKv.get(2).getSource());
+        KeyValuePair dataKv = (KeyValuePair) jo.get(3);
+        JSONObject dataJo = (JSONObject) dataKv.get(2);
+
+        char type = fullyQualifiedWithType.charAt(0);
+        String name = fullyQualifiedWithType.substring(1);
+        Info info = codec.decodeInfoInContext(context, type, name);
+        if (info == null) {
+            throw new UnsupportedOperationException("Cannot find " + name);
+        }
+        context.push(info);
+        List<Codec.EncodedPropertyValue> epvs = new ArrayList<>();
+        for (int i = 1; i < dataJo.size(); i += 2) {
+            if (dataJo.get(i) instanceof KeyValuePair kvp2) {
+                String key = CodecImpl.unquote(kvp2.get(0).getSource());
+                epvs.add(new Codec.EncodedPropertyValue(key, new CodecImpl.D(kvp2.get(2))));
+            }
+        }
+        // the decoder writes directly into info.analysis(), in order: HCS needs HCT
+        codec.decode(context, info.analysis(), epvs.stream());
+        if (jo.size() > 5) {
+            KeyValuePair subs = (KeyValuePair) jo.get(5);
+            if ("\"sub\"".equals(subs.get(0).getSource())) {
+                decodeSub(context, (JSONObject) subs.get(2));
+            } else {
+                Array array = (Array) subs.get(2);
+                for (int i = 1; i < array.size(); i += 2) {
+                    decodeSub(context, (JSONObject) array.get(i));
+                }
+            }
+        }
+        context.pop();
+    }
+}
@@ -1,22 +1,30 @@
 package org.e2immu.analyzer.modification.linkedvariables.io;
 
-import org.e2immu.analyzer.modification.linkedvariables.lv.StaticValuesImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.*;
 import org.e2immu.analyzer.modification.prepwork.hcs.HiddenContentSelector;
+import org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl;
 import org.e2immu.analyzer.modification.prepwork.hct.HiddenContentTypes;
+import org.e2immu.analyzer.modification.prepwork.variable.*;
 import org.e2immu.language.cst.api.analysis.Codec;
 import org.e2immu.language.cst.api.analysis.Property;
 import org.e2immu.language.cst.api.analysis.Value;
 import org.e2immu.language.cst.api.runtime.Runtime;
+import org.e2immu.language.cst.api.variable.Variable;
 import org.e2immu.language.cst.impl.analysis.PropertyProviderImpl;
 import org.e2immu.language.cst.impl.analysis.ValueImpl;
 import org.e2immu.language.cst.io.CodecImpl;
 
-import java.util.Map;
+import java.util.*;
 import java.util.function.BiFunction;
 
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl.*;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinkedVariablesImpl.LINKED_VARIABLES_FIELD;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinkedVariablesImpl.LINKED_VARIABLES_METHOD;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinkedVariablesImpl.LINKED_VARIABLES_PARAMETER;
 import static org.e2immu.analyzer.modification.linkedvariables.lv.StaticValuesImpl.*;
 import static org.e2immu.analyzer.modification.prepwork.hcs.HiddenContentSelector.HCS_METHOD;
 import static org.e2immu.analyzer.modification.prepwork.hcs.HiddenContentSelector.HCS_PARAMETER;
+import static org.e2immu.analyzer.modification.prepwork.callgraph.ComputeCallGraph.RECURSIVE_METHOD;
 import static org.e2immu.analyzer.modification.prepwork.callgraph.ComputePartOfConstructionFinalField.PART_OF_CONSTRUCTION;
 import static org.e2immu.analyzer.modification.prepwork.hct.HiddenContentTypes.HIDDEN_CONTENT_TYPES;
 
@@ -44,14 +52,18 @@ public class LinkedVariablesCodec {
         }
     }
 
-    private static final Map<String, Property> PROPERTY_MAP = Map.of(
-            HIDDEN_CONTENT_TYPES.key(), HIDDEN_CONTENT_TYPES,
-            HCS_METHOD.key(), HCS_METHOD,
-            HCS_PARAMETER.key(), HCS_PARAMETER,
-            PART_OF_CONSTRUCTION.key(), PART_OF_CONSTRUCTION,
-            STATIC_VALUES_PARAMETER.key(), STATIC_VALUES_PARAMETER,
-            STATIC_VALUES_METHOD.key(), STATIC_VALUES_METHOD,
-            STATIC_VALUES_FIELD.key(), STATIC_VALUES_FIELD);
+    private static final Map<String, Property> PROPERTY_MAP = Map.ofEntries(
+            Map.entry(HIDDEN_CONTENT_TYPES.key(), HIDDEN_CONTENT_TYPES),
+            Map.entry(HCS_METHOD.key(), HCS_METHOD),
+            Map.entry(HCS_PARAMETER.key(), HCS_PARAMETER),
+            Map.entry(PART_OF_CONSTRUCTION.key(), PART_OF_CONSTRUCTION),
+            Map.entry(STATIC_VALUES_PARAMETER.key(), STATIC_VALUES_PARAMETER),
+            Map.entry(STATIC_VALUES_METHOD.key(), STATIC_VALUES_METHOD),
+            Map.entry(STATIC_VALUES_FIELD.key(), STATIC_VALUES_FIELD),
+            Map.entry(LINKED_VARIABLES_METHOD.key(), LINKED_VARIABLES_METHOD),
+            Map.entry(LINKED_VARIABLES_PARAMETER.key(), LINKED_VARIABLES_PARAMETER),
+            Map.entry(LINKED_VARIABLES_FIELD.key(), LINKED_VARIABLES_FIELD),
+            Map.entry(RECURSIVE_METHOD.key(), RECURSIVE_METHOD));
 
     static class P implements Codec.PropertyProvider {
         @Override
@@ -75,10 +87,73 @@ public class LinkedVariablesCodec {
             if (StaticValuesImpl.class.equals(clazz)) {
                 return (di, ev) -> StaticValuesImpl.decode(di.codec(), di.context(), ev);
             }
+            if (LinkedVariablesImpl.class.equals(clazz)) {
+                return (di, ev) -> decodeLinkedVariables(di.codec(), di.context(), ev);
+            }
             // part of construction uses "set of info", which is in ValueImpl.
             return ValueImpl.decoder(clazz);
         }
     }
 
-}
+    /*
+    Linked variables are not part of the analyzed package files, LinkedVariablesImpl.encode() returns null, but they
+    are stored in the AnalysisCache. Variables and links are sorted, so that equal values have equal encodings.
+    Delayed links cannot be encoded.
+     */
+    public static Codec.EncodedValue encodeLinkedVariables(Codec codec, Codec.Context context,
+                                                           LinkedVariables linkedVariables) {
+        List<Codec.EncodedValue> list = linkedVariables.stream()
+                .sorted(Comparator.comparing(e -> e.getKey().fullyQualifiedName()))
+                .map(e -> codec.encodeList(context, List.of(codec.encodeVariable(context, e.getKey()),
+                        encodeLV(codec, context, e.getValue()))))
+                .toList();
+        return codec.encodeList(context, list);
+    }
 
+    private static Codec.EncodedValue encodeLV(Codec codec, Codec.Context context, LV lv) {
+        if (lv.isDelayed()) throw new UnsupportedOperationException("Cannot encode a delayed link");
+        List<Codec.EncodedValue> list = new ArrayList<>(4);
+        list.add(codec.encodeInt(context, lv.value()));
+        if (lv.isDependent() || lv.isCommonHC()) {
+            Links links = lv.links();
+            List<Codec.EncodedValue> encodedLinks = links.map().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(e -> codec.encodeList(context, List.of(e.getKey().encode(codec, context),
+                            e.getValue().to().encode(codec, context),
+                            codec.encodeInt(context, e.getValue().mutable() ? 1 : 0))))
+                    .toList();
+            list.add(codec.encodeList(context, encodedLinks));
+            list.add(links.modificationAreaSource().encode(codec, context));
+            list.add(links.modificationAreaTarget().encode(codec, context));
+        }
+        return codec.encodeList(context, list);
+    }
+
+    public static LinkedVariables decodeLinkedVariables(Codec codec, Codec.Context context, Codec.EncodedValue ev) {
+        Map<Variable, LV> map = new HashMap<>();
+        for (Codec.EncodedValue encodedPair : codec.decodeList(context, ev)) {
+            List<Codec.EncodedValue> pair = codec.decodeList(context, encodedPair);
+            map.put(codec.decodeVariable(context, pair.get(0)), decodeLV(codec, context, pair.get(1)));
+        }
+        return map.isEmpty() ? LinkedVariablesImpl.EMPTY : LinkedVariablesImpl.of(map);
+    }
+
+    private static LV decodeLV(Codec codec, Codec.Context context, Codec.EncodedValue ev) {
+        List<Codec.EncodedValue> list = codec.decodeList(context, ev);
+        int value = codec.decodeInt(context, list.getFirst());
+        if (list.size() == 1) {
+            if (value == LINK_STATICALLY_ASSIGNED.value()) return LINK_STATICALLY_ASSIGNED;
+            if (value == LINK_ASSIGNED.value()) return LINK_ASSIGNED;
+            throw new UnsupportedOperationException("Link " + value + " without link information");
+        }
+        Map<Indices, Link> map = new HashMap<>();
+        for (Codec.EncodedValue encodedLink : codec.decodeList(context, list.get(1))) {
+            List<Codec.EncodedValue> link = codec.decodeList(context, encodedLink);
+            map.put(IndicesImpl.decode(codec, context, link.get(0)),
+                    new LinkImpl(IndicesImpl.decode(codec, context, link.get(1)), codec.decodeInt(context, link.get(2)) == 1));
+        }
+        Links links = new LinksImpl(map, IndicesImpl.decode(codec, context, list.get(2)),
+                IndicesImpl.decode(codec, context, list.get(3)));
+        return value == LINK_DEPENDENT.value() ? LVImpl.createDependent(links) : LVImpl.createHC(links);
+    }
+}
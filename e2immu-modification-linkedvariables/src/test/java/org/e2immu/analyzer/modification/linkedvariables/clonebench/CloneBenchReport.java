@@ -0,0 +1,140 @@
+package org.e2immu.analyzer.modification.linkedvariables.clonebench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.*;
+
+/*
+Measurements of the clonebench throughput benchmark, per file, and their total.
+
+The report is a CSV file with one row per file, and a last row with file name TOTAL. Two reports are compared
+on their totals: parse, prep and modification time, and types per second. Per-file times are too noisy to compare,
+but the files that slowed down most are listed, to know where to start looking.
+ */
+public record CloneBenchReport(List<Row> rows) {
+    public static final String TOTAL = "TOTAL";
+    static final String HEADER = "file,types,parseMillis,prepMillis,modificationMillis,iterations,cacheHits,cacheMisses,peakHeapBytes";
+
+    public record Row(String file, int types, long parseMillis, long prepMillis, long modificationMillis,
+                      int iterations, long cacheHits, long cacheMisses, long peakHeapBytes) {
+
+        public long totalMillis() {
+            return parseMillis + prepMillis + modificationMillis;
+        }
+
+        public double cacheHitRate() {
+            long total = cacheHits + cacheMisses;
+            return total == 0 ? 0.0 : (double) cacheHits / total;
+        }
+
+        public double typesPerSecond() {
+            long millis = totalMillis();
+            return millis == 0 ? 0.0 : 1000.0 * types / millis;
+        }
+
+        String csv() {
+            return String.join(",", file, Integer.toString(types), Long.toString(parseMillis),
+                    Long.toString(prepMillis), Long.toString(modificationMillis), Integer.toString(iterations),
+                    Long.toString(cacheHits), Long.toString(cacheMisses), Long.toString(peakHeapBytes));
+        }
+
+        static Row parse(String line) {
+            String[] s = line.split(",");
+            if (s.length != 9) throw new IllegalArgumentException("Cannot parse report line: " + line);
+            return new Row(s[0], Integer.parseInt(s[1]), Long.parseLong(s[2]), Long.parseLong(s[3]),
+                    Long.parseLong(s[4]), Integer.parseInt(s[5]), Long.parseLong(s[6]), Long.parseLong(s[7]),
+                    Long.parseLong(s[8]));
+        }
+    }
+
+    public Row total() {
+        int types = 0;
+        long parse = 0;
+        long prep = 0;
+        long modification = 0;
+        int iterations = 0;
+        long hits = 0;
+        long misses = 0;
+        long peakHeap = 0;
+        for (Row row : rows) {
+            if (TOTAL.equals(row.file)) continue;
+            types += row.types;
+            parse += row.parseMillis;
+            prep += row.prepMillis;
+            modification += row.modificationMillis;
+            iterations += row.iterations;
+            hits += row.cacheHits;
+            misses += row.cacheMisses;
+            peakHeap = Math.max(peakHeap, row.peakHeapBytes);
+        }
+        return new Row(TOTAL, types, parse, prep, modification, iterations, hits, misses, peakHeap);
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+        for (Row row : rows) {
+            if (TOTAL.equals(row.file)) continue;
+            writer.write(row.csv());
+            writer.write('\n');
+        }
+        writer.write(total().csv());
+        writer.write('\n');
+    }
+
+    public static CloneBenchReport read(Reader reader) throws IOException {
+        BufferedReader br = new BufferedReader(reader);
+        String header = br.readLine();
+        if (!HEADER.equals(header)) throw new IllegalArgumentException("Not a clonebench report: " + header);
+        List<Row> rows = new ArrayList<>();
+        String line;
+        while ((line = br.readLine()) != null) {
+            if (!line.isBlank()) {
+                Row row = Row.parse(line);
+                if (!TOTAL.equals(row.file)) rows.add(row);
+            }
+        }
+        return new CloneBenchReport(List.copyOf(rows));
+    }
+
+    /*
+    A measure is a regression when it is worse than the baseline by more than the tolerance, a fraction.
+    Returns the descriptions of the regressions; an empty list when there are none.
+     */
+    public List<String> regressions(CloneBenchReport baseline, double tolerance) {
+        Row mine = total();
+        Row theirs = baseline.total();
+        List<String> regressions = new ArrayList<>();
+        slower(regressions, "parse time", mine.parseMillis, theirs.parseMillis, tolerance);
+        slower(regressions, "prep time", mine.prepMillis, theirs.prepMillis, tolerance);
+        slower(regressions, "modification time", mine.modificationMillis, theirs.modificationMillis, tolerance);
+        if (mine.typesPerSecond() < theirs.typesPerSecond() * (1.0 - tolerance)) {
+            regressions.add(String.format("types/second: %.1f, baseline %.1f", mine.typesPerSecond(),
+                    theirs.typesPerSecond()));
+        }
+        return regressions;
+    }
+
+    private static void slower(List<String> regressions, String what, long mine, long theirs, double tolerance) {
+        if (mine > theirs * (1.0 + tolerance)) {
+            regressions.add(String.format("%s: %d ms, baseline %d ms (+%.1f%%)", what, mine, theirs,
+                    theirs == 0 ? 100.0 : 100.0 * (mine - theirs) / theirs));
+        }
+    }
+
+    // the files whose total time grew most relative to the baseline, worst first
+    public List<String> slowestFiles(CloneBenchReport baseline, int n) {
+        Map<String, Row> base = new HashMap<>();
+        baseline.rows.forEach(r -> base.put(r.file, r));
+        return rows.stream()
+                .filter(r -> !TOTAL.equals(r.file) && base.containsKey(r.file))
+                .map(r -> Map.entry(r.file, r.totalMillis() - base.get(r.file).totalMillis()))
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(n)
+                .map(e -> e.getKey() + " +" + e.getValue() + " ms")
+                .toList();
+    }
+}
@@ -83,7 +83,7 @@ public class TestCloneBench extends CommonTest {
                 });
     }
 
-    private static final String[] DIRS = {"bubblesort_for_withunit", "collections_layered",
+    static final String[] DIRS = {"bubblesort_for_withunit", "collections_layered",
             "dowhile_pure_compiles", "dowhile_pure_selected_withunit",
             "foreach_pure_compiles", "foreach_selection1_withunit",
             "fors_pure_compiles", "fors_pure_selected_withunit",
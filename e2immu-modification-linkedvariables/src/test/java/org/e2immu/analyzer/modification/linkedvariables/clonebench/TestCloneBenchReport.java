@@ -0,0 +1,53 @@
+package org.e2immu.analyzer.modification.linkedvariables.clonebench;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCloneBenchReport {
+
+    private static CloneBenchReport report(long parse, long prep, long modification) {
+        return new CloneBenchReport(List.of(
+                new CloneBenchReport.Row("a/A.java", 2, parse, prep, modification, 2, 30, 10, 100L << 20),
+                new CloneBenchReport.Row("a/B.java", 1, 10, 10, 10, 1, 0, 10, 50L << 20)));
+    }
+
+    @Test
+    public void test() throws IOException {
+        CloneBenchReport report = report(100, 50, 200);
+        CloneBenchReport.Row total = report.total();
+        assertEquals(3, total.types());
+        assertEquals(380, total.totalMillis());
+        assertEquals(0.6, total.cacheHitRate(), 1e-9);
+        assertEquals(100L << 20, total.peakHeapBytes());
+
+        StringWriter sw = new StringWriter();
+        report.write(sw);
+        String[] lines = sw.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(CloneBenchReport.HEADER, lines[0]);
+        assertTrue(lines[3].startsWith("TOTAL,3,110,60,210,3,30,20,"));
+
+        CloneBenchReport read = CloneBenchReport.read(new StringReader(sw.toString()));
+        assertEquals(report, read);
+    }
+
+    @Test
+    public void testRegressions() {
+        CloneBenchReport baseline = report(100, 50, 200);
+        assertTrue(report(105, 50, 200).regressions(baseline, 0.1).isEmpty());
+
+        CloneBenchReport slower = report(100, 50, 400);
+        List<String> regressions = slower.regressions(baseline, 0.1);
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.getFirst().startsWith("modification time: 410 ms, baseline 210 ms"),
+                regressions.getFirst());
+        assertTrue(regressions.get(1).startsWith("types/second"));
+        assertEquals(List.of("a/A.java +200 ms"), slower.slowestFiles(baseline, 5));
+    }
+}
@@ -0,0 +1,141 @@
+package org.e2immu.analyzer.modification.linkedvariables.clonebench;
+
+import ch.qos.logback.classic.Level;
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.ConcurrentGraphCacheImpl;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Throughput benchmark over the clonebench corpus of TestCloneBench (same requirements: "analyzed" branch of
+"testarchive"). Only runs when a report file is given:
+
+  ./gradlew test --tests '*TestCloneBenchThroughput' -De2immu.clonebench.report=build/clonebench.csv \
+        [-De2immu.clonebench.baseline=clonebench-baseline.csv] [-De2immu.clonebench.tolerance=0.1]
+
+For every file: parse, prep and modification time (wall clock, ms), the number of iterations, hits and misses of
+the shared link graph cache, peak heap (summed over the heap pools, reset before every file), and the number of
+types. With a baseline, the test fails when a total is worse than the baseline by more than the tolerance.
+ */
+@EnabledIfSystemProperty(named = TestCloneBenchThroughput.REPORT, matches = ".+")
+public class TestCloneBenchThroughput extends CommonTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestCloneBenchThroughput.class);
+
+    static final String REPORT = "e2immu.clonebench.report";
+    static final String BASELINE = "e2immu.clonebench.baseline";
+    static final String TOLERANCE = "e2immu.clonebench.tolerance";
+    private static final double DEFAULT_TOLERANCE = 0.1;
+    private static final int MAX_ITERATIONS = 3;
+
+    public TestCloneBenchThroughput() {
+        super(true, "jmod:java.desktop",
+                "jmod:java.compiler",
+                "jmod:java.datatransfer",
+                "jmod:java.sql",
+                "jmod:java.logging",
+                "jmod:java.instrument",
+                "jmod:java.rmi",
+                "jmod:java.management");
+    }
+
+    @Test
+    public void test() throws IOException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("graph-algorithm")).setLevel(Level.WARN);
+        ((ch.qos.logback.classic.Logger) LOGGER).setLevel(Level.INFO);
+
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder()
+                .setStoreErrors(true)
+                .setMaxIterations(MAX_ITERATIONS)
+                .build();
+        IteratingAnalyzerImpl iteratingAnalyzer = new IteratingAnalyzerImpl(runtime, configuration);
+
+        List<CloneBenchReport.Row> rows = new ArrayList<>();
+        for (String dir : TestCloneBench.DIRS) {
+            File src = new File("../../testarchive/" + dir + "/src/main/java/");
+            assertTrue(src.isDirectory(), "Cannot find " + src.getAbsolutePath());
+            File[] javaFiles = src.listFiles(f -> f.getName().endsWith(".java") && !f.getName().endsWith("_t.java"));
+            assertNotNull(javaFiles);
+            Arrays.sort(javaFiles);
+            for (File javaFile : javaFiles) {
+                rows.add(measure(iteratingAnalyzer, dir + "/" + javaFile.getName(), javaFile));
+            }
+        }
+        CloneBenchReport report = new CloneBenchReport(List.copyOf(rows));
+        Path reportPath = Path.of(System.getProperty(REPORT));
+        try (Writer writer = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            report.write(writer);
+        }
+        CloneBenchReport.Row total = report.total();
+        LOGGER.info("{} files, {} types: parse {} ms, prep {} ms, modification {} ms, {} types/s, cache hit rate {}%, "
+                    + "peak heap {} MB; report written to {}", rows.size(), total.types(), total.parseMillis(),
+                total.prepMillis(), total.modificationMillis(), String.format("%.1f", total.typesPerSecond()),
+                String.format("%.1f", 100 * total.cacheHitRate()), total.peakHeapBytes() >> 20, reportPath);
+
+        String baselineProperty = System.getProperty(BASELINE);
+        if (baselineProperty != null && !baselineProperty.isBlank()) {
+            CloneBenchReport baseline;
+            try (Reader reader = Files.newBufferedReader(Path.of(baselineProperty), StandardCharsets.UTF_8)) {
+                baseline = CloneBenchReport.read(reader);
+            }
+            double tolerance = Double.parseDouble(System.getProperty(TOLERANCE, Double.toString(DEFAULT_TOLERANCE)));
+            List<String> regressions = report.regressions(baseline, tolerance);
+            if (!regressions.isEmpty()) {
+                LOGGER.warn("Files slowed down most: {}", report.slowestFiles(baseline, 10));
+            }
+            assertTrue(regressions.isEmpty(), "Regressions with respect to " + baselineProperty + ":\n"
+                                              + String.join("\n", regressions));
+        }
+    }
+
+    private CloneBenchReport.Row measure(IteratingAnalyzerImpl iteratingAnalyzer, String name, File javaFile)
+            throws IOException {
+        String input = Files.readString(javaFile.toPath());
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        ConcurrentGraphCacheImpl cache = iteratingAnalyzer.graphCache();
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+
+        long start = System.nanoTime();
+        TypeInfo typeInfo = javaInspector.parse(input);
+        long parsed = System.nanoTime();
+        List<Info> analysisOrder = prepWork(typeInfo);
+        long prepped = System.nanoTime();
+        IteratingAnalyzer.Output output = iteratingAnalyzer.analyze(analysisOrder);
+        long analyzed = System.nanoTime();
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return new CloneBenchReport.Row(name, countTypes(typeInfo), millis(parsed - start), millis(prepped - parsed),
+                millis(analyzed - prepped), output.iterations(), cache.getHits() - hits, cache.getMisses() - misses,
+                peakHeap);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000L;
+    }
+
+    private static int countTypes(TypeInfo typeInfo) {
+        return 1 + typeInfo.subTypes().stream().mapToInt(TestCloneBenchThroughput::countTypes).sum();
+    }
+}
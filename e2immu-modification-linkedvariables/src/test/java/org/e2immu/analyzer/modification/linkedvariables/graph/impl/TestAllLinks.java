@@ -0,0 +1,154 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinkImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl;
+import org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl.ALL_INDICES;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAllLinks extends CommonWG {
+
+    // same graph as TestWeightedGraph15B, plus an isolated variable
+    @Test
+    public void test() {
+        Variable r = makeVariable("r");
+        Variable a = makeVariable("a");
+        Variable s = makeVariable("s");
+        Variable x = makeVariable("x");
+
+        WeightedGraph wg = new WeightedGraphImpl();
+        LV linkAR = LVImpl.createDependent(new LinksImpl(Map.of(ALL_INDICES, new LinkImpl(i0, false)),
+                ALL_INDICES, new IndicesImpl(1)));
+        LV linkRS = LVImpl.createDependent(new LinksImpl(Map.of(ALL_INDICES, new LinkImpl(i0, false)),
+                ALL_INDICES, new IndicesImpl(3)));
+        wg.addNode(r, Map.of(s, linkRS));
+        wg.addNode(a, Map.of(r, linkAR));
+        wg.addNode(x, Map.of());
+
+        ShortestPath.LinkMatrix matrix = wg.shortestPath().allLinks();
+        assertEquals(4, matrix.size());
+        assertEquals(-1, matrix.indexOf(makeVariable("y")));
+
+        int ia = matrix.indexOf(a);
+        int is = matrix.indexOf(s);
+        int ix = matrix.indexOf(x);
+        assertEquals(v0, matrix.get(ia, ia));
+        assertEquals("*-2-0|*-3.1", matrix.get(ia, is).toString());
+        assertEquals("0-2-*|3.1-*", matrix.get(is, ia).toString());
+        assertNull(matrix.get(ia, ix));
+        assertTrue(matrix.linksWithoutSelf(ix).isEmpty());
+
+        // identical to the per-variable computation
+        ShortestPath shortestPath = wg.shortestPath();
+        for (int i = 0; i < matrix.size(); i++) {
+            Map<Variable, LV> links = shortestPath.links(matrix.variable(i), null);
+            links.remove(matrix.variable(i));
+            assertEquals(links, matrix.linksWithoutSelf(i));
+        }
+    }
+
+    @Test
+    public void testIncremental() {
+        Variable r = makeVariable("r");
+        Variable a = makeVariable("a");
+        Variable s = makeVariable("s");
+        Variable x = makeVariable("x");
+        Variable y = makeVariable("y");
+
+        WeightedGraph wg1 = new WeightedGraphImpl(new GraphCacheImpl(10), true);
+        wg1.addNode(r, Map.of(s, v2));
+        wg1.addNode(a, Map.of(r, v1));
+        wg1.addNode(x, Map.of());
+        ShortestPath.LinkMatrix matrix1 = wg1.shortestPath().allLinks();
+
+        // x changes; a, r, s cannot reach x or y
+        WeightedGraph wg2 = new WeightedGraphImpl(new GraphCacheImpl(10), true);
+        wg2.addNode(r, Map.of(s, v2));
+        wg2.addNode(a, Map.of(r, v1));
+        wg2.addNode(x, Map.of(y, v4));
+        ShortestPath.LinkMatrix matrix2 = wg2.allLinks(wg1, matrix1);
+
+        WeightedGraph wg3 = new WeightedGraphImpl(new GraphCacheImpl(10), true);
+        wg3.addNode(r, Map.of(s, v2));
+        wg3.addNode(a, Map.of(r, v1));
+        wg3.addNode(x, Map.of(y, v4));
+        ShortestPath.LinkMatrix matrix3 = wg3.shortestPath().allLinks();
+
+        assertEquals(5, matrix2.size());
+        for (int i = 0; i < matrix3.size(); i++) {
+            Variable v = matrix3.variable(i);
+            assertEquals(matrix3.linksWithoutSelf(i), matrix2.linksWithoutSelf(matrix2.indexOf(v)), "Variable " + v);
+        }
+        // the row of 'a' has been copied from the previous matrix
+        int ia1 = matrix1.indexOf(a);
+        int is1 = matrix1.indexOf(s);
+        assertSame(matrix1.get(ia1, is1), matrix2.get(matrix2.indexOf(a), matrix2.indexOf(s)));
+        assertNotNull(matrix2.get(matrix2.indexOf(x), matrix2.indexOf(y)));
+    }
+
+    /*
+    The sequence of MethodModAnalyzerImpl on an if/else statement followed by another statement: the evaluation of
+    the if/else statement, the merge after its blocks, in which x has been linked to y, and the next statement,
+    which adds z. The next statement must start from the merge, where only z has changed.
+     */
+    @Test
+    public void testIncrementalAfterIfElse() {
+        Variable r = makeVariable("r");
+        Variable a = makeVariable("a");
+        Variable s = makeVariable("s");
+        Variable x = makeVariable("x");
+        Variable y = makeVariable("y");
+        Variable z = makeVariable("z");
+
+        WeightedGraph evaluation = new WeightedGraphImpl(new GraphCacheImpl(10), true);
+        evaluation.addNode(r, Map.of(s, v2));
+        evaluation.addNode(a, Map.of(r, v1));
+        evaluation.addNode(x, Map.of());
+        evaluation.addNode(y, Map.of());
+        ShortestPath.LinkMatrix matrixEvaluation = evaluation.shortestPath().allLinks();
+
+        WeightedGraph merge = new WeightedGraphImpl(new GraphCacheImpl(10), true);
+        merge.addNode(r, Map.of(s, v2));
+        merge.addNode(a, Map.of(r, v1));
+        merge.addNode(x, Map.of(y, v4));
+        merge.addNode(y, Map.of());
+        ShortestPath.LinkMatrix matrixMerge = merge.allLinks(evaluation, matrixEvaluation);
+
+        WeightedGraph next = new WeightedGraphImpl(new GraphCacheImpl(10), true);
+        next.addNode(r, Map.of(s, v2));
+        next.addNode(a, Map.of(r, v1));
+        next.addNode(x, Map.of(y, v4));
+        next.addNode(y, Map.of());
+        next.addNode(z, Map.of(x, v4));
+        ShortestPath.LinkMatrix matrixNext = next.allLinks(merge, matrixMerge);
+
+        WeightedGraph full = new WeightedGraphImpl(new GraphCacheImpl(10), true);
+        full.addNode(r, Map.of(s, v2));
+        full.addNode(a, Map.of(r, v1));
+        full.addNode(x, Map.of(y, v4));
+        full.addNode(y, Map.of());
+        full.addNode(z, Map.of(x, v4));
+        ShortestPath.LinkMatrix matrixFull = full.shortestPath().allLinks();
+        assertEquals(6, matrixNext.size());
+        for (int i = 0; i < matrixFull.size(); i++) {
+            Variable v = matrixFull.variable(i);
+            assertEquals(matrixFull.linksWithoutSelf(i), matrixNext.linksWithoutSelf(matrixNext.indexOf(v)),
+                    "Variable " + v);
+        }
+        // the row of 'x' has changed in the if/else statement, but not in the next statement
+        assertSame(matrixMerge.get(matrixMerge.indexOf(x), matrixMerge.indexOf(y)),
+                matrixNext.get(matrixNext.indexOf(x), matrixNext.indexOf(y)));
+        assertSame(matrixEvaluation.get(matrixEvaluation.indexOf(a), matrixEvaluation.indexOf(s)),
+                matrixNext.get(matrixNext.indexOf(a), matrixNext.indexOf(s)));
+        assertNotNull(matrixNext.get(matrixNext.indexOf(z), matrixNext.indexOf(y)));
+    }
+}
@@ -0,0 +1,75 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.analyzer.modification.prepwork.variable.Links;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.e2immu.analyzer.modification.linkedvariables.graph.impl.ShortestPathImpl.*;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl.NO_LINKS;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBitsetClosure extends CommonWG {
+
+    private static final long[] COMPONENTS = {STATICALLY_ASSIGNED, ASSIGNED, DEPENDENT, COMMON_HC};
+
+    // random symmetric graphs without payloads, sizes on both sides of 64; must agree with Dijkstra
+    @Test
+    public void testAgainstDijkstra() {
+        Random random = new Random(42);
+        for (int n : new int[]{1, 5, 63, 64, 65, 130}) {
+            long[][] matrix = new long[n][n];
+            for (int i = 0; i < 2 * n; i++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (u != v) {
+                    long d = COMPONENTS[random.nextInt(4)];
+                    matrix[u][v] = d;
+                    matrix[v][u] = d;
+                }
+            }
+            CsrGraph.Builder builder = new CsrGraph.Builder(n, 4 * n);
+            for (int u = 0; u < n; u++) {
+                builder.startVertex(u);
+                for (int v = 0; v < n; v++) {
+                    if (matrix[u][v] != 0) builder.addEdge(v, matrix[u][v], NO_LINKS);
+                }
+            }
+            CsrGraph graph = builder.build();
+            BitsetClosure closure = new BitsetClosure(graph);
+            CsrDijkstra dijkstra = new CsrDijkstra(graph, i -> "v" + i);
+            long[] dist = new long[n];
+            Links[] connection = new Links[n];
+            for (int s = 0; s < n; s++) {
+                assertTrue(closure.exact(s));
+                LV[] row = closure.row(s);
+                dijkstra.shortestPath(s, Long.MAX_VALUE, dist, connection);
+                for (int t = 0; t < n; t++) {
+                    assertEquals(fromDistanceSum(dist[t], connection[t]), row[t], "n=" + n + ", " + s + "->" + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPayload() {
+        //  0 -1- 1 -4- 2       3 -2- 4
+        CsrGraph graph = new CsrGraph.Builder(5, 6)
+                .startVertex(0).addEdge(1, ASSIGNED, NO_LINKS)
+                .startVertex(1).addEdge(0, ASSIGNED, NO_LINKS).addEdge(2, COMMON_HC, new LinksImpl(0, 0, true))
+                .startVertex(2).addEdge(1, COMMON_HC, new LinksImpl(0, 0, true))
+                .startVertex(3).addEdge(4, DEPENDENT, NO_LINKS)
+                .startVertex(4).addEdge(3, DEPENDENT, NO_LINKS)
+                .build();
+        BitsetClosure closure = new BitsetClosure(graph);
+        assertFalse(closure.exact(0));
+        assertFalse(closure.exact(2));
+        assertTrue(closure.exact(3));
+        LV[] row = closure.row(4);
+        assertEquals(v2, row[3]);
+        assertEquals(v0, row[4]);
+        assertNull(row[0]);
+    }
+}
@@ -0,0 +1,54 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestCanonicalOrder extends CommonWG {
+
+    /*
+    the same shape, twice, with names that sort differently:
+        a -0- b -2- c       z -0- y -2- x
+     */
+    @Test
+    public void test() {
+        Cache cache = new GraphCacheImpl(10);
+        Variable a = makeVariable("a");
+        Variable b = makeVariable("b");
+        Variable c = makeVariable("c");
+        WeightedGraph wg1 = new WeightedGraphImpl(cache, true);
+        wg1.addNode(a, Map.of(b, v0));
+        wg1.addNode(b, Map.of(c, v2));
+        ShortestPathImpl sp1 = (ShortestPathImpl) wg1.shortestPath();
+
+        Variable x = makeVariable("x");
+        Variable y = makeVariable("y");
+        Variable z = makeVariable("z");
+        WeightedGraph wg2 = new WeightedGraphImpl(cache, true);
+        wg2.addNode(y, Map.of(x, v2));
+        wg2.addNode(z, Map.of(y, v0));
+        ShortestPathImpl sp2 = (ShortestPathImpl) wg2.shortestPath();
+
+        assertEquals(sp1.getCacheKey(), sp2.getCacheKey());
+
+        Map<Variable, LV> fromA = sp1.links(a, null);
+        assertEquals(v0, fromA.get(b));
+        assertEquals(v2, fromA.get(c));
+
+        // served from the entry computed for the first graph, but mapped onto the variables of the second
+        Map<Variable, LV> fromZ = sp2.links(z, null);
+        assertEquals(3, fromZ.size());
+        assertEquals(v0, fromZ.get(z));
+        assertEquals(v0, fromZ.get(y));
+        assertEquals(v2, fromZ.get(x));
+        ShortestPath sp3 = wg2.shortestPath();
+        assertEquals(v2, sp3.links(y, null).get(x));
+    }
+}
@@ -0,0 +1,85 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestConcurrentGraphCacheImpl {
+
+    record Element(long weight) implements Cache.CacheElement {
+        @Override
+        public int savings() {
+            return 1;
+        }
+    }
+
+    @Test
+    public void testHitMiss() {
+        ConcurrentGraphCacheImpl cache = new ConcurrentGraphCacheImpl(1000);
+        Cache.Hash h1 = cache.createHash("a");
+        Cache.Hash h2 = cache.createHash("b");
+        Cache.CacheElement e1 = cache.computeIfAbsent(h1, h -> new Element(10));
+        assertSame(e1, cache.computeIfAbsent(h1, h -> fail()));
+        cache.computeIfAbsent(h2, h -> new Element(10));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+        assertEquals(20, cache.getEstimatedWeight());
+    }
+
+    @Test
+    public void testEvictionByWeight() {
+        ConcurrentGraphCacheImpl cache = new ConcurrentGraphCacheImpl(100);
+        for (int i = 0; i < 10; i++) {
+            cache.computeIfAbsent(cache.createHash("e" + i), h -> new Element(30));
+        }
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.getEstimatedWeight() <= 100);
+        // the most recent one must still be there
+        cache.computeIfAbsent(cache.createHash("e9"), h -> fail());
+    }
+
+    @Test
+    public void testDeduplication() throws Exception {
+        ConcurrentGraphCacheImpl cache = new ConcurrentGraphCacheImpl(1000);
+        Cache.Hash hash = cache.createHash("x");
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Cache.CacheElement>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.computeIfAbsent(hash, h -> {
+                computations.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return new Element(1);
+            })));
+            started.await();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> cache.computeIfAbsent(hash, h -> {
+                    computations.incrementAndGet();
+                    return new Element(1);
+                })));
+            }
+            release.countDown();
+            Cache.CacheElement first = futures.getFirst().get(10, TimeUnit.SECONDS);
+            for (Future<Cache.CacheElement> future : futures) {
+                assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.prepwork.variable.Links;
+import org.junit.jupiter.api.Test;
+
+import static org.e2immu.analyzer.modification.linkedvariables.graph.impl.ShortestPathImpl.*;
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl.NO_LINKS;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCsrDijkstra extends CommonWG {
+
+    /*
+    0 -1- 1 -2- 2     3
+    \____0_____/
+     */
+    private CsrGraph makeGraph() {
+        return new CsrGraph.Builder(4, 2)
+                .startVertex(0).addEdge(1, ASSIGNED, NO_LINKS).addEdge(2, STATICALLY_ASSIGNED, NO_LINKS)
+                .startVertex(1).addEdge(0, ASSIGNED, NO_LINKS).addEdge(2, DEPENDENT, NO_LINKS)
+                .startVertex(2).addEdge(1, DEPENDENT, NO_LINKS).addEdge(0, STATICALLY_ASSIGNED, NO_LINKS)
+                .build();
+    }
+
+    @Test
+    public void testBuilder() {
+        CsrGraph graph = makeGraph();
+        assertEquals(4, graph.vertices());
+        assertEquals(6, graph.edges());
+        assertArrayEquals(new int[]{0, 2, 4, 6, 6}, graph.offsets());
+        assertArrayEquals(new int[]{1, 2, 0, 2, 1, 0}, graph.targets());
+    }
+
+    @Test
+    public void testShortestPath() {
+        CsrGraph graph = makeGraph();
+        CsrDijkstra dijkstra = new CsrDijkstra(graph, i -> "v" + i);
+        long[] dist = new long[4];
+        Links[] connection = new Links[4];
+
+        dijkstra.shortestPath(1, Long.MAX_VALUE, dist, connection);
+        assertEquals(0L, dist[1]);
+        assertEquals(ASSIGNED, dist[0]);
+        // via 0 rather than directly
+        assertEquals(ASSIGNED + STATICALLY_ASSIGNED, dist[2]);
+        assertEquals(Long.MAX_VALUE, dist[3]);
+        assertNull(connection[3]);
+        assertSame(v1, fromDistanceSum(dist[2], connection[2]));
+
+        dijkstra.shortestPath(2, STATICALLY_ASSIGNED, dist, connection);
+        assertEquals(STATICALLY_ASSIGNED, dist[0]);
+        assertEquals(Long.MAX_VALUE, dist[1]);
+    }
+
+    @Test
+    public void testHeap() {
+        long[] key = {5, 3, 9, 1, 7};
+        CsrDijkstra.IntMinHeap heap = new CsrDijkstra.IntMinHeap(5, key);
+        for (int i = 0; i < 5; i++) heap.insert(i);
+        key[2] = 0;
+        heap.decrease(2);
+        int[] order = new int[5];
+        for (int i = 0; i < 5; i++) order[i] = heap.poll();
+        assertTrue(heap.isEmpty());
+        assertTrue(heap.isSettled(4));
+        assertArrayEquals(new int[]{2, 3, 1, 0, 4}, order);
+    }
+}
@@ -0,0 +1,113 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinkImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl;
+import org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl.ALL_INDICES;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestModificationReach extends CommonWG {
+
+    /*
+       a -0- b -1- c -2- d -4- e
+       a --theirsContainsAll--> x
+       f -2(with links)- c
+     */
+    Variable a, b, c, d, e, f, x;
+    WeightedGraph wg;
+
+    @BeforeEach
+    public void beforeEach() {
+        a = makeVariable("a");
+        b = makeVariable("b");
+        c = makeVariable("c");
+        d = makeVariable("d");
+        e = makeVariable("e");
+        f = makeVariable("f");
+        x = makeVariable("x");
+
+        LV toAll = LVImpl.createDependent(new LinksImpl(Map.of(i0, new LinkImpl(ALL_INDICES, false))));
+        assertTrue(toAll.theirsContainsAll());
+        LV withLinks = LVImpl.createDependent(new LinksImpl(Map.of(ALL_INDICES, new LinkImpl(i0, false)),
+                ALL_INDICES, new IndicesImpl(1)));
+
+        wg = new WeightedGraphImpl();
+        wg.addNode(a, Map.of(b, v0, x, toAll));
+        wg.addNode(b, Map.of(c, v1));
+        wg.addNode(c, Map.of(d, v2));
+        wg.addNode(d, Map.of(e, v4));
+        wg.addNode(f, Map.of(c, withLinks));
+    }
+
+    // the original computation, on a copy of the graph
+    private Set<Variable> reference(Set<Variable> sources, Predicate<Variable> accept) {
+        ShortestPath shortestPath = wg.copyForModification().shortestPath();
+        Set<Variable> modified = new HashSet<>(sources);
+        boolean change = true;
+        while (change) {
+            change = false;
+            for (Variable variable : Set.copyOf(modified)) {
+                for (Map.Entry<Variable, LV> entry : shortestPath.links(variable, null).entrySet()) {
+                    Variable to = entry.getKey();
+                    if (to != variable && entry.getValue().propagateModification() && accept.test(to)) {
+                        change |= modified.add(to);
+                    }
+                }
+            }
+        }
+        return modified;
+    }
+
+    @Test
+    public void testFromA() {
+        Set<Variable> result = wg.shortestPath().propagateModification(Set.of(a), v -> true);
+        assertTrue(result.containsAll(Set.of(a, b, c, d)));
+        assertFalse(result.contains(e));
+        assertFalse(result.contains(x));
+        assertEquals(reference(Set.of(a), v -> true), result);
+    }
+
+    @Test
+    public void testFromX() {
+        // the reverse of the edge to x does not contain all
+        Set<Variable> result = wg.shortestPath().propagateModification(Set.of(x), v -> true);
+        assertTrue(result.contains(a));
+        assertFalse(result.contains(e));
+        assertEquals(reference(Set.of(x), v -> true), result);
+    }
+
+    @Test
+    public void testFromF() {
+        Set<Variable> result = wg.shortestPath().propagateModification(Set.of(f), v -> true);
+        assertEquals(reference(Set.of(f), v -> true), result);
+    }
+
+    @Test
+    public void testAccept() {
+        // b is passed through, but not added
+        Predicate<Variable> accept = v -> v != b;
+        Set<Variable> result = wg.shortestPath().propagateModification(Set.of(a), accept);
+        assertFalse(result.contains(b));
+        assertTrue(result.containsAll(Set.of(a, c, d)));
+        assertEquals(reference(Set.of(a), accept), result);
+    }
+
+    @Test
+    public void testNotInGraph() {
+        Variable y = makeVariable("y");
+        assertEquals(Set.of(y), wg.shortestPath().propagateModification(Set.of(y), v -> true));
+    }
+}
@@ -0,0 +1,34 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.Cache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TestStructuralHashBuilder {
+
+    @Test
+    public void test() {
+        Cache.Hash h1 = new StructuralHashBuilder().add(3).add(1).add("*-2-0|*-1").build();
+        Cache.Hash h2 = new StructuralHashBuilder().add(3).add(1).add("*-2-0|*-1").build();
+        assertEquals(16, h1.bytes().length);
+        assertEquals(h1, h2);
+        assertEquals(h1.hashCode(), h2.hashCode());
+
+        Cache.Hash h3 = new StructuralHashBuilder().add(3).add(1).add("*-2-0|*-3").build();
+        assertNotEquals(h1, h3);
+        Cache.Hash h4 = new StructuralHashBuilder().add(1).add(3).add("*-2-0|*-1").build();
+        assertNotEquals(h1, h4);
+    }
+
+    @Test
+    public void testStringBoundaries() {
+        Cache.Hash h1 = new StructuralHashBuilder().add("ab").add("c").build();
+        Cache.Hash h2 = new StructuralHashBuilder().add("a").add("bc").build();
+        assertNotEquals(h1, h2);
+        Cache.Hash h3 = new StructuralHashBuilder().add(0).build();
+        Cache.Hash h4 = new StructuralHashBuilder().add(0).add(0).build();
+        assertNotEquals(h3, h4);
+    }
+}
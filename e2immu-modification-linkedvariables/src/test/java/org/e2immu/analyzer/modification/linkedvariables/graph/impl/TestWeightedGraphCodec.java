@@ -0,0 +1,81 @@
+package org.e2immu.analyzer.modification.linkedvariables.graph.impl;
+
+import org.e2immu.analyzer.modification.linkedvariables.graph.WeightedGraph;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LVImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinkImpl;
+import org.e2immu.analyzer.modification.linkedvariables.lv.LinksImpl;
+import org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl;
+import org.e2immu.analyzer.modification.prepwork.variable.LV;
+import org.e2immu.language.cst.api.variable.Variable;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.e2immu.analyzer.modification.prepwork.hcs.IndicesImpl.ALL_INDICES;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWeightedGraphCodec extends CommonWG {
+
+    @Test
+    public void test() throws IOException {
+        Variable r = makeVariable("r");
+        Variable a = makeVariable("a");
+        Variable s = makeVariable("s");
+        Variable x = makeVariable("x");
+        Variable d = makeVariable("d");
+
+        WeightedGraph wg = new WeightedGraphImpl();
+        LV linkAR = LVImpl.createDependent(new LinksImpl(Map.of(ALL_INDICES, new LinkImpl(i0, true)),
+                ALL_INDICES, new IndicesImpl(1)));
+        wg.addNode(r, Map.of(s, v4));
+        wg.addNode(a, Map.of(r, linkAR, x, v1));
+        wg.addNode(d, Map.of(x, delay));
+
+        StringWriter sw = new StringWriter();
+        WeightedGraphCodec.write("test graph", wg, sw);
+        String written = sw.toString();
+        assertTrue(written.startsWith("graph test graph\nv r\n"), written);
+        assertTrue(written.contains("e 2 0 2:-1:1:-1>0M\n"), written);
+
+        WeightedGraphCodec codec = new WeightedGraphCodec(runtime);
+        List<WeightedGraphCodec.NamedGraph> graphs = codec.read(new BufferedReader(new StringReader(written + written)),
+                new GraphCacheImpl(10), false);
+        assertEquals(2, graphs.size());
+        WeightedGraphCodec.NamedGraph ng = graphs.getFirst();
+        assertEquals("test graph", ng.name());
+        assertEquals(wg.size(), ng.graph().size());
+
+        StringWriter sw2 = new StringWriter();
+        WeightedGraphCodec.write(ng.name(), ng.graph(), sw2);
+        assertEquals(written, sw2.toString());
+
+        for (Variable v : List.of(r, a, s, x, d)) {
+            Variable replayed = ng.graph().shortestPath().variables().stream()
+                    .filter(rv -> rv.fullyQualifiedName().equals(v.fullyQualifiedName()))
+                    .findFirst().orElseThrow();
+            assertEquals(byName(wg.shortestPath().links(v, null)), byName(ng.graph().shortestPath().links(replayed, null)));
+        }
+    }
+
+    private static Map<String, String> byName(Map<Variable, LV> links) {
+        Map<String, String> map = new TreeMap<>();
+        links.forEach((v, lv) -> map.put(v.fullyQualifiedName(), lv.toString()));
+        return map;
+    }
+
+    @Test
+    public void testLv() {
+        for (LV lv : List.of(v0, v1, v2, v4, LVImpl.LINK_INITIAL_DELAY)) {
+            StringBuilder sb = new StringBuilder();
+            WeightedGraphCodec.appendLv(sb, lv);
+            assertEquals(lv.toString(), WeightedGraphCodec.parseLv(sb.toString()).toString(), sb.toString());
+        }
+        assertThrows(IllegalArgumentException.class, () -> WeightedGraphCodec.parseLv("3"));
+    }
+}
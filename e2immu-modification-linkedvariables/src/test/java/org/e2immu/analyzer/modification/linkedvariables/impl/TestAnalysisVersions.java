@@ -0,0 +1,63 @@
+package org.e2immu.analyzer.modification.linkedvariables.impl;
+
+import org.e2immu.analyzer.modification.common.AnalyzerException;
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.MethodModAnalyzer;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAnalysisVersions extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT = """
+            package a.b;
+            public class X {
+                public static class Box {
+                }
+                public Box box() {
+                    return new Box();
+                }
+            }
+            """;
+
+    private record Output(Set<MethodInfo> waitForMethods, Set<TypeInfo> waitForIndependenceOfTypes)
+            implements MethodModAnalyzer.Output {
+        @Override
+        public List<AnalyzerException> analyzerExceptions() {
+            return List.of();
+        }
+
+        @Override
+        public Map<String, Integer> infoHistogram() {
+            return Map.of();
+        }
+    }
+
+    @Test
+    public void test() {
+        TypeInfo X = javaInspector.parse(INPUT);
+        TypeInfo box = X.findSubType("Box");
+        MethodInfo method = X.findUniqueMethod("box", 0);
+        AnalysisVersions analysisVersions = new AnalysisVersions();
+        analysisVersions.update(method);
+        long now = analysisVersions.now();
+
+        AnalysisVersions.LastAnalysis done = new AnalysisVersions.LastAnalysis(now, now, false,
+                new Output(Set.of(), Set.of()));
+        assertTrue(analysisVersions.isStable(method, List.of(), done));
+
+        // Box is not a dependency; its independence is computed by the type analyzers
+        AnalysisVersions.LastAnalysis waiting = new AnalysisVersions.LastAnalysis(now, now, false,
+                new Output(Set.of(), Set.of(box)));
+        assertFalse(analysisVersions.isStable(method, List.of(), waiting));
+    }
+}
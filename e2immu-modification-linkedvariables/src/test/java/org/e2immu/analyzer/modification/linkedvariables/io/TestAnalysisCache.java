@@ -0,0 +1,164 @@
+package org.e2immu.analyzer.modification.linkedvariables.io;
+
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.e2immu.analyzer.modification.linkedvariables.lv.LinkedVariablesImpl.LINKED_VARIABLES_METHOD;
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+Analyzes the same three types repeatedly with the same cache: without cache, fully from the cache, after a change
+in Y, on which Z depends, and fully from the cache again.
+ */
+public class TestAnalysisCache extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT_X = """
+            package a.b;
+            import java.util.List;
+            public class X {
+                private final List<String> list;
+                public X(List<String> list) {
+                    this.list = list;
+                }
+                public void add(String s) {
+                    list.add(s);
+                }
+                public List<String> getList() {
+                    return list;
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_Y = """
+            package a.b;
+            import java.util.List;
+            public class Y {
+                public static int size(List<String> list) {
+                    return list.size();
+                }
+                public static void clear(List<String> list) {
+                    list.clear();
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_Y2 = """
+            package a.b;
+            import java.util.List;
+            public class Y {
+                public static int size(List<String> list) {
+                    return list.size();
+                }
+                public static void clear(List<String> list) {
+                    // does not clear anymore
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_Z = """
+            package a.b;
+            import java.util.List;
+            public class Z {
+                public static void run(X x, List<String> in) {
+                    x.add("z");
+                    Y.clear(in);
+                }
+                public static int count(X x) {
+                    return Y.size(x.getList());
+                }
+            }
+            """;
+
+    @TempDir
+    Path cacheDir;
+
+    private record Run(TypeInfo Y, Map<String, String> analysis, Set<String> cached, Set<String> analyzed) {
+    }
+
+    private Run run(String inputY) throws IOException {
+        beforeEach();
+        Map<String, String> sources = Map.of("a.b.X", INPUT_X, "a.b.Y", inputY, "a.b.Z", INPUT_Z);
+        TypeInfo X = javaInspector.parse(INPUT_X);
+        TypeInfo Y = javaInspector.parse(inputY);
+        TypeInfo Z = javaInspector.parse(INPUT_Z);
+        prepAnalyzer.initialize(javaInspector.compiledTypesManager().typesLoaded());
+
+        AnalysisCache cache = new AnalysisCache(runtime, cacheDir,
+                t -> AnalysisCache.hash(sources.get(t.fullyQualifiedName())));
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder().build();
+        AnalysisCache.Result result = cache.analyze(prepAnalyzer, new IteratingAnalyzerImpl(runtime, configuration),
+                Set.of(X, Y, Z));
+        assertTrue(result.output().analyzerExceptions().isEmpty());
+        Map<String, String> analysis = new TreeMap<>();
+        Stream.of(X, Y, Z).forEach(t -> addAnalysis(analysis, t));
+        return new Run(Y, analysis, names(result.cached()), names(result.analyzed()));
+    }
+
+    private static Set<String> names(Set<TypeInfo> types) {
+        return types.stream().map(TypeInfo::simpleName).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static void addAnalysis(Map<String, String> map, TypeInfo typeInfo) {
+        addAnalysis(map, (Info) typeInfo);
+        typeInfo.fields().forEach(f -> addAnalysis(map, f));
+        Stream.concat(typeInfo.constructors().stream(), typeInfo.methods().stream()).forEach(m -> {
+            addAnalysis(map, m);
+            m.parameters().forEach(p -> addAnalysis(map, p));
+        });
+    }
+
+    private static void addAnalysis(Map<String, String> map, Info info) {
+        info.analysis().propertyValueStream().forEach(pv ->
+                map.put(info.fullyQualifiedName() + " " + pv.property().key(), String.valueOf(pv.value())));
+    }
+
+    @Test
+    public void test() throws IOException {
+        Run run1 = run(INPUT_Y);
+        assertEquals(Set.of(), run1.cached);
+        assertEquals(Set.of("X", "Y", "Z"), run1.analyzed);
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(3, files.filter(p -> p.toString().endsWith(AnalysisCache.EXTENSION)).count());
+        }
+
+        Run run2 = run(INPUT_Y);
+        assertEquals(Set.of("X", "Y", "Z"), run2.cached);
+        assertEquals(Set.of(), run2.analyzed);
+        // the cache does not contain intermediate results of the analyzers, such as variable data
+        assertFalse(run2.analysis.isEmpty());
+        for (Map.Entry<String, String> entry : run2.analysis.entrySet()) {
+            assertEquals(run1.analysis.get(entry.getKey()), entry.getValue(), entry.getKey());
+        }
+        String getList = "a.b.X.getList() " + LINKED_VARIABLES_METHOD.key();
+        assertNotNull(run1.analysis.get(getList));
+        assertEquals(run1.analysis.get(getList), run2.analysis.get(getList));
+
+        // Z depends on Y, X does not
+        Run run3 = run(INPUT_Y2);
+        assertEquals(Set.of("X"), run3.cached);
+        assertEquals(Set.of("Y", "Z"), run3.analyzed);
+        MethodInfo clear = run3.Y.findUniqueMethod("clear", 1);
+        assertFalse(clear.parameters().getFirst().isModified());
+
+        Run run4 = run(INPUT_Y2);
+        assertEquals(Set.of("X", "Y", "Z"), run4.cached);
+    }
+}
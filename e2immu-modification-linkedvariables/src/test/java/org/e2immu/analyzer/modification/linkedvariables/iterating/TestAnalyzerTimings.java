@@ -0,0 +1,71 @@
+package org.e2immu.analyzer.modification.linkedvariables.iterating;
+
+import org.e2immu.analyzer.modification.linkedvariables.AnalyzerTimings;
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAnalyzerTimings extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT1 = """
+            package a.b;
+            import java.util.List;
+            class X {
+                int a(List<String> list) {
+                    return b(list) + 1;
+                }
+                int b(List<String> list) {
+                    list.add("x");
+                    return list.size();
+                }
+            }
+            """;
+
+    @Test
+    public void test() throws IOException {
+        TypeInfo X = javaInspector.parse(INPUT1);
+        List<Info> analysisOrder = prepWork(X);
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder()
+                .setRecordTimings(true)
+                .build();
+        IteratingAnalyzer.Output output = new IteratingAnalyzerImpl(runtime, configuration).analyze(analysisOrder);
+        AnalyzerTimings timings = output.timings();
+        assertNotNull(timings);
+
+        List<AnalyzerTimings.Timing> slowestMethods = timings.slowestMethods(1);
+        assertEquals(1, slowestMethods.size());
+        assertInstanceOf(MethodInfo.class, slowestMethods.getFirst().info());
+        assertEquals(1, slowestMethods.getFirst().iteration());
+
+        Map<String, AnalyzerTimings.Total> totals = timings.totalsPerAnalyzer();
+        assertTrue(totals.get("MethodModAnalyzer").count() >= 2);
+        assertTrue(totals.containsKey("TypeModIndyAnalyzer"));
+
+        StringWriter sw = new StringWriter();
+        timings.writeCsv(sw);
+        String[] lines = sw.toString().split("\n");
+        assertEquals("info,kind,analyzer,iteration,nanos,allocatedBytes", lines[0]);
+        assertEquals(timings.slowest(Integer.MAX_VALUE).size() + 1, lines.length);
+    }
+
+    @Test
+    public void testDisabled() {
+        TypeInfo X = javaInspector.parse(INPUT1);
+        List<Info> analysisOrder = prepWork(X);
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder().build();
+        assertNull(new IteratingAnalyzerImpl(runtime, configuration).analyze(analysisOrder).timings());
+    }
+}
@@ -0,0 +1,82 @@
+package org.e2immu.analyzer.modification.linkedvariables.iterating;
+
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.graph.ShortestPath;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.GraphCacheImpl;
+import org.e2immu.analyzer.modification.linkedvariables.graph.impl.WeightedGraphCodec;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGraphCapture extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT1 = """
+            package a.b;
+            import java.util.List;
+            class X {
+                int a(List<String> list) {
+                    String s = list.get(0);
+                    return s.length();
+                }
+            }
+            """;
+
+    @Test
+    public void test(@TempDir Path directory) throws IOException {
+        TypeInfo X = javaInspector.parse(INPUT1);
+        List<Info> analysisOrder = prepWork(X);
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder()
+                .setGraphCaptureThresholdMillis(0)
+                .setGraphCaptureDirectory(directory.toString())
+                .build();
+        new IteratingAnalyzerImpl(runtime, configuration).analyze(analysisOrder);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.toList();
+        }
+        assertEquals(1, files.size());
+        assertTrue(files.getFirst().getFileName().toString().endsWith(".graphs"));
+
+        List<WeightedGraphCodec.NamedGraph> graphs;
+        try (BufferedReader reader = Files.newBufferedReader(files.getFirst(), StandardCharsets.UTF_8)) {
+            graphs = new WeightedGraphCodec(runtime).read(reader, new GraphCacheImpl(10), true);
+        }
+        String method = X.findUniqueMethod("a", 1).fullyQualifiedName();
+        WeightedGraphCodec.NamedGraph ng = graphs.stream()
+                .filter(g -> g.name().startsWith(method + " 0 "))
+                .findFirst().orElseThrow();
+        ShortestPath shortestPath = ng.graph().shortestPath();
+        assertTrue(shortestPath.variables().stream().anyMatch(v -> v.fullyQualifiedName().endsWith(":0:list")),
+                () -> shortestPath.variables().toString());
+        assertEquals(ng.graph().size(), shortestPath.allLinks().size());
+    }
+
+    @Test
+    public void testDisabled(@TempDir Path directory) throws IOException {
+        TypeInfo X = javaInspector.parse(INPUT1);
+        List<Info> analysisOrder = prepWork(X);
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder()
+                .setGraphCaptureDirectory(directory.toString())
+                .build();
+        new IteratingAnalyzerImpl(runtime, configuration).analyze(analysisOrder);
+        try (Stream<Path> stream = Files.list(directory)) {
+            assertEquals(0, stream.count());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.e2immu.analyzer.modification.linkedvariables.iterating;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.e2immu.analyzer.modification.common.jfr.*;
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestJfrEvents extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT1 = """
+            package a.b;
+            import java.util.List;
+            class X {
+                int a(List<String> list) {
+                    return b(list) + 1;
+                }
+                int b(List<String> list) {
+                    list.add("x");
+                    return list.size();
+                }
+            }
+            """;
+
+    @Test
+    public void test() throws IOException {
+        Path file = Files.createTempFile("analyzer", ".jfr");
+        TypeInfo X;
+        List<Info> analysisOrder;
+        try (Recording recording = new Recording()) {
+            for (Class<? extends jdk.jfr.Event> eventClass : List.of(PrepAnalyzerEvent.class,
+                    AnalysisOrderEvent.class, IterationEvent.class, MethodAnalysisEvent.class,
+                    ShortestPathEvent.class)) {
+                recording.enable(eventClass).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            X = javaInspector.parse(INPUT1);
+            analysisOrder = prepWork(X);
+            IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder().build();
+            new IteratingAnalyzerImpl(runtime, configuration).analyze(analysisOrder);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        Map<String, List<RecordedEvent>> byName = events.stream()
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+
+        assertEquals(List.of("types", "call graph", "part of construction"),
+                byName.get("org.e2immu.analyzer.PrepAnalyzer").stream().map(e -> e.getString("step")).toList());
+        assertEquals(1, byName.get("org.e2immu.analyzer.AnalysisOrder").size());
+        RecordedEvent iteration = byName.get("org.e2immu.analyzer.Iteration").getFirst();
+        assertEquals(1, iteration.getInt("iteration"));
+        assertEquals(analysisOrder.size(), iteration.getInt("infos"));
+        String b = X.findUniqueMethod("b", 1).fullyQualifiedName();
+        assertTrue(byName.get("org.e2immu.analyzer.MethodAnalysis").stream()
+                .anyMatch(e -> b.equals(e.getString("method"))));
+        assertFalse(byName.get("org.e2immu.analyzer.ShortestPath").isEmpty());
+    }
+}
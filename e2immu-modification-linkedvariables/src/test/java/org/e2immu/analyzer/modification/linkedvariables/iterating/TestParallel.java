@@ -0,0 +1,293 @@
+package org.e2immu.analyzer.modification.linkedvariables.iterating;
+
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeAnalysisOrder;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.util.internal.graph.G;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+Runs the same analysis sequentially and in parallel, with and without skipping stable methods,
+and compares the analysis maps of all infos.
+ */
+public class TestParallel extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT_X = """
+            package a.b;
+            import java.util.List;
+            public class X {
+                private final List<String> list;
+                public X(List<String> list) {
+                    this.list = list;
+                }
+                public void add(String s) {
+                    list.add(s);
+                }
+                public List<String> getList() {
+                    return list;
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_Y = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            public class Y {
+                public static int size(List<String> list) {
+                    return list.size();
+                }
+                public static void clear(List<String> list) {
+                    list.clear();
+                }
+                public static List<String> copy(List<String> list) {
+                    return new ArrayList<>(list);
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_Z = """
+            package a.b;
+            import java.util.List;
+            public class Z {
+                public static void run(X x, List<String> in) {
+                    x.add("z");
+                    Y.clear(in);
+                }
+                public static int count(X x) {
+                    return Y.size(x.getList());
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_W = """
+            package a.b;
+            import java.util.List;
+            public class W {
+                public static class Box {
+                    private final List<String> list;
+                    public Box(List<String> list) {
+                        this.list = list;
+                    }
+                    public List<String> get() {
+                        return list;
+                    }
+                }
+                private final Box box;
+                public W(Box box) {
+                    this.box = box;
+                }
+                public Box box() {
+                    return box;
+                }
+                public List<String> list() {
+                    return box.get();
+                }
+            }
+            """;
+
+    // an interface, an abstract class, two implementations, and a user of the interface, in different primary types
+
+    @Language("java")
+    private static final String INPUT_STORE = """
+            package a.b;
+            import java.util.List;
+            public interface Store {
+                void put(String s);
+                List<String> all();
+                int size();
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_ABSTRACT_STORE = """
+            package a.b;
+            public abstract class AbstractStore implements Store {
+                public abstract boolean contains(String s);
+                @Override
+                public int size() {
+                    return all().size();
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_LIST_STORE = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            public class ListStore extends AbstractStore {
+                private final List<String> list = new ArrayList<>();
+                @Override
+                public void put(String s) {
+                    list.add(s);
+                }
+                @Override
+                public List<String> all() {
+                    return list;
+                }
+                @Override
+                public boolean contains(String s) {
+                    return list.contains(s);
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_EMPTY_STORE = """
+            package a.b;
+            import java.util.List;
+            public class EmptyStore extends AbstractStore {
+                @Override
+                public void put(String s) {
+                }
+                @Override
+                public List<String> all() {
+                    return List.of();
+                }
+                @Override
+                public boolean contains(String s) {
+                    return false;
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String INPUT_STORES = """
+            package a.b;
+            import java.util.List;
+            public class Stores {
+                public static void putAll(Store store, List<String> in) {
+                    for (String s : in) store.put(s);
+                }
+                public static boolean has(AbstractStore store, String s) {
+                    return store.contains(s);
+                }
+                public static List<String> copy(Store from, Store to) {
+                    putAll(to, from.all());
+                    return to.all();
+                }
+            }
+            """;
+
+    private Map<String, String> analyze(int parallelism, IteratingAnalyzer.ParallelScheduler scheduler)
+            throws IOException {
+        return analyze(parallelism, scheduler, false);
+    }
+
+    private Map<String, String> analyze(int parallelism, IteratingAnalyzer.ParallelScheduler scheduler,
+                                        boolean skipStableMethods) throws IOException {
+        beforeEach();
+        TypeInfo X = javaInspector.parse(INPUT_X);
+        TypeInfo Y = javaInspector.parse(INPUT_Y);
+        TypeInfo Z = javaInspector.parse(INPUT_Z);
+        TypeInfo W = javaInspector.parse(INPUT_W);
+        TypeInfo store = javaInspector.parse(INPUT_STORE);
+        TypeInfo abstractStore = javaInspector.parse(INPUT_ABSTRACT_STORE);
+        TypeInfo listStore = javaInspector.parse(INPUT_LIST_STORE);
+        TypeInfo emptyStore = javaInspector.parse(INPUT_EMPTY_STORE);
+        TypeInfo stores = javaInspector.parse(INPUT_STORES);
+        prepAnalyzer.initialize(javaInspector.compiledTypesManager().typesLoaded());
+        G<Info> callGraph = prepAnalyzer.doPrimaryTypesReturnGraph(Set.of(X, Y, Z, W, store, abstractStore,
+                listStore, emptyStore, stores));
+        List<Info> analysisOrder = new ComputeAnalysisOrder().go(callGraph);
+
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder()
+                .setMaxIterations(3)
+                .setParallelism(parallelism)
+                .setParallelScheduler(scheduler)
+                .setSkipStableMethods(skipStableMethods)
+                .build();
+        IteratingAnalyzer.Output output = new IteratingAnalyzerImpl(runtime, configuration)
+                .analyze(analysisOrder, callGraph);
+        assertTrue(output.analyzerExceptions().isEmpty());
+        return analysisMaps(analysisOrder);
+    }
+
+    private static Map<String, String> analysisMaps(List<Info> infos) {
+        Map<String, String> map = new TreeMap<>();
+        for (Info info : infos) {
+            addAnalysis(map, info);
+            if (info instanceof MethodInfo methodInfo) {
+                methodInfo.parameters().forEach(pi -> addAnalysis(map, pi));
+            }
+        }
+        return map;
+    }
+
+    private static void addAnalysis(Map<String, String> map, Info info) {
+        info.analysis().propertyValueStream().forEach(pv ->
+                map.put(info.fullyQualifiedName() + " " + pv.property(), String.valueOf(pv.value())));
+    }
+
+    private static void assertSameAnalysis(Map<String, String> expected, Map<String, String> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    @Test
+    public void testWavefront() throws IOException {
+        Map<String, String> sequential = analyze(1, IteratingAnalyzer.ParallelScheduler.WAVEFRONT);
+        assertFalse(sequential.isEmpty());
+        assertSameAnalysis(sequential, analyze(4, IteratingAnalyzer.ParallelScheduler.WAVEFRONT));
+    }
+
+    /*
+    The abstract methods of Store and AbstractStore go through the shallow method analyzer, shared by all threads.
+    Repeated, to give a race a chance to show.
+     */
+    @Test
+    public void testAbstractHierarchy() throws IOException {
+        Map<String, String> sequential = analyze(1, IteratingAnalyzer.ParallelScheduler.WAVEFRONT);
+        assertTrue(sequential.keySet().stream().anyMatch(k -> k.startsWith("a.b.Store.put(String)")));
+        assertTrue(sequential.keySet().stream().anyMatch(k -> k.startsWith("a.b.AbstractStore.contains(String)")));
+        for (int i = 0; i < 5; i++) {
+            assertSameAnalysis(sequential, analyze(4, IteratingAnalyzer.ParallelScheduler.WAVEFRONT));
+            assertSameAnalysis(sequential, analyze(4, IteratingAnalyzer.ParallelScheduler.DATAFLOW));
+        }
+    }
+
+    @Test
+    public void testDataflow() throws IOException {
+        Map<String, String> sequential = analyze(1, IteratingAnalyzer.ParallelScheduler.DATAFLOW);
+        assertFalse(sequential.isEmpty());
+        assertSameAnalysis(sequential, analyze(4, IteratingAnalyzer.ParallelScheduler.DATAFLOW));
+    }
+
+    @Test
+    public void testSkipStableMethods() throws IOException {
+        Map<String, String> all = analyze(1, IteratingAnalyzer.ParallelScheduler.WAVEFRONT, false);
+        assertSameAnalysis(all, analyze(1, IteratingAnalyzer.ParallelScheduler.WAVEFRONT, true));
+        assertSameAnalysis(all, analyze(4, IteratingAnalyzer.ParallelScheduler.DATAFLOW, true));
+    }
+
+    /*
+    The independence of W.box() depends on that of the type Box, which the type analyzers compute, and which is not a
+    successor of the method in the call graph.
+     */
+    @Test
+    public void testSkipStableMethodsWaitingForIndependence() throws IOException {
+        Map<String, String> all = analyze(1, IteratingAnalyzer.ParallelScheduler.WAVEFRONT, false);
+        assertTrue(all.keySet().stream().anyMatch(k -> k.startsWith("a.b.W.box()")));
+        assertSameAnalysis(all, analyze(1, IteratingAnalyzer.ParallelScheduler.WAVEFRONT, true));
+    }
+}
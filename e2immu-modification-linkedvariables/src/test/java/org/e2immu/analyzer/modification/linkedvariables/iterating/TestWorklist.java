@@ -0,0 +1,94 @@
+package org.e2immu.analyzer.modification.linkedvariables.iterating;
+
+import org.e2immu.analyzer.modification.linkedvariables.CommonTest;
+import org.e2immu.analyzer.modification.linkedvariables.IteratingAnalyzer;
+import org.e2immu.analyzer.modification.linkedvariables.impl.IteratingAnalyzerImpl;
+import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeAnalysisOrder;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.util.internal.graph.G;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWorklist extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT1 = """
+            package a.b;
+            import java.util.List;
+            class X {
+                private int i;
+                int a(List<String> list) {
+                    return b(list) + 1;
+                }
+                int b(List<String> list) {
+                    list.add("x");
+                    return list.size();
+                }
+                int c() {
+                    return i;
+                }
+                static class Y {
+                    void d(List<String> list) {
+                        list.clear();
+                    }
+                }
+            }
+            """;
+
+    @Test
+    public void test1() {
+        TypeInfo X = javaInspector.parse(INPUT1);
+        prepAnalyzer.initialize(javaInspector.compiledTypesManager().typesLoaded());
+        G<Info> callGraph = prepAnalyzer.doPrimaryTypesReturnGraph(Set.of(X));
+        List<Info> analysisOrder = new ComputeAnalysisOrder().go(callGraph);
+
+        MethodInfo a = X.findUniqueMethod("a", 1);
+        MethodInfo b = X.findUniqueMethod("b", 1);
+        MethodInfo c = X.findUniqueMethod("c", 0);
+        TypeInfo Y = X.findSubType("Y");
+        MethodInfo d = Y.findUniqueMethod("d", 1);
+
+        // pretend that b is still waiting for c
+        G<Info> waitFor = new G.Builder<Info>(Long::sum).add(b, Set.of(c)).build();
+        Map<Info, List<Info>> dependents = IteratingAnalyzerImpl.dependents(callGraph);
+        List<Info> worklist = IteratingAnalyzerImpl.worklist(analysisOrder, waitFor, dependents);
+
+        assertTrue(worklist.contains(b));
+        assertTrue(worklist.contains(c));
+        // a calls b
+        assertTrue(worklist.contains(a));
+        assertTrue(worklist.contains(X));
+        assertFalse(worklist.contains(d));
+        // same order as the analysis order
+        assertEquals(analysisOrder.stream().filter(worklist::contains).toList(), worklist);
+
+        // without call graph, only the vertices of waitFor, and their owners
+        List<Info> worklist2 = IteratingAnalyzerImpl.worklist(analysisOrder, waitFor, Map.of());
+        assertEquals(Set.of(b, c, X), Set.copyOf(worklist2));
+    }
+
+    @Test
+    public void test2() {
+        TypeInfo X = javaInspector.parse(INPUT1);
+        prepAnalyzer.initialize(javaInspector.compiledTypesManager().typesLoaded());
+        G<Info> callGraph = prepAnalyzer.doPrimaryTypesReturnGraph(Set.of(X));
+        List<Info> analysisOrder = new ComputeAnalysisOrder().go(callGraph);
+
+        IteratingAnalyzer.Configuration configuration = new IteratingAnalyzerImpl.ConfigurationBuilder()
+                .setMaxIterations(3)
+                .setWorklist(true)
+                .build();
+        IteratingAnalyzer.Output output = new IteratingAnalyzerImpl(runtime, configuration)
+                .analyze(analysisOrder, callGraph);
+        assertEquals(output.iterations(), output.revisitedPerIteration().size());
+        assertEquals(analysisOrder.size(), output.revisitedPerIteration().getFirst());
+    }
+}
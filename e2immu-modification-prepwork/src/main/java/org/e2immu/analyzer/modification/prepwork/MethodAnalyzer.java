@@ -1,5 +1,6 @@
 package org.e2immu.analyzer.modification.prepwork;
 
+import org.e2immu.analyzer.modification.common.LazyAnalysis;
 import org.e2immu.analyzer.modification.common.getset.ApplyGetSetTranslation;
 import org.e2immu.analyzer.modification.prepwork.escape.ComputeAlwaysEscapes;
 import org.e2immu.analyzer.modification.prepwork.variable.*;
@@ -92,6 +93,7 @@ public class MethodAnalyzer {
         final Map<String, String> labelToStatementIndex;
         final Map<String, Integer> breakCountsInLoop;
         final VariableInfoMap closure;
+        final VariableIds variableIds;
 
         // variables that are searched via parent
         LocalVariable breakVariable;
@@ -108,6 +110,7 @@ public class MethodAnalyzer {
             labelToStatementIndex = new HashMap<>();
             breakCountsInLoop = new HashMap<>();
             this.closure = closure;
+            this.variableIds = new VariableIds();
         }
 
         InternalVariables(InternalVariables parent) {
@@ -117,6 +120,7 @@ public class MethodAnalyzer {
             this.labelToStatementIndex = parent.labelToStatementIndex;
             this.breakCountsInLoop = parent.breakCountsInLoop;
             this.closure = parent.closure;
+            this.variableIds = parent.variableIds;
         }
 
         public boolean acceptLimitedScope(VariableData variableData, Variable variable, String indexOfDefinition, String index) {
@@ -369,7 +373,7 @@ public class MethodAnalyzer {
                                      InternalVariables ivIn) {
         InternalVariables iv = new InternalVariables(ivIn);
         String index = statement.source().index();
-        VariableDataImpl vdi = new VariableDataImpl();
+        VariableDataImpl vdi = new VariableDataImpl(iv.variableIds);
         ReadWriteData readWriteData = analyzeEval(methodInfo, previous, vdi, index, statement, iv);
         boolean hasMerge = statement.hasSubBlocks();
         Stage stageOfPrevious = first ? Stage.EVALUATION : Stage.MERGE;
@@ -838,6 +842,7 @@ public class MethodAnalyzer {
 
         @Override
         public boolean beforeExpression(Expression expressionIn) {
+            ensureLoaded(expressionIn);
             Expression e = expressionIn.translate(applyGetSetTranslation);
             if (e instanceof Lambda lambda) {
                 // we plan to catch all variables that we already know, but not to introduce NEW variables
@@ -932,6 +937,25 @@ public class MethodAnalyzer {
             return true;
         }
 
+        /*
+        With lazy loading of the annotated API, the analysis of the methods and fields used in the source code must be
+        present before the prep analyzer and the modification analyzer read it. Their types may well have been loaded
+        by the inspector after PrepAnalyzer.initialize().
+         */
+        private static void ensureLoaded(Expression e) {
+            if (e instanceof MethodCall mc) {
+                LazyAnalysis.ensureLoaded(mc.methodInfo().typeInfo());
+            } else if (e instanceof ConstructorCall cc && cc.constructor() != null) {
+                LazyAnalysis.ensureLoaded(cc.constructor().typeInfo());
+            } else if (e instanceof MethodReference mr) {
+                LazyAnalysis.ensureLoaded(mr.methodInfo().typeInfo());
+            } else if (e instanceof VariableExpression ve && ve.variable() instanceof FieldReference fr) {
+                LazyAnalysis.ensureLoaded(fr.fieldInfo().owner());
+            } else if (e instanceof Assignment a && a.variableTarget() instanceof FieldReference fr) {
+                LazyAnalysis.ensureLoaded(fr.fieldInfo().owner());
+            }
+        }
+
         private void processRecordPattern(RecordPattern recordPattern, String scope) {
             if (recordPattern.localVariable() != null) {
                 LocalVariable lv = recordPattern.localVariable();
@@ -1,6 +1,8 @@
 package org.e2immu.analyzer.modification.prepwork;
 
+import org.e2immu.analyzer.modification.common.LazyAnalysis;
 import org.e2immu.analyzer.modification.common.getset.GetSetHelper;
+import org.e2immu.analyzer.modification.common.jfr.PrepAnalyzerEvent;
 import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeAnalysisOrder;
 import org.e2immu.analyzer.modification.prepwork.callgraph.ComputeCallGraph;
 import org.e2immu.analyzer.modification.prepwork.callgraph.ComputePartOfConstructionFinalField;
@@ -126,6 +128,7 @@ public class PrepAnalyzer {
                                                                  boolean parallel) {
         AtomicInteger count = new AtomicInteger();
         int total = primaryTypes.size();
+        PrepAnalyzerEvent typesEvent = begin();
         Stream<TypeInfo> stream = parallel ? primaryTypes.parallelStream() : primaryTypes.stream();
         stream.forEach(primaryType -> {
             assert primaryType.isPrimaryType();
@@ -133,19 +136,39 @@ public class PrepAnalyzer {
             TIMED_LOGGER.info("Done {} of {} primary types", count, total);
             count.incrementAndGet();
         });
+        commit(typesEvent, PrepAnalyzerEvent.TYPES, total);
 
         LOGGER.info("Start compute call graph");
+        PrepAnalyzerEvent callGraphEvent = begin();
         ComputeCallGraph ccg = new ComputeCallGraph(runtime, primaryTypes, externalsToAccept);
         G<Info> cg = ccg.go().graph();
         LOGGER.info("Set recursive methods");
         ccg.setRecursiveMethods();
+        commit(callGraphEvent, PrepAnalyzerEvent.CALL_GRAPH, total);
+
         LOGGER.info("Start compute part of construction, final field");
+        PrepAnalyzerEvent partOfConstructionEvent = begin();
         ComputePartOfConstructionFinalField cp = new ComputePartOfConstructionFinalField(options.parallel);
         cp.go(cg);
+        commit(partOfConstructionEvent, PrepAnalyzerEvent.PART_OF_CONSTRUCTION, total);
         LOGGER.info("Done, returning ComputeCallGraph object");
         return ccg;
     }
 
+    private static PrepAnalyzerEvent begin() {
+        PrepAnalyzerEvent event = new PrepAnalyzerEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void commit(PrepAnalyzerEvent event, String step, int primaryTypes) {
+        if (event.shouldCommit()) {
+            event.step = step;
+            event.primaryTypes = primaryTypes;
+            event.commit();
+        }
+    }
+
     public List<Info> doPrimaryType(TypeInfo typeInfo) {
         return doPrimaryTypes(Set.of(typeInfo));
     }
@@ -179,9 +202,13 @@ public class PrepAnalyzer {
         HiddenContentTypes hctType = typeInfo.analysis().getOrCreate(HIDDEN_CONTENT_TYPES, () ->
                 computeHiddenContent.compute(typeInfo));
 
+        // with lazy loading, the analyzers read the annotated API values of supertypes and overridden methods
+        typeInfo.superTypesExcludingJavaLangObject().forEach(LazyAnalysis::ensureLoaded);
+
         // recurse
         typeInfo.subTypes().forEach(this::doType);
         typeInfo.constructorAndMethodStream().forEach(mi -> {
+            mi.overrides().forEach(override -> LazyAnalysis.ensureLoaded(override.typeInfo()));
             mi.analysis().getOrCreate(HIDDEN_CONTENT_TYPES, () -> computeHiddenContent.compute(hctType, mi));
             computeHCS.doHiddenContentSelector(mi);
             boolean isGetSet = !mi.isConstructor() && GetSetHelper.doGetSetAnalysis(mi, mi.methodBody());
@@ -208,6 +235,10 @@ public class PrepAnalyzer {
     public void initialize(List<TypeInfo> typesLoaded) {
         computeHCS.doPrimitives();
         // while the annotated APIs have HCT/HCS values for a number of types, this line takes care of the rest
-        typesLoaded.stream().filter(TypeInfo::isPrimaryType).forEach(computeHCS::doType);
+        // with lazy loading, the annotated API values of these types must be present first
+        typesLoaded.stream().filter(TypeInfo::isPrimaryType).forEach(typeInfo -> {
+            LazyAnalysis.ensureLoaded(typeInfo);
+            computeHCS.doType(typeInfo);
+        });
     }
 }
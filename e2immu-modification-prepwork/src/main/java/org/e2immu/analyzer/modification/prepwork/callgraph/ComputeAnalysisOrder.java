@@ -1,5 +1,6 @@
 package org.e2immu.analyzer.modification.prepwork.callgraph;
 
+import org.e2immu.analyzer.modification.common.jfr.AnalysisOrderEvent;
 import org.e2immu.language.cst.api.info.Info;
 import org.e2immu.util.internal.graph.G;
 import org.e2immu.util.internal.graph.V;
@@ -26,6 +27,8 @@ public class ComputeAnalysisOrder {
     }
 
     public List<Info> go(G<Info> callGraph, boolean parallel) {
+        AnalysisOrderEvent event = new AnalysisOrderEvent();
+        event.begin();
         Stream<V<Info>> stream = parallel ? callGraph.vertices().parallelStream() : callGraph.vertices().stream();
         Set<V<Info>> subSet = stream
                 .filter(v -> !v.t().typeInfo().compilationUnit().externalLibrary())
@@ -34,7 +37,13 @@ public class ComputeAnalysisOrder {
         G<Info> subGraph = callGraph.subGraph(subSet, l -> l >= ComputeCallGraph.REFERENCES);
         LOGGER.info("Created subgraph, start linearization");
         Linearize.Result<Info> result = Linearize.linearize(subGraph, Linearize.LinearizationMode.ALL);
-        return result.asList(Comparator.comparing(Info::fullyQualifiedName));
+        List<Info> analysisOrder = result.asList(Comparator.comparing(Info::fullyQualifiedName));
+        if (event.shouldCommit()) {
+            event.vertices = callGraph.vertices().size();
+            event.infos = analysisOrder.size();
+            event.commit();
+        }
+        return analysisOrder;
     }
 
 }
@@ -30,6 +30,31 @@ public interface VariableData extends Value {
 
     VariableInfoContainer variableInfoContainerOrNull(String fullyQualifiedName);
 
+    /*
+    The id of the variable in the method to which this VariableData belongs, as in VariableInfoContainer.variableId(),
+    or VariableInfoContainer.NO_VARIABLE_ID when the method does not know the variable.
+    Ids can be compared across the statements of a single method, not across methods.
+     */
+    int variableId(Variable variable);
+
+    boolean isKnown(int variableId);
+
+    VariableInfoContainer variableInfoContainerOrNull(int variableId);
+
+    // by id; only when that fails, by fully qualified name
+    default VariableInfoContainer variableInfoContainerOrNull(Variable variable) {
+        VariableInfoContainer vic = variableInfoContainerOrNull(variableId(variable));
+        return vic != null ? vic : variableInfoContainerOrNull(variable.fullyQualifiedName());
+    }
+
+    default boolean isKnown(Variable variable) {
+        return variableInfoContainerOrNull(variable) != null;
+    }
+
+    default boolean isKnown(VariableInfoContainer vic) {
+        return isKnown(vic.variableId()) || isKnown(vic.variable().fullyQualifiedName());
+    }
+
     Stream<VariableInfoContainer> variableInfoContainerStream();
 
     Iterable<VariableInfo> variableInfoIterable();
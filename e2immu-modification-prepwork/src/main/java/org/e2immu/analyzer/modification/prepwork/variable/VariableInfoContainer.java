@@ -19,6 +19,9 @@ public interface VariableInfoContainer {
     // default statement/modification time
     int IGNORE_STATEMENT_TIME = -1;
 
+    // the container has not been registered in a VariableData object yet
+    int NO_VARIABLE_ID = -1;
+
     // prefixes in assignment id
     // see TestLevelSuffixes to visually understand the order
 
@@ -74,4 +77,10 @@ public interface VariableInfoContainer {
     VariableInfo bestCurrentlyComputed();
 
     String indexOfDefinition();
+
+    /*
+    Dense id of the variable, unique within the method, and equal in all statements of the method.
+    See VariableData.variableId(Variable).
+     */
+    int variableId();
 }
@@ -10,6 +10,7 @@ import org.e2immu.language.cst.api.variable.Variable;
 import org.e2immu.language.cst.impl.analysis.PropertyImpl;
 import org.e2immu.support.SetOnceMap;
 
+import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -18,6 +19,18 @@ public class VariableDataImpl implements VariableData {
     public static final PropertyImpl VARIABLE_DATA = new PropertyImpl("variableData", new VariableDataImpl());
 
     private final SetOnceMap<String, VariableInfoContainer> vicByFqn = new SetOnceMap<>();
+    private final VariableIds variableIds;
+    // indexed by variable id; null when the variable is not known in this statement
+    private VariableInfoContainer[] vicById = new VariableInfoContainer[0];
+
+    public VariableDataImpl() {
+        this(new VariableIds());
+    }
+
+    // all VariableDataImpl objects of a method must share the same VariableIds
+    public VariableDataImpl(VariableIds variableIds) {
+        this.variableIds = variableIds;
+    }
 
     @Override
     public boolean isDefault() {
@@ -32,9 +45,38 @@ public class VariableDataImpl implements VariableData {
     public void putIfAbsent(Variable v, VariableInfoContainer vic) {
         if (!vicByFqn.isSet(v.fullyQualifiedName())) {
             vicByFqn.put(v.fullyQualifiedName(), vic);
+            registerId(v, vic);
         }
     }
 
+    private void registerId(Variable v, VariableInfoContainer vic) {
+        int id = vic.variableId();
+        if (id == VariableInfoContainer.NO_VARIABLE_ID) {
+            id = variableIds.intern(v);
+            ((VariableInfoContainerImpl) vic).setVariableId(id);
+        }
+        assert variableIds.variable(id).equals(v) : "Variable " + v + " has an id from another method";
+        if (id >= vicById.length) {
+            vicById = Arrays.copyOf(vicById, Math.max(id + 1, Math.max(8, 2 * vicById.length)));
+        }
+        vicById[id] = vic;
+    }
+
+    @Override
+    public int variableId(Variable variable) {
+        return variableIds.idOrNoId(variable);
+    }
+
+    @Override
+    public boolean isKnown(int variableId) {
+        return variableId >= 0 && variableId < vicById.length && vicById[variableId] != null;
+    }
+
+    @Override
+    public VariableInfoContainer variableInfoContainerOrNull(int variableId) {
+        return variableId >= 0 && variableId < vicById.length ? vicById[variableId] : null;
+    }
+
     @Override
     public boolean isKnown(String fullyQualifiedName) {
         return vicByFqn.isSet(fullyQualifiedName);
@@ -52,6 +94,7 @@ public class VariableDataImpl implements VariableData {
 
     public void put(Variable v, VariableInfoContainer vic) {
         vicByFqn.put(v.fullyQualifiedName(), vic);
+        registerId(v, vic);
     }
 
     @Override
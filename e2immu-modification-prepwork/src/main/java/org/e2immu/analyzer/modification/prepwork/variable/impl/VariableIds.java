@@ -0,0 +1,50 @@
+package org.e2immu.analyzer.modification.prepwork.variable.impl;
+
+import org.e2immu.language.cst.api.variable.Variable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.e2immu.analyzer.modification.prepwork.variable.VariableInfoContainer.NO_VARIABLE_ID;
+
+/*
+Interning table for the variables of one method: a variable receives a dense id, starting from 0, the first time
+it is seen. All VariableDataImpl objects of a method share the same table, so that an id can be used to look up
+the container of a variable in any statement, without computing its fully qualified name.
+
+Ids are assigned by the prep analyzer, but the modification analyzer may add a few (see StaticValuesHelper);
+lookups do not lock.
+ */
+public class VariableIds {
+    private final Map<Variable, Integer> ids = new ConcurrentHashMap<>();
+    private final List<Variable> variables = new ArrayList<>();
+
+    public int intern(Variable variable) {
+        Integer id = ids.get(variable);
+        if (id != null) return id;
+        synchronized (variables) {
+            return ids.computeIfAbsent(variable, v -> {
+                variables.add(v);
+                return variables.size() - 1;
+            });
+        }
+    }
+
+    // NO_VARIABLE_ID when the variable has never been seen in this method
+    public int idOrNoId(Variable variable) {
+        Integer id = ids.get(variable);
+        return id == null ? NO_VARIABLE_ID : id;
+    }
+
+    public Variable variable(int id) {
+        synchronized (variables) {
+            return variables.get(id);
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
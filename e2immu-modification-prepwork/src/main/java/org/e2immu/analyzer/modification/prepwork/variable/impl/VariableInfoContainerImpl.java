@@ -13,6 +13,8 @@ public class VariableInfoContainerImpl implements VariableInfoContainer {
     private final Either<VariableInfoContainer, VariableInfoImpl> previousOrInitial;
     private final VariableInfoImpl evaluation;
     private final SetOnce<VariableInfoImpl> merge;
+    // copied from the previous container; otherwise, set when registered in a VariableDataImpl
+    private int variableId;
 
     public VariableInfoContainerImpl(Variable variable,
                                      VariableNature variableNature,
@@ -24,11 +26,22 @@ public class VariableInfoContainerImpl implements VariableInfoContainer {
         this.previousOrInitial = previousOrInitial;
         this.evaluation = evaluation;
         this.merge = haveMerge ? new SetOnce<>() : null;
+        this.variableId = previousOrInitial.isLeft() ? previousOrInitial.getLeft().variableId() : NO_VARIABLE_ID;
         assert evaluation == null || evaluation.variable() == variable;
         assert previousOrInitial.isLeft() && previousOrInitial.getLeft().variable() == variable
                 || previousOrInitial.isRight() && previousOrInitial.getRight().variable() == variable;
     }
 
+    @Override
+    public int variableId() {
+        return variableId;
+    }
+
+    void setVariableId(int variableId) {
+        assert this.variableId == NO_VARIABLE_ID || this.variableId == variableId;
+        this.variableId = variableId;
+    }
+
     public void setMerge(VariableInfoImpl merge) {
         this.merge.set(merge);
     }
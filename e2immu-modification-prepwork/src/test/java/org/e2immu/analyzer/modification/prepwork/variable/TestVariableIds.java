@@ -0,0 +1,72 @@
+package org.e2immu.analyzer.modification.prepwork.variable;
+
+import org.e2immu.analyzer.modification.prepwork.CommonTest;
+import org.e2immu.analyzer.modification.prepwork.PrepAnalyzer;
+import org.e2immu.analyzer.modification.prepwork.variable.impl.VariableDataImpl;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.ParameterInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.cst.api.statement.Block;
+import org.e2immu.language.cst.api.statement.LocalVariableCreation;
+import org.e2immu.language.cst.api.variable.LocalVariable;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestVariableIds extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT1 = """
+            package a.b;
+            class X {
+                int method(int p) {
+                    int a = p + 1;
+                    if (a > 3) {
+                        int b = a * 2;
+                        a = b;
+                    }
+                    return a;
+                }
+            }
+            """;
+
+    @Test
+    public void test1() {
+        TypeInfo X = javaInspector.parse(INPUT1);
+        MethodInfo method = X.findUniqueMethod("method", 1);
+        PrepAnalyzer analyzer = new PrepAnalyzer(runtime);
+        analyzer.doMethod(method);
+
+        ParameterInfo p = method.parameters().getFirst();
+        LocalVariable a = ((LocalVariableCreation) method.methodBody().statements().getFirst()).localVariable();
+        VariableData vd0 = VariableDataImpl.of(method.methodBody().statements().get(0));
+        VariableData vd1 = VariableDataImpl.of(method.methodBody().statements().get(1));
+        VariableData vd2 = VariableDataImpl.of(method.methodBody().statements().get(2));
+
+        // the same id in every statement of the method
+        int idA = vd0.variableId(a);
+        assertTrue(idA >= 0);
+        assertEquals(idA, vd1.variableInfoContainerOrNull(a.fullyQualifiedName()).variableId());
+        assertEquals(idA, vd2.variableInfoContainerOrNull(a.fullyQualifiedName()).variableId());
+        assertSame(vd2.variableInfoContainerOrNull(a.fullyQualifiedName()), vd2.variableInfoContainerOrNull(idA));
+        assertTrue(vd2.isKnown(p));
+
+        // ids are dense and unique
+        Set<Integer> ids = new HashSet<>();
+        vd2.variableInfoContainerStream().forEach(vic -> assertTrue(ids.add(vic.variableId())));
+        assertTrue(ids.stream().allMatch(id -> id >= 0 && id < 2 * ids.size() + 2));
+
+        // b is known in the method, but not in statement 2
+        Block ifBlock = method.methodBody().statements().get(1).subBlockStream().findFirst().orElseThrow();
+        LocalVariable b = ((LocalVariableCreation) ifBlock.statements().getFirst()).localVariable();
+        int idB = vd2.variableId(b);
+        assertTrue(idB >= 0);
+        assertFalse(vd2.isKnown(idB));
+        assertNull(vd2.variableInfoContainerOrNull(idB));
+        assertFalse(vd2.isKnown(VariableInfoContainer.NO_VARIABLE_ID));
+    }
+}
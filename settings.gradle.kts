@@ -18,3 +18,4 @@ includeBuild("e2immu-modification-common")
 includeBuild("e2immu-modification-io")
 includeBuild("e2immu-modification-prepwork")
 includeBuild("e2immu-modification-linkedvariables")
+includeBuild("e2immu-modification-bench")